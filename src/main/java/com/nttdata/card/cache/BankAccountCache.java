@@ -0,0 +1,87 @@
+package com.nttdata.card.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.nttdata.card.dto.response.proxy.BankAccountResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * This class defines the short-lived cache of the bank accounts read from the bank account service.
+ * Concurrent misses for the same account share one in-flight request; failed or empty responses are not kept.
+ * The responses are shared between callers, so they must be treated as read-only.
+ *
+ * @author Alcibar Vasquez
+ * @version 1.0
+ */
+@Component
+public class BankAccountCache {
+
+    private final boolean enabled;
+
+    private final AsyncCache<String, BankAccountResponse> byId;
+
+    private final Counter coalesced;
+
+    public BankAccountCache(@Value("${card.bank-account-cache.enabled:true}") boolean enabled,
+                            @Value("${card.bank-account-cache.max-size:1000}") long maxSize,
+                            @Value("${card.bank-account-cache.ttl:30s}") Duration ttl,
+                            MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.byId = CaffeineCacheMetrics.monitor(meterRegistry,
+                Caffeine.newBuilder()
+                        .maximumSize(maxSize)
+                        .expireAfterWrite(ttl)
+                        .recordStats()
+                        .<String, BankAccountResponse>buildAsync(),
+                "bank-accounts.by-id");
+        this.coalesced = Counter.builder("cache.coalesced")
+                .description("Misses that joined a request already in flight for the same key")
+                .tag("cache", "bank-accounts.by-id")
+                .register(meterRegistry);
+    }
+
+    /**
+     * This method returns the bank account by id, calling the loader only on a miss
+     *
+     * @param id     bank account id
+     * @param loader remote lookup
+     * @return bank account
+     */
+    public Mono<BankAccountResponse> findById(String id, Function<String, Mono<BankAccountResponse>> loader) {
+        if (!enabled) {
+            return loader.apply(id);
+        }
+        // the loader runs in the context of the caller that missed, so its logs and requests keep the correlation id
+        return Mono.deferContextual(ctx -> Mono.fromFuture(() -> {
+            boolean[] loaded = new boolean[1];
+            CompletableFuture<BankAccountResponse> future = byId.get(id, (k, executor) -> {
+                loaded[0] = true;
+                return loader.apply(k).contextWrite(ctx).toFuture();
+            });
+            if (!loaded[0] && !future.isDone()) {
+                coalesced.increment();
+            }
+            // a dependent future, so a cancelled request does not cancel the shared one
+            return future.thenApply(Function.identity());
+        }));
+    }
+
+    /**
+     * This method drops the bank account, after a change made through this service
+     *
+     * @param id bank account id
+     */
+    public void invalidate(String id) {
+        byId.synchronous().invalidate(id);
+    }
+
+}
@@ -0,0 +1,142 @@
+package com.nttdata.card.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.nttdata.card.model.Card;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * This class defines the in-process near-cache for card lookups by id and cci
+ *
+ * @author Alcibar Vasquez
+ * @version 1.0
+ */
+@Component
+public class CardCache {
+
+    private final boolean enabled;
+
+    private final AsyncCache<String, Card> byId;
+
+    private final AsyncCache<String, Card> byCci;
+
+    /**
+     * Reverse index card id -> cci, so an invalidation by id also drops the cci entry
+     */
+    private final Map<String, String> cciById = new ConcurrentHashMap<>();
+
+    public CardCache(@Value("${card.cache.enabled:true}") boolean enabled,
+                     @Value("${card.cache.max-size:10000}") long maxSize,
+                     @Value("${card.cache.ttl:5m}") Duration ttl,
+                     MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.byId = CaffeineCacheMetrics.monitor(meterRegistry,
+                Caffeine.newBuilder()
+                        .maximumSize(maxSize)
+                        .expireAfterWrite(ttl)
+                        .recordStats()
+                        .<String, Card>buildAsync(),
+                "cards.by-id");
+        this.byCci = CaffeineCacheMetrics.monitor(meterRegistry,
+                Caffeine.newBuilder()
+                        .maximumSize(maxSize)
+                        .expireAfterWrite(ttl)
+                        .recordStats()
+                        .<String, Card>removalListener((cci, card, cause) -> {
+                            if (card != null) {
+                                cciById.remove(card.getId(), cci);
+                            }
+                        })
+                        .buildAsync(),
+                "cards.by-cci");
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * This method returns the card by id, calling the loader only on a miss.
+     * Concurrent misses for the same id share the same load.
+     *
+     * @param id     card id
+     * @param loader repository lookup
+     * @return card
+     */
+    public Mono<Card> findById(String id, Function<String, Mono<Card>> loader) {
+        if (!enabled) {
+            return loader.apply(id);
+        }
+        return Mono.fromFuture(() -> detach(byId.get(id, (k, executor) -> loader.apply(k).toFuture())));
+    }
+
+    /**
+     * This method returns the card by cci, calling the loader only on a miss
+     *
+     * @param cci    card cci
+     * @param loader repository lookup
+     * @return card
+     */
+    public Mono<Card> findByCci(String cci, Function<String, Mono<Card>> loader) {
+        if (!enabled) {
+            return loader.apply(cci);
+        }
+        return Mono.fromFuture(() -> detach(byCci.get(cci, (k, executor) -> loader.apply(k)
+                .doOnNext(c -> cciById.put(c.getId(), k))
+                .toFuture())));
+    }
+
+    /**
+     * This method drops every entry of the given card
+     *
+     * @param card card written
+     */
+    public void invalidate(Card card) {
+        if (card.getId() != null) {
+            invalidateId(card.getId());
+        }
+        if (card.getCci() != null) {
+            byCci.synchronous().invalidate(card.getCci());
+        }
+    }
+
+    /**
+     * This method drops every entry of the card with the given id
+     *
+     * @param id card id
+     */
+    public void invalidateId(String id) {
+        byId.synchronous().invalidate(id);
+        String cci = cciById.remove(id);
+        if (cci != null) {
+            byCci.synchronous().invalidate(cci);
+        }
+    }
+
+    /**
+     * This method drops the whole cache, used when change events may have been missed
+     */
+    public void invalidateAll() {
+        byId.synchronous().invalidateAll();
+        byCci.synchronous().invalidateAll();
+        cciById.clear();
+    }
+
+    /**
+     * Subscribers get a dependent future, so a cancelled request does not cancel the shared load
+     */
+    private static CompletableFuture<Card> detach(CompletableFuture<Card> future) {
+        return future.thenApply(Function.identity());
+    }
+
+}
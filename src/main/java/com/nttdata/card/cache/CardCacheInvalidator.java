@@ -0,0 +1,61 @@
+package com.nttdata.card.cache;
+
+import com.nttdata.card.events.ChangeStreamWatcher;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.ChangeStreamEvent;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+
+import javax.annotation.PreDestroy;
+
+/**
+ * This class keeps the card cache coherent across replicas listening the cards change stream
+ *
+ * @author Alcibar Vasquez
+ * @version 1.0
+ */
+@RequiredArgsConstructor
+@Component
+@ConditionalOnProperty(name = {"card.cache.enabled", "card.cache.change-stream.enabled"}, matchIfMissing = true)
+public class CardCacheInvalidator {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CardCacheInvalidator.class);
+
+    private static final String COLLECTION = "cards";
+
+    private final ChangeStreamWatcher changeStreamWatcher;
+
+    private final CardCache cardCache;
+
+    private Disposable subscription;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        LOGGER.info("[start] watching {} for cache invalidation", COLLECTION);
+        subscription = changeStreamWatcher.watch(COLLECTION, cardCache::invalidateAll)
+                .subscribe(this::onEvent);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+
+    void onEvent(ChangeStreamEvent<Document> event) {
+        String id = ChangeStreamWatcher.documentId(event);
+        if (id == null) {
+            cardCache.invalidateAll();
+            return;
+        }
+        cardCache.invalidateId(id);
+    }
+
+}
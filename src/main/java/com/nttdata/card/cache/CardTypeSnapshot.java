@@ -0,0 +1,136 @@
+package com.nttdata.card.cache;
+
+import com.nttdata.card.events.ChangeStreamWatcher;
+import com.nttdata.card.model.CardType;
+import com.nttdata.card.repository.ICardTypeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * This class holds an immutable in-memory snapshot of the card types collection.
+ * Readers never lock: every change builds a new map and swaps the reference.
+ * The snapshot is loaded by an application runner, so readiness only flips once it is loaded.
+ *
+ * @author Alcibar Vasquez
+ * @version 1.0
+ */
+@Component
+public class CardTypeSnapshot implements ApplicationRunner {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CardTypeSnapshot.class);
+
+    private static final String COLLECTION = "card_types";
+
+    private final AtomicReference<Map<String, CardType>> snapshot = new AtomicReference<>();
+
+    private final ICardTypeRepository cardTypeRepository;
+
+    private final ChangeStreamWatcher changeStreamWatcher;
+
+    private final boolean changeStreamEnabled;
+
+    private final Duration loadTimeout;
+
+    private Disposable subscription;
+
+    public CardTypeSnapshot(ICardTypeRepository cardTypeRepository,
+                            ChangeStreamWatcher changeStreamWatcher,
+                            @Value("${card.card-types.snapshot.change-stream.enabled:true}") boolean changeStreamEnabled,
+                            @Value("${card.card-types.snapshot.load-timeout:30s}") Duration loadTimeout) {
+        this.cardTypeRepository = cardTypeRepository;
+        this.changeStreamWatcher = changeStreamWatcher;
+        this.changeStreamEnabled = changeStreamEnabled;
+        this.loadTimeout = loadTimeout;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        reload().block(loadTimeout);
+        LOGGER.info("[run] card types snapshot loaded with {} entries", snapshot.get().size());
+        if (changeStreamEnabled) {
+            subscription = changeStreamWatcher.watch(COLLECTION, () -> reload().onErrorResume(e -> Mono.empty()).subscribe())
+                    .onBackpressureLatest()
+                    .concatMap(e -> reload().onErrorResume(x -> Mono.empty()), 1)
+                    .subscribe();
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+
+    public boolean isLoaded() {
+        return snapshot.get() != null;
+    }
+
+    /**
+     * This method reads the whole collection and swaps the snapshot
+     *
+     * @return completion
+     */
+    public Mono<Void> reload() {
+        return cardTypeRepository.findAll()
+                .collectMap(CardType::getId, c -> c, LinkedHashMap::new)
+                .doOnNext(m -> snapshot.set(Collections.unmodifiableMap(m)))
+                .doOnError(e -> LOGGER.error("[reload] card types snapshot not refreshed: {}", e.getMessage()))
+                .then();
+    }
+
+    public Flux<CardType> findAll() {
+        return Flux.fromIterable(snapshot.get().values());
+    }
+
+    public Mono<CardType> findById(String id) {
+        return Mono.justOrEmpty(snapshot.get().get(id));
+    }
+
+    /**
+     * This method applies a local write to the snapshot
+     *
+     * @param cardType card type saved
+     */
+    public void put(CardType cardType) {
+        snapshot.updateAndGet(current -> {
+            if (current == null) {
+                return null;
+            }
+            Map<String, CardType> next = new LinkedHashMap<>(current);
+            next.put(cardType.getId(), cardType);
+            return Collections.unmodifiableMap(next);
+        });
+    }
+
+    /**
+     * This method applies a local delete to the snapshot
+     *
+     * @param id card type id deleted
+     */
+    public void remove(String id) {
+        snapshot.updateAndGet(current -> {
+            if (current == null || !current.containsKey(id)) {
+                return current;
+            }
+            Map<String, CardType> next = new LinkedHashMap<>(current);
+            next.remove(id);
+            return Collections.unmodifiableMap(next);
+        });
+    }
+
+}
@@ -0,0 +1,35 @@
+package com.nttdata.card.config;
+
+import com.nttdata.card.util.CoarseClock;
+import com.nttdata.card.util.TimestampProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Clock;
+import java.time.Duration;
+
+/**
+ * This class defines the clock of the service and the timestamp provider built on it
+ *
+ * @author Alcibar Vasquez
+ * @version 1.0
+ */
+@Configuration
+public class ClockConfig {
+
+    /**
+     * The system clock, or with {@code card.clock.coarse.enabled} a clock cached every {@code card.clock.coarse.tick}
+     */
+    @Bean
+    public Clock clock(@Value("${card.clock.coarse.enabled:false}") boolean coarse,
+                       @Value("${card.clock.coarse.tick:10ms}") Duration tick) {
+        return coarse ? new CoarseClock(Clock.systemUTC(), tick.toMillis()) : Clock.systemUTC();
+    }
+
+    @Bean
+    public TimestampProvider timestampProvider(Clock clock) {
+        return new TimestampProvider(clock);
+    }
+
+}
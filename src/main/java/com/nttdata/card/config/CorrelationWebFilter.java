@@ -0,0 +1,32 @@
+package com.nttdata.card.config;
+
+import com.nttdata.card.util.Correlation;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+/**
+ * This class gives every request a correlation id: the {@code X-Correlation-Id} of the caller, or a new one.
+ * The id is returned in the response, written to the Reactor context of the request for its log lines, see
+ * {@link Correlation#log}, and forwarded by the web client to the services it calls.
+ *
+ * @author Alcibar Vasquez
+ * @version 1.0
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class CorrelationWebFilter implements WebFilter {
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        String id = Correlation.idOf(exchange.getRequest().getHeaders().getFirst(Correlation.HEADER));
+        exchange.getResponse().getHeaders().set(Correlation.HEADER, id);
+        return chain.filter(exchange)
+                .contextWrite(ctx -> ctx.put(Correlation.KEY, id));
+    }
+
+}
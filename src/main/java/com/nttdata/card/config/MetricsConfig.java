@@ -0,0 +1,62 @@
+package com.nttdata.card.config;
+
+import com.nttdata.card.util.MethodMetrics;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * This class defines the latency metrics of the service. The endpoints ({@code http.server.requests}), the calls
+ * to other services ({@code http.client.requests}), the Mongo commands ({@code mongodb.driver.commands}, by command
+ * and collection) and the methods of the service ({@code card.method.calls}) publish percentile histograms, scraped
+ * from the actuator Prometheus endpoint. Every tag has a bounded set of values: URI templates, command and
+ * collection names, method names and outcomes.
+ *
+ * @author Alcibar Vasquez
+ * @version 1.0
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public MethodMetrics methodMetrics(MeterRegistry meterRegistry) {
+        return new MethodMetrics(meterRegistry);
+    }
+
+    /**
+     * Percentile histograms for the timers of {@code card.metrics.histograms}, with buckets only between
+     * {@code card.metrics.histogram.min} and {@code card.metrics.histogram.max} to bound the series
+     */
+    @Bean
+    public MeterFilter latencyHistograms(
+            @Value("${card.metrics.histograms:http.server.requests,http.client.requests,mongodb.driver.commands,"
+                    + MethodMetrics.TIMER + "}") List<String> histograms,
+            @Value("${card.metrics.histogram.min:1ms}") Duration min,
+            @Value("${card.metrics.histogram.max:10s}") Duration max) {
+        Set<String> names = new HashSet<>(histograms);
+        return new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                if (id.getType() != Meter.Type.TIMER || !names.contains(id.getName())) {
+                    return config;
+                }
+                return DistributionStatisticConfig.builder()
+                        .percentilesHistogram(true)
+                        .minimumExpectedValue((double) min.toNanos())
+                        .maximumExpectedValue((double) max.toNanos())
+                        .build()
+                        .merge(config);
+            }
+        };
+    }
+
+}
@@ -0,0 +1,86 @@
+package com.nttdata.card.config;
+
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.result.UpdateResult;
+import com.nttdata.card.model.Card;
+import com.nttdata.card.model.Money;
+import org.bson.BsonType;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.Decimal128;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * This class rewrites at startup the balances stored as numbers into the money document
+ * {@code {amount: NumberLong(minor units), currency}}. The conversion runs inside the database with one
+ * pipeline update, and only matches numeric balances, so running it again is a no-op. Amounts are rounded half up
+ * on their decimal form, as {@link Money#ofDouble} reads the balances not migrated yet.
+ *
+ * @author Alcibar Vasquez
+ * @version 1.0
+ */
+@Component
+@ConditionalOnProperty(name = "card.money.migration.enabled", havingValue = "true", matchIfMissing = true)
+public class MoneyMigration implements ApplicationRunner {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MoneyMigration.class);
+
+    private static final String BALANCE = "balance";
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+    private final Duration timeout;
+
+    public MoneyMigration(ReactiveMongoTemplate reactiveMongoTemplate,
+                          @Value("${card.money.migration.timeout:5m}") Duration timeout) {
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+        this.timeout = timeout;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        UpdateResult result = migrate().block(timeout);
+        LOGGER.info("[run] {} card balances migrated to minor units", result == null ? 0 : result.getModifiedCount());
+    }
+
+    /**
+     * This method converts the numeric balances of the cards collection
+     *
+     * @return update result
+     */
+    public Mono<UpdateResult> migrate() {
+        Bson numeric = Filters.or(
+                Filters.type(BALANCE, BsonType.DOUBLE),
+                Filters.type(BALANCE, BsonType.INT32),
+                Filters.type(BALANCE, BsonType.INT64),
+                Filters.type(BALANCE, BsonType.DECIMAL128));
+        // half up like Money.ofDouble: $round rounds half to even, and on the double itself
+        Document scaled = new Document("$multiply", Arrays.asList(new Document("$toDecimal", "$" + BALANCE), 100));
+        Decimal128 half = new Decimal128(new BigDecimal("0.5"));
+        Document halfUp = new Document("$cond", Arrays.asList(
+                new Document("$gte", Arrays.asList("$$scaled", 0)),
+                new Document("$floor", new Document("$add", Arrays.asList("$$scaled", half))),
+                new Document("$ceil", new Document("$subtract", Arrays.asList("$$scaled", half)))));
+        Document minorUnits = new Document("$toLong", new Document("$let",
+                new Document("vars", new Document("scaled", scaled)).append("in", halfUp)));
+        Document money = new Document(MongoConfig.MONEY_AMOUNT, minorUnits)
+                .append(MongoConfig.MONEY_CURRENCY, Money.DEFAULT_CURRENCY);
+        return reactiveMongoTemplate.getCollection(reactiveMongoTemplate.getCollectionName(Card.class))
+                .flatMap(collection -> Mono.from(collection.updateMany(numeric,
+                        Collections.singletonList(new Document("$set", new Document(BALANCE, money))))));
+    }
+
+}
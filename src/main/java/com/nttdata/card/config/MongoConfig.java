@@ -0,0 +1,89 @@
+package com.nttdata.card.config;
+
+import com.nttdata.card.model.Money;
+import org.bson.Document;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.data.convert.ReadingConverter;
+import org.springframework.data.convert.WritingConverter;
+import org.springframework.data.mongodb.ReactiveMongoDatabaseFactory;
+import org.springframework.data.mongodb.ReactiveMongoTransactionManager;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.transaction.ReactiveTransactionManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+import java.util.Arrays;
+
+/**
+ * This class defines the custom conversions of the documents of the service and its transactions
+ *
+ * @author Alcibar Vasquez
+ * @version 1.0
+ */
+@Configuration
+public class MongoConfig {
+
+    public static final String MONEY_AMOUNT = "amount";
+
+    public static final String MONEY_CURRENCY = "currency";
+
+    @Bean
+    public MongoCustomConversions mongoCustomConversions() {
+        return new MongoCustomConversions(Arrays.asList(
+                new MoneyWritingConverter(),
+                new MoneyReadingConverter(),
+                new LegacyMoneyReadingConverter()));
+    }
+
+    /**
+     * Transactions need a replica set, which the change streams of the service already require
+     */
+    @Bean
+    public ReactiveMongoTransactionManager reactiveTransactionManager(ReactiveMongoDatabaseFactory databaseFactory) {
+        return new ReactiveMongoTransactionManager(databaseFactory);
+    }
+
+    @Bean
+    public TransactionalOperator transactionalOperator(ReactiveTransactionManager reactiveTransactionManager) {
+        return TransactionalOperator.create(reactiveTransactionManager);
+    }
+
+    /**
+     * Money is stored as {@code {amount: NumberLong(minor units), currency: "PEN"}}
+     */
+    @WritingConverter
+    public static class MoneyWritingConverter implements Converter<Money, Document> {
+
+        @Override
+        public Document convert(Money source) {
+            return new Document(MONEY_AMOUNT, source.getMinorUnits()).append(MONEY_CURRENCY, source.getCurrency());
+        }
+
+    }
+
+    @ReadingConverter
+    public static class MoneyReadingConverter implements Converter<Document, Money> {
+
+        @Override
+        public Money convert(Document source) {
+            Number amount = source.get(MONEY_AMOUNT, Number.class);
+            return Money.ofMinor(amount == null ? 0L : amount.longValue(), source.getString(MONEY_CURRENCY));
+        }
+
+    }
+
+    /**
+     * Reads the balances written as floats before {@link MoneyMigration} rewrote them
+     */
+    @ReadingConverter
+    public static class LegacyMoneyReadingConverter implements Converter<Double, Money> {
+
+        @Override
+        public Money convert(Double source) {
+            return Money.ofDouble(source);
+        }
+
+    }
+
+}
@@ -0,0 +1,141 @@
+package com.nttdata.card.config;
+
+import com.nttdata.card.model.Card;
+import com.nttdata.card.model.CardBankSummaryEntry;
+import com.nttdata.card.model.OutboxMessage;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexField;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.index.ReactiveIndexOperations;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * This class creates and verifies at startup the indexes declared with {@code @Indexed} and
+ * {@code @CompoundIndex} on the documents of the service, and reports any drift against the database
+ *
+ * @author Alcibar Vasquez
+ * @version 1.0
+ */
+@Component
+public class MongoIndexReconciler implements ApplicationRunner {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MongoIndexReconciler.class);
+
+    private static final List<Class<?>> DOCUMENTS = Arrays.asList(Card.class, OutboxMessage.class,
+            CardBankSummaryEntry.class);
+
+    private static final String ID_INDEX = "_id_";
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+    private final boolean failOnDrift;
+
+    private final Duration timeout;
+
+    public MongoIndexReconciler(ReactiveMongoTemplate reactiveMongoTemplate,
+                                @Value("${card.indexes.fail-on-drift:false}") boolean failOnDrift,
+                                @Value("${card.indexes.timeout:60s}") Duration timeout) {
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+        this.failOnDrift = failOnDrift;
+        this.timeout = timeout;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        List<String> drift = Flux.fromIterable(DOCUMENTS)
+                .concatMap(this::reconcile)
+                .collectList()
+                .block(timeout);
+        if (drift == null || drift.isEmpty()) {
+            LOGGER.info("[run] indexes in sync for {}", DOCUMENTS);
+            return;
+        }
+        drift.forEach(d -> LOGGER.warn("[run] index drift: {}", d));
+        if (failOnDrift) {
+            throw new IllegalStateException("Index drift detected: " + drift);
+        }
+    }
+
+    /**
+     * This method creates the missing indexes of a document and returns the drift left
+     *
+     * @param document document class
+     * @return drift descriptions, empty when in sync
+     */
+    public Flux<String> reconcile(Class<?> document) {
+        String collection = reactiveMongoTemplate.getCollectionName(document);
+        ReactiveIndexOperations indexOps = reactiveMongoTemplate.indexOps(document);
+        List<IndexDefinition> declared = new ArrayList<>();
+        IndexResolver.create(reactiveMongoTemplate.getConverter().getMappingContext())
+                .resolveIndexFor(document)
+                .forEach(declared::add);
+
+        return indexOps.getIndexInfo()
+                .collectMap(IndexInfo::getName, Function.identity())
+                .flatMapMany(existing -> Flux.concat(
+                        Flux.fromIterable(declared).concatMap(d -> verify(collection, indexOps, d, existing)),
+                        Flux.fromIterable(existing.keySet())
+                                .filter(name -> !ID_INDEX.equals(name) && declared.stream().noneMatch(d -> name.equals(nameOf(d))))
+                                .map(name -> collection + "." + name + " is not declared")));
+    }
+
+    private Mono<String> verify(String collection, ReactiveIndexOperations indexOps, IndexDefinition declared,
+                                Map<String, IndexInfo> existing) {
+        String name = nameOf(declared);
+        IndexInfo info = existing.get(name);
+        if (info == null) {
+            return indexOps.ensureIndex(declared)
+                    .doOnNext(n -> LOGGER.info("[verify] index {}.{} created", collection, n))
+                    .then(Mono.<String>empty())
+                    .onErrorResume(e -> Mono.just(collection + "." + name + " could not be created: " + e.getMessage()));
+        }
+        Document expectedKeys = declared.getIndexKeys();
+        Document actualKeys = keysOf(info);
+        boolean expectedUnique = declared.getIndexOptions().getBoolean("unique", false);
+        if (!new ArrayList<>(expectedKeys.entrySet()).equals(new ArrayList<>(actualKeys.entrySet()))
+                || expectedUnique != info.isUnique()) {
+            return Mono.just(collection + "." + name + " expected keys " + expectedKeys.toJson() + " unique=" + expectedUnique
+                    + " but found " + actualKeys.toJson() + " unique=" + info.isUnique());
+        }
+        return Mono.empty();
+    }
+
+    private static String nameOf(IndexDefinition definition) {
+        String name = definition.getIndexOptions().getString("name");
+        if (name != null) {
+            return name;
+        }
+        return definition.getIndexKeys().entrySet().stream()
+                .map(e -> e.getKey() + "_" + e.getValue())
+                .collect(Collectors.joining("_"));
+    }
+
+    private static Document keysOf(IndexInfo info) {
+        Document keys = new Document();
+        for (IndexField field : info.getIndexFields()) {
+            Sort.Direction direction = field.getDirection();
+            keys.put(field.getKey(), direction == null ? null : direction.isAscending() ? 1 : -1);
+        }
+        return keys;
+    }
+
+}
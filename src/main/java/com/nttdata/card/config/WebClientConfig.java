@@ -1,20 +1,33 @@
 package com.nttdata.card.config;
 
+import com.nttdata.card.util.Correlation;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import io.netty.channel.ChannelOption;
 import io.netty.handler.timeout.ReadTimeoutHandler;
 import io.netty.handler.timeout.WriteTimeoutHandler;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.client.reactive.ClientHttpConnector;
 import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.HttpProtocol;
 import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
 
 import java.time.Duration;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 /**
- * This class defines the configuration to connect external microservice
+ * This class defines the configuration to connect external microservice. The connections are kept in a bounded pool
+ * whose gauges ({@code reactor.netty.connection.provider.*}) are published with the actuator, and the time a request
+ * waits for a connection is recorded as {@code card.web-client.acquire}. The client is built from the builder of
+ * Spring Boot, which records every request as {@code http.client.requests} tagged by its URI template, so the
+ * callers pass the ids as URI variables rather than concatenated into the URI. The correlation id of the request
+ * being served is forwarded as {@code X-Correlation-Id}.
  *
  * @author Alcibar Vasquez
  * @version 1.0
@@ -22,19 +35,74 @@ import java.util.concurrent.TimeUnit;
 @Configuration
 public class WebClientConfig {
 
+    public static final String POOL_NAME = "card-web-client";
+
+    public static final String ACQUIRE_TIMER = "card.web-client.acquire";
+
+    private static final String ACQUIRE_START = WebClientConfig.class.getName() + ".acquireStart";
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider connectionProvider(
+            @Value("${card.web-client.pool.max-connections:50}") int maxConnections,
+            @Value("${card.web-client.pool.pending-acquire-max-count:100}") int pendingAcquireMaxCount,
+            @Value("${card.web-client.pool.pending-acquire-timeout:5s}") Duration pendingAcquireTimeout,
+            @Value("${card.web-client.pool.max-idle-time:30s}") Duration maxIdleTime,
+            @Value("${card.web-client.pool.max-life-time:5m}") Duration maxLifeTime,
+            @Value("${card.web-client.pool.evict-in-background:30s}") Duration evictInBackground,
+            @Value("${card.web-client.pool.metrics:true}") boolean metrics) {
+        return ConnectionProvider.builder(POOL_NAME)
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(pendingAcquireMaxCount)
+                .pendingAcquireTimeout(pendingAcquireTimeout)
+                .maxIdleTime(maxIdleTime)
+                .maxLifeTime(maxLifeTime)
+                .evictInBackground(evictInBackground)
+                .metrics(metrics)
+                .build();
+    }
+
+    /**
+     * With {@code card.web-client.protocols: H2C, HTTP11} the client upgrades to HTTP/2 over cleartext,
+     * and with {@code H2, HTTP11} it negotiates HTTP/2 over TLS
+     */
     @Bean
-    public WebClient webClient() {
-        HttpClient httpClient = HttpClient.create()
-                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, 10000)
-                .responseTimeout(Duration.ofMillis(10000))
+    public WebClient webClient(WebClient.Builder webClientBuilder,
+                               ConnectionProvider connectionProvider,
+                               MeterRegistry meterRegistry,
+                               @Value("${card.web-client.connect-timeout:10s}") Duration connectTimeout,
+                               @Value("${card.web-client.response-timeout:10s}") Duration responseTimeout,
+                               @Value("${card.web-client.read-timeout:5s}") Duration readTimeout,
+                               @Value("${card.web-client.write-timeout:5s}") Duration writeTimeout,
+                               @Value("${card.web-client.protocols:HTTP11}") List<HttpProtocol> protocols,
+                               @Value("${card.web-client.wiretap:false}") boolean wiretap) {
+        Timer acquire = Timer.builder(ACQUIRE_TIMER)
+                .description("Time a request waits for a pooled connection, including the connect of a new one")
+                .tag("pool", POOL_NAME)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .protocol(protocols.toArray(new HttpProtocol[0]))
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())
+                .responseTimeout(responseTimeout)
                 .doOnConnected(cn -> cn
-                        .addHandlerLast(new ReadTimeoutHandler(5000, TimeUnit.MILLISECONDS))
-                        .addHandlerLast(new WriteTimeoutHandler(5000, TimeUnit.MILLISECONDS))
-                );
-        ClientHttpConnector clientHttpConnector = new ReactorClientHttpConnector(httpClient.wiretap(true));
-        return WebClient.builder()
+                        .addHandlerLast(new ReadTimeoutHandler(readTimeout.toMillis(), TimeUnit.MILLISECONDS))
+                        .addHandlerLast(new WriteTimeoutHandler(writeTimeout.toMillis(), TimeUnit.MILLISECONDS))
+                )
+                .doOnRequest((request, connection) -> {
+                    Long start = request.currentContextView().getOrDefault(ACQUIRE_START, null);
+                    if (start != null) {
+                        acquire.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    }
+                })
+                .wiretap(wiretap);
+        ClientHttpConnector clientHttpConnector = new ReactorClientHttpConnector(httpClient);
+        return webClientBuilder
                 //.baseUrl(this.baseUrl)
                 .clientConnector(clientHttpConnector)
+                .filter((request, next) -> next.exchange(request)
+                        .contextWrite(ctx -> ctx.put(ACQUIRE_START, System.nanoTime())))
+                .filter((request, next) -> Mono.deferContextual(ctx ->
+                        next.exchange(Correlation.propagate(request, ctx))))
                 .build();
     }
 
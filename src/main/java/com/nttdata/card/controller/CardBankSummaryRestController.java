@@ -0,0 +1,58 @@
+package com.nttdata.card.controller;
+
+import com.nttdata.card.dto.mapper.CardBankSummaryMapper;
+import com.nttdata.card.dto.response.CardBankSummaryResponse;
+import com.nttdata.card.service.ICardBankSummaryService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * This controller class defines the endpoints to the bank summaries of the cards
+ *
+ * @author Alcibar Vasquez
+ * @version 1.0
+ */
+@RequiredArgsConstructor
+@RestController
+@RequestMapping("/api/v1/card-bank-summaries")
+public class CardBankSummaryRestController {
+
+    private final ICardBankSummaryService cardBankSummaryService;
+
+    private final CardBankSummaryMapper cardBankSummaryMapper;
+
+    /**
+     * @return summaries of the banks with cards
+     */
+    @ResponseStatus(HttpStatus.OK)
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public Flux<CardBankSummaryResponse> getAll() {
+        return cardBankSummaryMapper.toFluxResponse(cardBankSummaryService.findAll());
+    }
+
+    /**
+     * @param bankName bank name
+     * @return summary of the bank
+     */
+    @ResponseStatus(HttpStatus.OK)
+    @GetMapping(value = "/{bankName}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<CardBankSummaryResponse> getByBankName(@PathVariable(name = "bankName") String bankName) {
+        return cardBankSummaryMapper.toMonoResponse(cardBankSummaryService.findByBankName(bankName));
+    }
+
+    /**
+     * Admin operation: rebuilds the summaries from the cards
+     *
+     * @return summaries rebuilt
+     */
+    @ResponseStatus(HttpStatus.OK)
+    @PostMapping(value = "/rebuild", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Flux<CardBankSummaryResponse> rebuild() {
+        return cardBankSummaryMapper.toFluxResponse(cardBankSummaryService.rebuild());
+    }
+
+}
@@ -0,0 +1,76 @@
+package com.nttdata.card.controller;
+
+import com.nttdata.card.dto.mapper.CardRawJsonWriter;
+import com.nttdata.card.service.ICardService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.server.RequestPredicate;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import static org.springframework.web.reactive.function.server.RequestPredicates.GET;
+import static org.springframework.web.reactive.function.server.RequestPredicates.accept;
+import static org.springframework.web.reactive.function.server.RouterFunctions.route;
+
+/**
+ * This class defines the raw JSON routes of the read-only card endpoints. With {@code card.raw-json.enabled},
+ * {@code GET /api/v1/cards} and {@code GET /api/v1/cards/{id}} without query parameters are answered from the
+ * undecoded BSON, written with {@link CardRawJsonWriter}; every other request still reaches {@link CardRestController}.
+ *
+ * @author Alcibar Vasquez
+ * @version 1.0
+ */
+@Configuration
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "card.raw-json.enabled", havingValue = "true")
+public class CardRawJsonRouter {
+
+    private static final byte[] OPEN = {'['};
+
+    private static final byte[] CLOSE = {']'};
+
+    private static final byte COMMA = ',';
+
+    private final ICardService cardService;
+
+    private final CardRawJsonWriter cardRawJsonWriter;
+
+    @Bean
+    public RouterFunction<ServerResponse> cardRawJsonRoutes() {
+        RequestPredicate plainJson = accept(MediaType.APPLICATION_JSON).and(request -> request.queryParams().isEmpty());
+        return route(GET("/api/v1/cards").and(plainJson), this::getAll)
+                .andRoute(GET("/api/v1/cards/{id}").and(plainJson), this::getById);
+    }
+
+    private Mono<ServerResponse> getAll(ServerRequest request) {
+        DataBufferFactory factory = request.exchange().getResponse().bufferFactory();
+        Flux<DataBuffer> body = Flux.concat(
+                Mono.fromSupplier(() -> factory.wrap(OPEN)),
+                cardService.findAllRaw()
+                        .index()
+                        .map(t -> cardRawJsonWriter.write(t.getT2(), factory, t.getT1() == 0 ? 0 : COMMA)),
+                Mono.fromSupplier(() -> factory.wrap(CLOSE)));
+        return ServerResponse.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(BodyInserters.fromDataBuffers(body));
+    }
+
+    private Mono<ServerResponse> getById(ServerRequest request) {
+        DataBufferFactory factory = request.exchange().getResponse().bufferFactory();
+        return cardService.findRawById(request.pathVariable("id"))
+                .map(document -> cardRawJsonWriter.write(document, factory, (byte) 0))
+                .flatMap(buffer -> ServerResponse.ok()
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(BodyInserters.fromDataBuffers(Mono.just(buffer))));
+    }
+
+}
@@ -1,16 +1,32 @@
 package com.nttdata.card.controller;
 
 import com.nttdata.card.dto.mapper.CardMapper;
+import com.nttdata.card.dto.request.BalanceDeltaRequest;
+import com.nttdata.card.dto.request.BalanceRequest;
+import com.nttdata.card.dto.request.CardPatchRequest;
 import com.nttdata.card.dto.request.CardRequest;
+import com.nttdata.card.dto.response.BalanceDeltaResponse;
+import com.nttdata.card.dto.response.CardBatchItemResponse;
+import com.nttdata.card.dto.response.CardPageResponse;
 import com.nttdata.card.dto.response.CardResponse;
+import com.nttdata.card.dto.response.CardStreamFrame;
+import com.nttdata.card.enums.CardField;
+import com.nttdata.card.exceptions.CustomException;
 import com.nttdata.card.service.ICardService;
+import com.nttdata.card.util.PageCursor;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+
 /**
  * This controller class defines the endpoints to cards
  *
@@ -26,6 +42,18 @@ public class CardRestController {
 
     private final CardMapper cardMapper;
 
+    @Value("${card.pagination.max-limit:500}")
+    private int maxLimit;
+
+    @Value("${card.stream.batch-size:500}")
+    private int streamBatchSize;
+
+    @Value("${card.stream.progress-every:1000}")
+    private int streamProgressEvery;
+
+    @Value("${card.stream.heartbeat:15s}")
+    private Duration streamHeartbeat;
+
     /**
      * @return list of cards
      */
@@ -35,6 +63,98 @@ public class CardRestController {
         return cardMapper.toFluxResponse(cardService.findAll());
     }
 
+    /**
+     * @param fields comma separated fields to return, e.g. id,cci,balance
+     * @return list of cards with only the requested fields
+     */
+    @ResponseStatus(HttpStatus.OK)
+    @GetMapping(params = {"fields", "!limit", "!after"}, produces = MediaType.APPLICATION_JSON_VALUE)
+    public Flux<Map<String, Object>> getAll(@RequestParam(name = "fields") String fields) {
+        Set<CardField> cardFields = CardField.parse(fields);
+        return cardService.findAll(cardFields).map(c -> cardMapper.toPartialResponse(c, cardFields));
+    }
+
+    /**
+     * @param after last card id received, to resume after a disconnect
+     * @return stream of card, progress and heartbeat frames, one JSON document per line
+     */
+    @ResponseStatus(HttpStatus.OK)
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<CardStreamFrame> streamNdjson(@RequestParam(name = "after", required = false) String after) {
+        return streamFrames(after);
+    }
+
+    /**
+     * @param after       last card id received, to resume after a disconnect
+     * @param lastEventId id of the last event received, sent by EventSource on reconnection
+     * @return stream of card and progress events, with heartbeat comments
+     */
+    @ResponseStatus(HttpStatus.OK)
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Object>> streamEvents(@RequestParam(name = "after", required = false) String after,
+                                                      @RequestHeader(name = "Last-Event-ID", required = false) String lastEventId) {
+        return streamFrames(after != null ? after : lastEventId)
+                .map(f -> {
+                    if (CardStreamFrame.CARD.equals(f.getType())) {
+                        return ServerSentEvent.builder((Object) f.getData()).id(f.getData().getId()).event(f.getType()).build();
+                    }
+                    if (CardStreamFrame.PROGRESS.equals(f.getType())) {
+                        return ServerSentEvent.builder((Object) f).event(f.getType()).build();
+                    }
+                    return ServerSentEvent.builder().comment(f.getType()).build();
+                });
+    }
+
+    /**
+     * Heartbeats stop with the data, and are dropped while the client is not reading
+     */
+    private Flux<CardStreamFrame> streamFrames(String after) {
+        return cardMapper.toStreamFrames(cardService.stream(after, streamBatchSize), streamProgressEvery)
+                .publish(frames -> Flux.merge(frames, Flux.interval(streamHeartbeat)
+                        .onBackpressureDrop()
+                        .map(t -> CardStreamFrame.heartbeat())
+                        .takeUntilOther(frames.then())));
+    }
+
+    /**
+     * Pages are not projected: {@code fields} is rejected rather than ignored.
+     *
+     * @param after  continuation token of the previous page
+     * @param limit  page size, capped to card.pagination.max-limit
+     * @param sort   id or createdAt
+     * @param fields not supported with paging
+     * @return page of cards
+     */
+    @ResponseStatus(HttpStatus.OK)
+    @GetMapping(params = "limit", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<CardPageResponse> getPage(@RequestParam(name = "after", required = false) String after,
+                                          @RequestParam(name = "limit") int limit,
+                                          @RequestParam(name = "sort", required = false) String sort,
+                                          @RequestParam(name = "fields", required = false) String fields) {
+        if (fields != null) {
+            return Mono.error(CustomException.badRequest("fields cannot be combined with limit or after"));
+        }
+        int size = Math.max(1, Math.min(limit, maxLimit));
+        PageCursor cursor = PageCursor.decode(after, sort);
+        return cardService.findPage(cursor, size + 1)
+                .collectList()
+                .map(cards -> cardMapper.toPageResponse(cards, size, cursor));
+    }
+
+    /**
+     * @param after  continuation token of the previous page
+     * @param sort   id or createdAt
+     * @param fields not supported with paging
+     * @return page of cards with the maximum size
+     */
+    @ResponseStatus(HttpStatus.OK)
+    @GetMapping(params = {"after", "!limit"}, produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<CardPageResponse> getPageAfter(@RequestParam(name = "after") String after,
+                                               @RequestParam(name = "sort", required = false) String sort,
+                                               @RequestParam(name = "fields", required = false) String fields) {
+        return getPage(after, maxLimit, sort, fields);
+    }
+
     /**
      * @return card
      */
@@ -44,6 +164,18 @@ public class CardRestController {
         return cardMapper.toMonoResponse(cardService.findById(id));
     }
 
+    /**
+     * @param fields comma separated fields to return
+     * @return card with only the requested fields
+     */
+    @ResponseStatus(HttpStatus.OK)
+    @GetMapping(value = "/{id}", params = "fields", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<Map<String, Object>> getById(@PathVariable(name = "id") String id,
+                                             @RequestParam(name = "fields") String fields) {
+        Set<CardField> cardFields = CardField.parse(fields);
+        return cardService.findById(id, cardFields).map(c -> cardMapper.toPartialResponse(c, cardFields));
+    }
+
     /**
      * @return card
      */
@@ -53,6 +185,18 @@ public class CardRestController {
         return cardMapper.toMonoResponse(cardService.findByCci(cci));
     }
 
+    /**
+     * @param fields comma separated fields to return
+     * @return card with only the requested fields
+     */
+    @ResponseStatus(HttpStatus.OK)
+    @GetMapping(value = "/cci/{cci}", params = "fields", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<Map<String, Object>> getByCci(@PathVariable(name = "cci") String cci,
+                                              @RequestParam(name = "fields") String fields) {
+        Set<CardField> cardFields = CardField.parse(fields);
+        return cardService.findByCci(cci, cardFields).map(c -> cardMapper.toPartialResponse(c, cardFields));
+    }
+
     /**
      * @param request request to create card
      * @return card created
@@ -65,6 +209,19 @@ public class CardRestController {
         return cardMapper.toMonoResponse(cardService.create(request));
     }
 
+    /**
+     * @param requests cards to create, as a JSON array or NDJSON
+     * @return result of every card, in the order of the request
+     */
+    @ResponseStatus(HttpStatus.OK)
+    @PostMapping(
+            value = "/batch",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE},
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<CardBatchItemResponse> createBatch(@RequestBody Flux<CardRequest> requests) {
+        return cardService.createBatch(requests);
+    }
+
     /**
      * @param id      card id to update
      * @param request request for update card
@@ -80,6 +237,79 @@ public class CardRestController {
         return cardMapper.toMonoResponse(cardService.update(id, request));
     }
 
+    /**
+     * @param id      card id
+     * @param request JSON Merge Patch: members with a value are set, members with null are removed
+     * @return card updated
+     */
+    @ResponseStatus(HttpStatus.OK)
+    @PatchMapping(
+            value = "/{id}",
+            consumes = {"application/merge-patch+json", MediaType.APPLICATION_JSON_VALUE},
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<CardResponse> patch(@PathVariable(name = "id") String id,
+                                    @RequestBody CardPatchRequest request) {
+        return cardMapper.toMonoResponse(cardService.patch(id, request));
+    }
+
+    /**
+     * @param id      card id
+     * @param request new balance
+     * @return card updated
+     */
+    @ResponseStatus(HttpStatus.OK)
+    @PutMapping(
+            value = "/{id}/balance",
+            consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<CardResponse> setBalance(@PathVariable(name = "id") String id,
+                                         @RequestBody BalanceRequest request) {
+        return cardMapper.toMonoResponse(cardService.setBalance(id, request));
+    }
+
+    /**
+     * @param id      card id
+     * @param request amount to add
+     * @return card updated
+     */
+    @ResponseStatus(HttpStatus.OK)
+    @PostMapping(
+            value = "/{id}/balance/credit",
+            consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<CardResponse> credit(@PathVariable(name = "id") String id,
+                                     @RequestBody BalanceRequest request) {
+        return cardMapper.toMonoResponse(cardService.credit(id, request));
+    }
+
+    /**
+     * @param id      card id
+     * @param request amount to subtract, rejected when the balance does not cover it
+     * @return card updated
+     */
+    @ResponseStatus(HttpStatus.OK)
+    @PostMapping(
+            value = "/{id}/balance/debit",
+            consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<CardResponse> debit(@PathVariable(name = "id") String id,
+                                    @RequestBody BalanceRequest request) {
+        return cardMapper.toMonoResponse(cardService.debit(id, request));
+    }
+
+    /**
+     * @param requests balance deltas of many cards, as a JSON array or NDJSON
+     * @return outcome of every card
+     */
+    @ResponseStatus(HttpStatus.OK)
+    @PostMapping(
+            value = "/balance-deltas",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE},
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<BalanceDeltaResponse> applyBalanceDeltas(@RequestBody Flux<BalanceDeltaRequest> requests) {
+        return cardService.applyBalanceDeltas(requests);
+    }
+
     /**
      * @param id card id to delete
      * @return void
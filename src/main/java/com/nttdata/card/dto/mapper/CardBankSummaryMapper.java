@@ -0,0 +1,69 @@
+package com.nttdata.card.dto.mapper;
+
+import com.nttdata.card.dto.response.CardBankSummaryResponse;
+import com.nttdata.card.model.CardBankSummary;
+import com.nttdata.card.model.CardBankSummaryEntry;
+import com.nttdata.card.model.Money;
+import com.nttdata.card.util.TimestampProvider;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * This class convert the bank summaries to response
+ *
+ * @author Alcibar Vasquez
+ * @version 1.0
+ */
+@RequiredArgsConstructor
+@Service
+public class CardBankSummaryMapper {
+
+    private final TimestampProvider timestampProvider;
+
+    /**
+     * This method convert a summary to response, with the cards expiring in the current month (UTC)
+     *
+     * @param summary entity
+     * @return converted response
+     */
+    public CardBankSummaryResponse toResponse(CardBankSummary summary) {
+        Map<String, Long> expiring = summary.getExpiring() == null ? Collections.emptyMap() : summary.getExpiring();
+        Long expiringThisMonth = expiring.get(CardBankSummaryEntry.month(timestampProvider.now()));
+        List<CardBankSummaryResponse.Balance> balances = new ArrayList<>();
+        if (summary.getBalances() != null) {
+            new TreeMap<>(summary.getBalances()).forEach((currency, balance) -> {
+                if (balance.getCount() > 0) {
+                    balances.add(toBalance(currency, balance));
+                }
+            });
+        }
+        return new CardBankSummaryResponse(summary.getId(), summary.getCardCount(),
+                expiringThisMonth == null ? 0L : expiringThisMonth, balances, summary.getUpdatedAt());
+    }
+
+    private static CardBankSummaryResponse.Balance toBalance(String currency, CardBankSummary.BalanceTotal balance) {
+        BigDecimal average = BigDecimal.valueOf(balance.getTotal(), Money.SCALE)
+                .divide(BigDecimal.valueOf(balance.getCount()), Money.SCALE, RoundingMode.HALF_UP);
+        return new CardBankSummaryResponse.Balance(currency, balance.getCount(),
+                Money.ofMinor(balance.getTotal(), currency), Money.of(average, currency));
+    }
+
+    public Mono<CardBankSummaryResponse> toMonoResponse(Mono<CardBankSummary> summary) {
+        return summary.map(this::toResponse);
+    }
+
+    public Flux<CardBankSummaryResponse> toFluxResponse(Flux<CardBankSummary> summaries) {
+        return summaries.map(this::toResponse);
+    }
+
+}
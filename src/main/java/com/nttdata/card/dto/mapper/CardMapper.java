@@ -1,14 +1,26 @@
 package com.nttdata.card.dto.mapper;
 
 import com.nttdata.card.dto.request.CardRequest;
+import com.nttdata.card.dto.response.CardPageResponse;
 import com.nttdata.card.dto.response.CardResponse;
+import com.nttdata.card.dto.response.CardStreamFrame;
+import com.nttdata.card.enums.CardField;
 import com.nttdata.card.model.Card;
-import com.nttdata.card.util.AppUtil;
+import com.nttdata.card.util.PageCursor;
+import com.nttdata.card.util.TimestampProvider;
+import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * This class convert request and response
@@ -16,9 +28,12 @@ import java.util.Date;
  * @author Alcibar Vasquez
  * @version 1.0
  */
+@RequiredArgsConstructor
 @Service
 public class CardMapper {
 
+    private final TimestampProvider timestampProvider;
+
     /**
      * This method convert request to model
      *
@@ -26,17 +41,26 @@ public class CardMapper {
      * @return card model
      */
     public Mono<Card> toPostModel(CardRequest request) {
-        return Mono.just(
-                new Card(
-                        request.getCardNumber(),
-                        request.getSecurityCode(),
-                        request.getExpirationDate(),
-                        request.getCci(),
-                        request.getBalance(),
-                        request.getBankName(),
-                        AppUtil.dateFormat(new Date()),
-                        AppUtil.dateFormat(new Date())
-                )
+        return Mono.just(toModel(request));
+    }
+
+    /**
+     * This method convert request to model
+     *
+     * @param request request of card
+     * @return card model
+     */
+    public Card toModel(CardRequest request) {
+        Date now = timestampProvider.now();
+        return new Card(
+                request.getCardNumber(),
+                request.getSecurityCode(),
+                request.getExpirationDate(),
+                request.getCci(),
+                request.getBalance(),
+                request.getBankName(),
+                now,
+                now
         );
     }
 
@@ -49,10 +73,29 @@ public class CardMapper {
      */
     public Mono<Card> toPutModel(Card card, CardRequest request) {
         card.setBalance(request.getBalance());
-        card.setUpdatedAt(AppUtil.dateFormat(new Date()));
+        card.setUpdatedAt(timestampProvider.now());
         return Mono.just(card);
     }
 
+    /**
+     * This method convert card to response
+     *
+     * @param card entity
+     * @return converted response
+     */
+    public CardResponse toResponse(Card card) {
+        return new CardResponse(
+                card.getId(),
+                card.getCardNumber(),
+                card.getSecurityCode(),
+                card.getExpirationDate(),
+                card.getCci(),
+                card.getBalance(),
+                card.getBankName(),
+                card.getCreatedAt(),
+                card.getUpdatedAt());
+    }
+
     /**
      * This method convert card to response
      *
@@ -60,28 +103,69 @@ public class CardMapper {
      * @return converted response
      */
     public Mono<CardResponse> toMonoResponse(Mono<Card> card) {
-        return card.flatMap(bac -> Mono.just(
-                new CardResponse(
-                        bac.getId(),
-                        bac.getCardNumber(),
-                        bac.getSecurityCode(),
-                        bac.getExpirationDate(),
-                        bac.getCci(),
-                        bac.getBalance(),
-                        bac.getBankName(),
-                        bac.getCreatedAt(),
-                        bac.getCreatedAt()))
-        );
+        return card.map(this::toResponse);
     }
 
     /**
-     * This method convert a list the cards to response
+     * This method convert a list the cards to response, in the same order
      *
      * @param cards cards list
      * @return converted response
      */
     public Flux<CardResponse> toFluxResponse(Flux<Card> cards) {
-        return cards.flatMap(bac -> toMonoResponse(Mono.just(bac)));
+        return cards.map(this::toResponse);
+    }
+
+    /**
+     * This method convert a page the cards to response
+     *
+     * @param cards  cards read, one more than the limit when there is a next page
+     * @param limit  page size
+     * @param cursor cursor of the page
+     * @return converted response
+     */
+    public CardPageResponse toPageResponse(List<Card> cards, int limit, PageCursor cursor) {
+        boolean hasNext = cards.size() > limit;
+        List<Card> items = hasNext ? cards.subList(0, limit) : cards;
+        return new CardPageResponse(
+                items.stream()
+                        .map(this::toResponse)
+                        .collect(Collectors.toList()),
+                hasNext ? cursor.next(items.get(limit - 1)).encode() : null);
+    }
+
+    /**
+     * This method convert a stream the cards to frames, adding a progress frame every {@code progressEvery} cards
+     *
+     * @param cards         cards stream
+     * @param progressEvery cards between progress frames
+     * @return frames
+     */
+    public Flux<CardStreamFrame> toStreamFrames(Flux<Card> cards, int progressEvery) {
+        return cards.index()
+                .flatMapIterable(t -> {
+                    Card bac = t.getT2();
+                    CardStreamFrame frame = CardStreamFrame.card(toResponse(bac));
+                    long emitted = t.getT1() + 1;
+                    return emitted % progressEvery == 0
+                            ? Arrays.asList(frame, CardStreamFrame.progress(emitted, bac.getId()))
+                            : Collections.singletonList(frame);
+                });
+    }
+
+    /**
+     * This method convert a card read with a projection to a partial response
+     *
+     * @param card   card with only the requested fields
+     * @param fields requested fields
+     * @return response with the requested fields, in the order of the full response
+     */
+    public Map<String, Object> toPartialResponse(Card card, Set<CardField> fields) {
+        Map<String, Object> response = new LinkedHashMap<>(fields.size() * 2);
+        for (CardField field : fields) {
+            response.put(field.getProperty(), field.valueOf(card));
+        }
+        return response;
     }
 
 }
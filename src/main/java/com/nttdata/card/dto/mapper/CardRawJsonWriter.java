@@ -0,0 +1,222 @@
+package com.nttdata.card.dto.mapper;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nttdata.card.config.MongoConfig;
+import com.nttdata.card.model.Money;
+import org.bson.BsonBinaryReader;
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.RawBsonDocument;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Date;
+
+/**
+ * This class writes a card stored as BSON straight to the JSON of {@code CardResponse}, without decoding a
+ * {@code Card} or building the response. The document is read in one pass and the JSON is written with a
+ * generator of the application object mapper, so strings, numbers and dates come out as Jackson writes them.
+ *
+ * @author Alcibar Vasquez
+ * @version 1.0
+ */
+@Service
+public class CardRawJsonWriter {
+
+    private static final int INITIAL_CAPACITY = 320;
+
+    private final ObjectMapper objectMapper;
+
+    public CardRawJsonWriter(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * This method writes a card to a new buffer
+     *
+     * @param document card as BSON
+     * @param factory  buffer factory of the response
+     * @param prefix   byte written before the card, e.g. the comma of an array, or 0 for none
+     * @return buffer with the JSON
+     */
+    public DataBuffer write(RawBsonDocument document, DataBufferFactory factory, byte prefix) {
+        DataBuffer buffer = factory.allocateBuffer(INITIAL_CAPACITY);
+        try (OutputStream out = buffer.asOutputStream()) {
+            if (prefix != 0) {
+                out.write(prefix);
+            }
+            write(document, out);
+            return buffer;
+        } catch (IOException e) {
+            DataBufferUtils.release(buffer);
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * This method writes a card with the fields and the order of {@code CardResponse}
+     *
+     * @param document card as BSON
+     * @param out      target
+     * @throws IOException when the target fails
+     */
+    public void write(RawBsonDocument document, OutputStream out) throws IOException {
+        String id = null;
+        String cardNumber = null;
+        Long securityCode = null;
+        Long expirationDate = null;
+        String cci = null;
+        Money balance = null;
+        String bankName = null;
+        Long createdAt = null;
+        Long updatedAt = null;
+        try (BsonBinaryReader reader = new BsonBinaryReader(document.getByteBuffer().asNIO())) {
+            reader.readStartDocument();
+            while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+                switch (reader.readName()) {
+                    case "_id":
+                        id = readId(reader);
+                        break;
+                    case "card_number":
+                        cardNumber = readString(reader);
+                        break;
+                    case "security_code":
+                        securityCode = readLong(reader);
+                        break;
+                    case "expiration_date":
+                        expirationDate = readDate(reader);
+                        break;
+                    case "cci":
+                        cci = readString(reader);
+                        break;
+                    case "balance":
+                        balance = readMoney(reader);
+                        break;
+                    case "bank_name":
+                        bankName = readString(reader);
+                        break;
+                    case "created_at":
+                        createdAt = readDate(reader);
+                        break;
+                    case "updated_at":
+                        updatedAt = readDate(reader);
+                        break;
+                    default:
+                        reader.skipValue();
+                }
+            }
+        }
+        try (JsonGenerator gen = objectMapper.createGenerator(out).disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+            gen.writeStartObject();
+            gen.writeStringField("id", id);
+            gen.writeStringField("cardNumber", cardNumber);
+            writeNumber(gen, "securityCode", securityCode);
+            writeDate(gen, "expirationDate", expirationDate);
+            gen.writeStringField("cci", cci);
+            gen.writeFieldName("balance");
+            if (balance == null) {
+                gen.writeNull();
+            } else {
+                gen.writeNumber(balance.toString());
+            }
+            gen.writeStringField("bankName", bankName);
+            writeDate(gen, "createdAt", createdAt);
+            writeDate(gen, "updatedAt", updatedAt);
+            gen.writeEndObject();
+        }
+    }
+
+    private static String readId(BsonReader reader) {
+        BsonType type = reader.getCurrentBsonType();
+        if (type == BsonType.OBJECT_ID) {
+            return reader.readObjectId().toHexString();
+        }
+        return readString(reader);
+    }
+
+    private static String readString(BsonReader reader) {
+        if (reader.getCurrentBsonType() == BsonType.STRING) {
+            return reader.readString();
+        }
+        reader.skipValue();
+        return null;
+    }
+
+    private static Long readLong(BsonReader reader) {
+        switch (reader.getCurrentBsonType()) {
+            case INT64:
+                return reader.readInt64();
+            case INT32:
+                return (long) reader.readInt32();
+            default:
+                reader.skipValue();
+                return null;
+        }
+    }
+
+    private static Long readDate(BsonReader reader) {
+        if (reader.getCurrentBsonType() == BsonType.DATE_TIME) {
+            return reader.readDateTime();
+        }
+        reader.skipValue();
+        return null;
+    }
+
+    /**
+     * Reads the money document, or a numeric balance not migrated yet
+     */
+    private static Money readMoney(BsonReader reader) {
+        switch (reader.getCurrentBsonType()) {
+            case DOCUMENT:
+                long amount = 0L;
+                String currency = null;
+                reader.readStartDocument();
+                while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+                    String name = reader.readName();
+                    if (MongoConfig.MONEY_AMOUNT.equals(name)) {
+                        Long value = readLong(reader);
+                        amount = value == null ? 0L : value;
+                    } else if (MongoConfig.MONEY_CURRENCY.equals(name)) {
+                        currency = readString(reader);
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+                reader.readEndDocument();
+                return Money.ofMinor(amount, currency);
+            case DOUBLE:
+                return Money.ofDouble(reader.readDouble());
+            default:
+                reader.skipValue();
+                return null;
+        }
+    }
+
+    private static void writeNumber(JsonGenerator gen, String name, Long value) throws IOException {
+        gen.writeFieldName(name);
+        if (value == null) {
+            gen.writeNull();
+        } else {
+            gen.writeNumber(value);
+        }
+    }
+
+    /**
+     * Dates go through the object mapper, so they keep its date format and time zone
+     */
+    private static void writeDate(JsonGenerator gen, String name, Long millis) throws IOException {
+        gen.writeFieldName(name);
+        if (millis == null) {
+            gen.writeNull();
+        } else {
+            gen.writeObject(new Date(millis));
+        }
+    }
+
+}
@@ -3,7 +3,8 @@ package com.nttdata.card.dto.mapper;
 import com.nttdata.card.dto.request.CardTypeRequest;
 import com.nttdata.card.dto.response.CardTypeResponse;
 import com.nttdata.card.model.CardType;
-import com.nttdata.card.util.AppUtil;
+import com.nttdata.card.util.TimestampProvider;
+import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -16,9 +17,12 @@ import java.util.Date;
  * @author Alcibar Vasquez
  * @version 1.0
  */
+@RequiredArgsConstructor
 @Service
 public class CardTypeMapper {
 
+    private final TimestampProvider timestampProvider;
+
     /**
      * This method convert request to model
      *
@@ -26,8 +30,9 @@ public class CardTypeMapper {
      * @return card model
      */
     public Mono<CardType> toPostModel(CardTypeRequest request) {
+        Date now = timestampProvider.now();
         return Mono.just(
-                new CardType(request.getName(), AppUtil.dateFormat(new Date()), AppUtil.dateFormat(new Date()))
+                new CardType(request.getName(), now, now)
         );
     }
 
@@ -40,10 +45,20 @@ public class CardTypeMapper {
      */
     public Mono<CardType> toPutModel(CardType cardType, CardTypeRequest request) {
         cardType.setName(request.getName());
-        cardType.setUpdatedAt(AppUtil.dateFormat(new Date()));
+        cardType.setUpdatedAt(timestampProvider.now());
         return Mono.just(cardType);
     }
 
+    /**
+     * This method convert card type to response
+     *
+     * @param cardType entity
+     * @return converted response
+     */
+    public CardTypeResponse toResponse(CardType cardType) {
+        return new CardTypeResponse(cardType.getId(), cardType.getName(), cardType.getCreatedAt(), cardType.getUpdatedAt());
+    }
+
     /**
      * This method convert card to response
      *
@@ -51,19 +66,17 @@ public class CardTypeMapper {
      * @return converted response
      */
     public Mono<CardTypeResponse> toMonoResponse(Mono<CardType> card) {
-        return card.flatMap(c -> Mono.just(
-                new CardTypeResponse(c.getId(), c.getName(), c.getCreatedAt(), c.getCreatedAt()))
-        );
+        return card.map(this::toResponse);
     }
 
     /**
-     * This method convert a list the cards to response
+     * This method convert a list the cards to response, in the same order
      *
      * @param cards cards list
      * @return converted response
      */
     public Flux<CardTypeResponse> toFluxResponse(Flux<CardType> cards) {
-        return cards.flatMap(c -> toMonoResponse(Mono.just(c)));
+        return cards.map(this::toResponse);
     }
 
 }
@@ -0,0 +1,23 @@
+package com.nttdata.card.dto.request;
+
+import com.nttdata.card.model.Money;
+import lombok.Data;
+
+/**
+ * This class defines the request of one balance delta of a settlement batch
+ *
+ * @author Alcibar Vasquez
+ * @version 1.0
+ */
+@Data
+public class BalanceDeltaRequest {
+
+    private String cardId;
+
+    private String cci;
+
+    private Money delta;
+
+    private String idempotencyRef;
+
+}
@@ -0,0 +1,17 @@
+package com.nttdata.card.dto.request;
+
+import com.nttdata.card.model.Money;
+import lombok.Data;
+
+/**
+ * This class defines the request of a balance operation
+ *
+ * @author Alcibar Vasquez
+ * @version 1.0
+ */
+@Data
+public class BalanceRequest {
+
+    private Money amount;
+
+}
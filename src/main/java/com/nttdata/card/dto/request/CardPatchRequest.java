@@ -0,0 +1,36 @@
+package com.nttdata.card.dto.request;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.nttdata.card.enums.CardField;
+import com.nttdata.card.util.CardPatchRequestDeserializer;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * This class defines a JSON Merge Patch (RFC 7396) of a card: the fields present with a value are set,
+ * the fields present with null are removed, and the absent fields are left as they are
+ *
+ * @author Alcibar Vasquez
+ * @version 1.0
+ */
+@Getter
+@JsonDeserialize(using = CardPatchRequestDeserializer.class)
+public class CardPatchRequest {
+
+    private final Map<CardField, Object> set = new EnumMap<>(CardField.class);
+
+    private final Set<CardField> unset = EnumSet.noneOf(CardField.class);
+
+    @Setter
+    private String bankAccountId;
+
+    public boolean isEmpty() {
+        return set.isEmpty() && unset.isEmpty() && bankAccountId == null;
+    }
+
+}
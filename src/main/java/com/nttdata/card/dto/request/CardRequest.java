@@ -1,5 +1,6 @@
 package com.nttdata.card.dto.request;
 
+import com.nttdata.card.model.Money;
 import lombok.Data;
 
 import java.util.Date;
@@ -23,7 +24,7 @@ public class CardRequest {
 
     private String cci;
 
-    private Float balance;
+    private Money balance;
 
     private String bankName;
 
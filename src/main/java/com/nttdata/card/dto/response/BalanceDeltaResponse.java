@@ -0,0 +1,54 @@
+package com.nttdata.card.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.nttdata.card.model.Money;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * This class defines the outcome of one balance delta with an idempotency ref, or of the deltas without a ref
+ * of one card
+ *
+ * @author Alcibar Vasquez
+ * @version 1.0
+ */
+@AllArgsConstructor
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BalanceDeltaResponse {
+
+    public static final String APPLIED = "APPLIED";
+
+    public static final String DUPLICATE = "DUPLICATE";
+
+    public static final String NOT_FOUND = "NOT_FOUND";
+
+    public static final String INVALID = "INVALID";
+
+    public static final String FAILED = "FAILED";
+
+    @JsonProperty(value = "cardId")
+    private String cardId;
+
+    @JsonProperty(value = "cci")
+    private String cci;
+
+    /**
+     * Delta of the ref, or sum of the deltas without a ref of the card in the batch
+     */
+    @JsonProperty(value = "delta")
+    private Money delta;
+
+    @JsonProperty(value = "idempotencyRefs")
+    private List<String> idempotencyRefs;
+
+    @JsonProperty(value = "status")
+    private String status;
+
+    @JsonProperty(value = "error")
+    private String error;
+
+}
@@ -0,0 +1,57 @@
+package com.nttdata.card.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.nttdata.card.model.Money;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * This class defines the response of the summary of the cards of a bank
+ *
+ * @author Alcibar Vasquez
+ * @version 1.0
+ */
+@AllArgsConstructor
+@Data
+public class CardBankSummaryResponse {
+
+    @JsonProperty(value = "bankName")
+    private String bankName;
+
+    @JsonProperty(value = "cardCount")
+    private long cardCount;
+
+    @JsonProperty(value = "expiringThisMonth")
+    private long expiringThisMonth;
+
+    @JsonProperty(value = "balances")
+    private List<Balance> balances;
+
+    @JsonProperty(value = "updatedAt")
+    private Date updatedAt;
+
+    /**
+     * Balances of the cards of one currency
+     */
+    @AllArgsConstructor
+    @Data
+    public static class Balance {
+
+        @JsonProperty(value = "currency")
+        private String currency;
+
+        @JsonProperty(value = "cardCount")
+        private long cardCount;
+
+        @JsonProperty(value = "total")
+        private Money total;
+
+        @JsonProperty(value = "average")
+        private Money average;
+
+    }
+
+}
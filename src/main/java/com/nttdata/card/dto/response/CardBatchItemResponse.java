@@ -0,0 +1,52 @@
+package com.nttdata.card.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * This class defines the result of one item of a batch of cards
+ *
+ * @author Alcibar Vasquez
+ * @version 1.0
+ */
+@AllArgsConstructor
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CardBatchItemResponse {
+
+    public static final String CREATED = "CREATED";
+
+    public static final String INVALID = "INVALID";
+
+    public static final String FAILED = "FAILED";
+
+    /**
+     * Position of the item in the request, starting at 0
+     */
+    @JsonProperty(value = "index")
+    private long index;
+
+    @JsonProperty(value = "status")
+    private String status;
+
+    @JsonProperty(value = "id")
+    private String id;
+
+    @JsonProperty(value = "error")
+    private String error;
+
+    public static CardBatchItemResponse created(long index, String id) {
+        return new CardBatchItemResponse(index, CREATED, id, null);
+    }
+
+    public static CardBatchItemResponse invalid(long index, String error) {
+        return new CardBatchItemResponse(index, INVALID, null, error);
+    }
+
+    public static CardBatchItemResponse failed(long index, String error) {
+        return new CardBatchItemResponse(index, FAILED, null, error);
+    }
+
+}
@@ -0,0 +1,72 @@
+package com.nttdata.card.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.nttdata.card.model.Card;
+import com.nttdata.card.model.Money;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+/**
+ * This class defines the card sent in the card events. It never carries the security code, and the card number
+ * only shows its last four digits, since the events topic is read by other services.
+ *
+ * @author Alcibar Vasquez
+ * @version 1.0
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class CardEventResponse {
+
+    private static final int VISIBLE_DIGITS = 4;
+
+    private String id;
+
+    @JsonProperty(value = "cardNumber")
+    private String cardNumber;
+
+    @JsonProperty(value = "expirationDate")
+    private Date expirationDate;
+
+    @JsonProperty(value = "cci")
+    private String cci;
+
+    @JsonProperty(value = "balance")
+    private Money balance;
+
+    @JsonProperty(value = "bankName")
+    private String bankName;
+
+    @JsonProperty(value = "createdAt")
+    private Date createdAt;
+
+    @JsonProperty(value = "updatedAt")
+    private Date updatedAt;
+
+    public static CardEventResponse of(Card card) {
+        return new CardEventResponse(card.getId(), mask(card.getCardNumber()), card.getExpirationDate(), card.getCci(),
+                card.getBalance(), card.getBankName(), card.getCreatedAt(), card.getUpdatedAt());
+    }
+
+    /**
+     * This method hides every character of the card number but the last four
+     *
+     * @param cardNumber card number, may be null
+     * @return masked card number
+     */
+    static String mask(String cardNumber) {
+        if (cardNumber == null) {
+            return null;
+        }
+        int hidden = Math.max(0, cardNumber.length() - VISIBLE_DIGITS);
+        StringBuilder masked = new StringBuilder(cardNumber.length());
+        for (int i = 0; i < hidden; i++) {
+            masked.append('*');
+        }
+        return masked.append(cardNumber, hidden, cardNumber.length()).toString();
+    }
+
+}
@@ -0,0 +1,28 @@
+package com.nttdata.card.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * This class defines the response of a page of cards
+ *
+ * @author Alcibar Vasquez
+ * @version 1.0
+ */
+@AllArgsConstructor
+@Data
+public class CardPageResponse {
+
+    @JsonProperty(value = "items")
+    private List<CardResponse> items;
+
+    /**
+     * Continuation token for the next page, null on the last page
+     */
+    @JsonProperty(value = "next")
+    private String next;
+
+}
@@ -1,6 +1,7 @@
 package com.nttdata.card.dto.response;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.nttdata.card.model.Money;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 
@@ -31,7 +32,7 @@ public class CardResponse {
     private String cci;
 
     @JsonProperty(value = "balance")
-    private Float balance;
+    private Money balance;
 
     @JsonProperty(value = "bankName")
     private String bankName;
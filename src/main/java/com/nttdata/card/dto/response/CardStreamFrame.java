@@ -0,0 +1,49 @@
+package com.nttdata.card.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * This class defines one frame of the card export stream
+ *
+ * @author Alcibar Vasquez
+ * @version 1.0
+ */
+@AllArgsConstructor
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CardStreamFrame {
+
+    public static final String CARD = "card";
+
+    public static final String PROGRESS = "progress";
+
+    public static final String HEARTBEAT = "heartbeat";
+
+    @JsonProperty(value = "type")
+    private String type;
+
+    @JsonProperty(value = "data")
+    private CardResponse data;
+
+    @JsonProperty(value = "emitted")
+    private Long emitted;
+
+    @JsonProperty(value = "lastId")
+    private String lastId;
+
+    public static CardStreamFrame card(CardResponse card) {
+        return new CardStreamFrame(CARD, card, null, null);
+    }
+
+    public static CardStreamFrame progress(long emitted, String lastId) {
+        return new CardStreamFrame(PROGRESS, null, emitted, lastId);
+    }
+
+    public static CardStreamFrame heartbeat() {
+        return new CardStreamFrame(HEARTBEAT, null, null, null);
+    }
+
+}
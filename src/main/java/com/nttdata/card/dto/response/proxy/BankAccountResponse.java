@@ -1,6 +1,7 @@
 package com.nttdata.card.dto.response.proxy;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.nttdata.card.model.Money;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -31,7 +32,7 @@ public class BankAccountResponse {
     private String cardId;
 
     @JsonProperty(value = "balance")
-    private Float balance;
+    private Money balance;
 
     @JsonProperty(value = "createdAt")
     private Date createdAt;
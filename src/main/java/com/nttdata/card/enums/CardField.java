@@ -0,0 +1,112 @@
+package com.nttdata.card.enums;
+
+import com.nttdata.card.exceptions.CustomException;
+import com.nttdata.card.model.Card;
+import com.nttdata.card.model.Money;
+
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * This enum describes the fields of the card exposed in the API.
+ * The name is the same in the response and in the {@link Card} property, so it is used for projections too.
+ *
+ * @author Alcibar Vasquez
+ * @version 1.0
+ */
+public enum CardField {
+
+    ID("id", String.class, Card::getId, Patch.NONE),
+    CARD_NUMBER("cardNumber", String.class, Card::getCardNumber, Patch.REQUIRED),
+    SECURITY_CODE("securityCode", Long.class, Card::getSecurityCode, Patch.REQUIRED),
+    EXPIRATION_DATE("expirationDate", Date.class, Card::getExpirationDate, Patch.REQUIRED),
+    CCI("cci", String.class, Card::getCci, Patch.REQUIRED),
+    BALANCE("balance", Money.class, Card::getBalance, Patch.REQUIRED),
+    BANK_NAME("bankName", String.class, Card::getBankName, Patch.OPTIONAL),
+    CREATED_AT("createdAt", Date.class, Card::getCreatedAt, Patch.NONE),
+    UPDATED_AT("updatedAt", Date.class, Card::getUpdatedAt, Patch.NONE);
+
+    /**
+     * How a merge patch may change the field: not at all, only set it, or also remove it with null
+     */
+    public enum Patch {
+        NONE, REQUIRED, OPTIONAL
+    }
+
+    private static final Map<String, CardField> BY_NAME = new HashMap<>();
+
+    static {
+        for (CardField field : values()) {
+            BY_NAME.put(field.property, field);
+        }
+    }
+
+    private final String property;
+
+    private final Class<?> type;
+
+    private final Function<Card, Object> accessor;
+
+    private final Patch patch;
+
+    CardField(String property, Class<?> type, Function<Card, Object> accessor, Patch patch) {
+        this.property = property;
+        this.type = type;
+        this.accessor = accessor;
+        this.patch = patch;
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    public Class<?> getType() {
+        return type;
+    }
+
+    public Patch getPatch() {
+        return patch;
+    }
+
+    /**
+     * @param property name in the API
+     * @return field, null when there is none with that name
+     */
+    public static CardField forProperty(String property) {
+        return BY_NAME.get(property);
+    }
+
+    public Object valueOf(Card card) {
+        return accessor.apply(card);
+    }
+
+    /**
+     * This method parses the fields query parameter
+     *
+     * @param fields comma separated names, e.g. id,cci,balance
+     * @return fields requested
+     */
+    public static Set<CardField> parse(String fields) {
+        Set<CardField> result = EnumSet.noneOf(CardField.class);
+        for (String name : fields.split(",")) {
+            String trimmed = name.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            CardField field = BY_NAME.get(trimmed);
+            if (field == null) {
+                throw CustomException.badRequest("The field is invalid: " + trimmed);
+            }
+            result.add(field);
+        }
+        if (result.isEmpty()) {
+            throw CustomException.badRequest("The fields are empty");
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,11 @@
+package com.nttdata.card.enums;
+
+/**
+ * This enum defines the delivery status of an outbox message
+ *
+ * @author Alcibar Vasquez
+ * @version 1.0
+ */
+public enum OutboxStatus {
+    PENDING, SENT, FAILED
+}
@@ -0,0 +1,207 @@
+package com.nttdata.card.events;
+
+import com.nttdata.card.dto.request.proxy.BankAccountRequest;
+import com.nttdata.card.exceptions.CustomException;
+import com.nttdata.card.model.OutboxMessage;
+import com.nttdata.card.proxy.bankaccount.BankAccountProxy;
+import com.nttdata.card.repository.IOutboxRepository;
+import com.nttdata.card.util.TimestampProvider;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class delivers the bank account links recorded in the outbox to the bank account service, after checking
+ * that the bank account exists.
+ * Every poll claims the due messages in batches until the outbox is drained; the links of one bank account are
+ * delivered in order, different bank accounts in parallel. A link that fails stops the newer links of its bank
+ * account, which the claim also holds back until it is delivered or given up. A failed delivery is retried with exponential backoff
+ * up to {@code card.outbox.relay.max-attempts} times and then left as failed; a link to a bank account that does
+ * not exist is left as failed at once.
+ *
+ * @author Alcibar Vasquez
+ * @version 1.0
+ */
+@Component
+@ConditionalOnProperty(name = "card.outbox.relay.enabled", matchIfMissing = true)
+public class BankAccountLinkRelay {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BankAccountLinkRelay.class);
+
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private final IOutboxRepository outboxRepository;
+
+    private final BankAccountProxy bankAccountProxy;
+
+    private final TimestampProvider timestampProvider;
+
+    private final Duration pollInterval;
+
+    private final int batchSize;
+
+    private final int concurrency;
+
+    private final Duration lease;
+
+    private final int maxAttempts;
+
+    private final Duration initialBackoff;
+
+    private final Duration maxBackoff;
+
+    private final Counter sent;
+
+    private final Counter retried;
+
+    private final Counter failed;
+
+    private Disposable subscription;
+
+    public BankAccountLinkRelay(IOutboxRepository outboxRepository,
+                                BankAccountProxy bankAccountProxy,
+                                TimestampProvider timestampProvider,
+                                MeterRegistry meterRegistry,
+                                @Value("${card.outbox.relay.poll-interval:1s}") Duration pollInterval,
+                                @Value("${card.outbox.relay.batch-size:100}") int batchSize,
+                                @Value("${card.outbox.relay.concurrency:8}") int concurrency,
+                                @Value("${card.outbox.relay.lease:30s}") Duration lease,
+                                @Value("${card.outbox.relay.max-attempts:10}") int maxAttempts,
+                                @Value("${card.outbox.relay.initial-backoff:1s}") Duration initialBackoff,
+                                @Value("${card.outbox.relay.max-backoff:5m}") Duration maxBackoff) {
+        this.outboxRepository = outboxRepository;
+        this.bankAccountProxy = bankAccountProxy;
+        this.timestampProvider = timestampProvider;
+        this.pollInterval = pollInterval;
+        this.batchSize = batchSize;
+        this.concurrency = concurrency;
+        this.lease = lease;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.sent = outcome(meterRegistry, "sent");
+        this.retried = outcome(meterRegistry, "retried");
+        this.failed = outcome(meterRegistry, "failed");
+    }
+
+    private static Counter outcome(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("card.outbox.deliveries")
+                .description("Deliveries of the outbox messages by outcome")
+                .tag("type", OutboxMessage.BANK_ACCOUNT_LINK)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        LOGGER.info("[start] relaying the outbox every {}", pollInterval);
+        subscription = Flux.interval(pollInterval)
+                .onBackpressureDrop()
+                .concatMap(tick -> relay()
+                        .onErrorResume(e -> {
+                            LOGGER.error("[relay] {}", e.toString());
+                            return Mono.just(0L);
+                        }))
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+
+    /**
+     * This method delivers the due messages, batch after batch while the batches come full
+     *
+     * @return messages handled
+     */
+    public Mono<Long> relay() {
+        return relayBatch()
+                .expand(count -> count < batchSize ? Mono.empty() : relayBatch())
+                .reduce(0L, Long::sum);
+    }
+
+    private Mono<Long> relayBatch() {
+        return Mono.defer(() -> {
+            Date now = timestampProvider.now();
+            return outboxRepository.claim(batchSize, now, new Date(now.getTime() + lease.toMillis()))
+                    .collectList();
+        }).flatMap(messages -> {
+            Map<String, List<OutboxMessage>> byBankAccount = new LinkedHashMap<>();
+            for (OutboxMessage message : messages) {
+                byBankAccount.computeIfAbsent(message.getBankAccountId(), k -> new ArrayList<>()).add(message);
+            }
+            return Flux.fromIterable(byBankAccount.values())
+                    // a failed link holds back the newer links of its bank account, left to their lease
+                    .flatMap(ordered -> Flux.fromIterable(ordered)
+                            .concatMap(this::deliver)
+                            .takeWhile(delivered -> delivered), concurrency)
+                    .then(Mono.just((long) messages.size()));
+        });
+    }
+
+    /**
+     * This method links the bank account to the card once the bank account is found; a bank account that does not
+     * exist is given up at once, as retrying cannot find it
+     *
+     * @return whether the link was delivered by this relay
+     */
+    private Mono<Boolean> deliver(OutboxMessage message) {
+        return bankAccountProxy.getBankAccountById(message.getBankAccountId())
+                .switchIfEmpty(Mono.error(() -> CustomException.notFound("Bank account not found")))
+                .flatMap(ba -> bankAccountProxy.bankAccountUpdate(ba.getId(), new BankAccountRequest(message.getCardId())))
+                .then(Mono.defer(() -> outboxRepository.markSent(message, timestampProvider.now())))
+                .doOnNext(marked -> sent.increment())
+                .onErrorResume(e -> {
+                    boolean giveUp = message.getAttempts() + 1 >= maxAttempts || isNotFound(e);
+                    LOGGER.warn("[deliver] {} attempt {}{}: {}", message.getId(), message.getAttempts() + 1,
+                            giveUp ? ", giving up" : "", e.toString());
+                    (giveUp ? failed : retried).increment();
+                    Date next = new Date(timestampProvider.now().getTime() + backoff(message.getAttempts()).toMillis());
+                    return outboxRepository.markRetry(message, next, truncate(String.valueOf(e)), giveUp)
+                            .thenReturn(false);
+                });
+    }
+
+    /**
+     * Backoff before the next attempt: the initial backoff doubled per attempt made, up to the max backoff
+     */
+    Duration backoff(int attempts) {
+        Duration backoff = initialBackoff;
+        for (int i = 0; i < attempts && backoff.compareTo(maxBackoff) < 0; i++) {
+            backoff = backoff.multipliedBy(2);
+        }
+        return backoff.compareTo(maxBackoff) < 0 ? backoff : maxBackoff;
+    }
+
+    private static boolean isNotFound(Throwable e) {
+        return e instanceof ResponseStatusException
+                && ((ResponseStatusException) e).getStatus() == HttpStatus.NOT_FOUND;
+    }
+
+    private static String truncate(String error) {
+        return error.length() <= MAX_ERROR_LENGTH ? error : error.substring(0, MAX_ERROR_LENGTH);
+    }
+
+}
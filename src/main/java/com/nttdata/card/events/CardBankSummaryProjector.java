@@ -0,0 +1,261 @@
+package com.nttdata.card.events;
+
+import com.mongodb.MongoException;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import com.nttdata.card.exceptions.CustomException;
+import com.nttdata.card.model.Card;
+import com.nttdata.card.model.CardBankSummaryEntry;
+import com.nttdata.card.model.ChangeStreamCheckpoint;
+import com.nttdata.card.repository.ICardBankSummaryRepository;
+import com.nttdata.card.repository.IChangeStreamCheckpointRepository;
+import com.nttdata.card.util.TimestampProvider;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.bson.BsonDocument;
+import org.bson.BsonTimestamp;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.ChangeStreamEvent;
+import org.springframework.data.mongodb.core.ChangeStreamOptions;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * This class keeps the bank summaries of the cards up to date from the cards change stream. Every change swaps the
+ * entry of the card and adds the difference to its summaries in one transaction; the change is read with the
+ * current card, so applying a change again, or out of order, ends with the same summaries. The stream resumes from
+ * a checkpoint saved every {@code card.bank-summary.checkpoint-interval}; when there is no checkpoint, or the oplog
+ * no longer holds it, the summaries are rebuilt from the cards and the stream starts at the time of the rebuild.
+ *
+ * @author Alcibar Vasquez
+ * @version 1.0
+ */
+@Component
+@ConditionalOnProperty(name = "card.bank-summary.enabled", matchIfMissing = true)
+public class CardBankSummaryProjector {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CardBankSummaryProjector.class);
+
+    public static final String CHECKPOINT = "card_bank_summary";
+
+    private static final String COLLECTION = "cards";
+
+    private static final Set<OperationType> CHANGES = EnumSet.of(OperationType.INSERT, OperationType.UPDATE,
+            OperationType.REPLACE, OperationType.DELETE);
+
+    private static final Set<OperationType> COLLECTION_CHANGES = EnumSet.of(OperationType.DROP,
+            OperationType.RENAME, OperationType.DROP_DATABASE, OperationType.INVALIDATE);
+
+    /**
+     * InvalidResumeToken, ChangeStreamFatalError and ChangeStreamHistoryLost: the stream can not resume
+     */
+    private static final Set<Integer> HISTORY_LOST = new HashSet<>(Arrays.asList(260, 280, 286));
+
+    private final ChangeStreamWatcher changeStreamWatcher;
+
+    private final ICardBankSummaryRepository cardBankSummaryRepository;
+
+    private final IChangeStreamCheckpointRepository checkpointRepository;
+
+    private final TransactionalOperator transactionalOperator;
+
+    private final TimestampProvider timestampProvider;
+
+    private final int rebuildConcurrency;
+
+    private final Duration checkpointInterval;
+
+    private final Duration retryBackoff;
+
+    private final Counter applied;
+
+    private final Timer rebuildTimer;
+
+    private final AtomicBoolean rebuildNeeded = new AtomicBoolean();
+
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    private Disposable subscription;
+
+    public CardBankSummaryProjector(ChangeStreamWatcher changeStreamWatcher,
+                                    ICardBankSummaryRepository cardBankSummaryRepository,
+                                    IChangeStreamCheckpointRepository checkpointRepository,
+                                    TransactionalOperator transactionalOperator,
+                                    TimestampProvider timestampProvider,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${card.bank-summary.rebuild.concurrency:4}") int rebuildConcurrency,
+                                    @Value("${card.bank-summary.checkpoint-interval:1s}") Duration checkpointInterval,
+                                    @Value("${card.bank-summary.retry-backoff:1s}") Duration retryBackoff) {
+        this.changeStreamWatcher = changeStreamWatcher;
+        this.cardBankSummaryRepository = cardBankSummaryRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.transactionalOperator = transactionalOperator;
+        this.timestampProvider = timestampProvider;
+        this.rebuildConcurrency = rebuildConcurrency;
+        this.checkpointInterval = checkpointInterval;
+        this.retryBackoff = retryBackoff;
+        this.applied = Counter.builder("card.bank-summary.changes")
+                .description("Card changes applied to the bank summaries")
+                .register(meterRegistry);
+        this.rebuildTimer = Timer.builder("card.bank-summary.rebuild")
+                .description("Time to rebuild the bank summaries from the cards")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        LOGGER.info("[start] watching {} for the bank summaries", COLLECTION);
+        watch();
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+
+    private synchronized void watch() {
+        subscription = changeStreamWatcher.watch(COLLECTION, Card.class, Mono.defer(this::options), this::onError)
+                .concatMap(event -> apply(event).thenReturn(event))
+                .sample(checkpointInterval)
+                .onBackpressureLatest()
+                .concatMap(event -> checkpoint(event.getResumeToken()))
+                .subscribe();
+    }
+
+    /**
+     * This method rebuilds the summaries from the cards while the change stream is stopped,
+     * and resumes the stream at the time of the rebuild
+     *
+     * @return banks summarized
+     */
+    public Mono<Long> rebuild() {
+        return Mono.defer(() -> {
+            if (!rebuilding.compareAndSet(false, true)) {
+                return Mono.error(CustomException.conflict("The bank summaries are already being rebuilt"));
+            }
+            stop();
+            return rebuildNow()
+                    .doFinally(signal -> {
+                        rebuilding.set(false);
+                        watch();
+                    });
+        });
+    }
+
+    private Mono<Long> rebuildNow() {
+        return Mono.defer(() -> {
+            Timer.Sample sample = Timer.start();
+            return changeStreamWatcher.operationTime()
+                    .map(time -> Optional.of(time.getValue()))
+                    .defaultIfEmpty(Optional.empty())
+                    .flatMap(time -> cardBankSummaryRepository.rebuild(rebuildConcurrency, timestampProvider.now())
+                            .flatMap(banks -> checkpointRepository.save(new ChangeStreamCheckpoint(CHECKPOINT, null,
+                                            time.orElse(null), timestampProvider.now()))
+                                    .thenReturn(banks)))
+                    .doOnNext(banks -> {
+                        sample.stop(rebuildTimer);
+                        rebuildNeeded.set(false);
+                        LOGGER.info("[rebuild] {} bank summaries rebuilt", banks);
+                    });
+        });
+    }
+
+    /**
+     * The stream resumes after the last change saved, or at the time of the last rebuild
+     */
+    private Mono<ChangeStreamOptions> options() {
+        Mono<ChangeStreamCheckpoint> checkpoint = rebuildNeeded.get()
+                ? Mono.empty()
+                : checkpointRepository.findById(CHECKPOINT);
+        return checkpoint
+                .switchIfEmpty(Mono.defer(() -> rebuildNow().then(checkpointRepository.findById(CHECKPOINT))))
+                .map(c -> {
+                    ChangeStreamOptions.ChangeStreamOptionsBuilder options = ChangeStreamOptions.builder()
+                            .fullDocumentLookup(FullDocument.UPDATE_LOOKUP);
+                    if (c.getResumeToken() != null) {
+                        options.resumeAfter(BsonDocument.parse(c.getResumeToken().toJson()));
+                    } else if (c.getOperationTime() != null) {
+                        options.resumeAt(new BsonTimestamp(c.getOperationTime()));
+                    }
+                    return options.build();
+                });
+    }
+
+    private void onError(Throwable e) {
+        if (isHistoryLost(e)) {
+            LOGGER.warn("[watch] the change stream can not resume, rebuilding the bank summaries: {}", e.getMessage());
+            rebuildNeeded.set(true);
+        }
+    }
+
+    static boolean isHistoryLost(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof MongoException && HISTORY_LOST.contains(((MongoException) cause).getCode())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * This method applies a change of a card, retrying until it is written
+     *
+     * @param event change event with the current card
+     * @return completion
+     */
+    Mono<Void> apply(ChangeStreamEvent<Card> event) {
+        OperationType type = event.getOperationType();
+        if (type != null && COLLECTION_CHANGES.contains(type)) {
+            // the stream ends and reopens with a rebuild
+            LOGGER.warn("[apply] {} of {}, the bank summaries will be rebuilt", type, COLLECTION);
+            rebuildNeeded.set(true);
+            return Mono.empty();
+        }
+        String id = ChangeStreamWatcher.documentId(event);
+        if (type == null || !CHANGES.contains(type) || id == null) {
+            return Mono.empty();
+        }
+        CardBankSummaryEntry entry = type == OperationType.DELETE ? null : CardBankSummaryEntry.of(event.getBody());
+        return Mono.defer(() -> transactionalOperator.transactional(
+                        cardBankSummaryRepository.sync(id, entry, timestampProvider.now())))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, retryBackoff).maxBackoff(Duration.ofMinutes(1))
+                        .doBeforeRetry(signal -> LOGGER.error("[apply] retrying {}: {}", id,
+                                signal.failure().toString())))
+                .doOnSuccess(v -> applied.increment());
+    }
+
+    private Mono<ChangeStreamCheckpoint> checkpoint(BsonValue resumeToken) {
+        if (resumeToken == null || !resumeToken.isDocument()) {
+            return Mono.empty();
+        }
+        return checkpointRepository.save(new ChangeStreamCheckpoint(CHECKPOINT,
+                        Document.parse(resumeToken.asDocument().toJson()), null, timestampProvider.now()))
+                .onErrorResume(e -> {
+                    LOGGER.error("[checkpoint] {}", e.toString());
+                    return Mono.empty();
+                });
+    }
+
+}
@@ -0,0 +1,212 @@
+package com.nttdata.card.events;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nttdata.card.dto.response.CardEventResponse;
+import com.nttdata.card.enums.EventType;
+import com.nttdata.card.model.Card;
+import com.nttdata.card.util.TimestampProvider;
+import com.nttdata.card.util.Topic;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.kafka.KafkaClientMetrics;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Serializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Sinks;
+import reactor.kafka.sender.KafkaSender;
+import reactor.kafka.sender.SenderOptions;
+import reactor.kafka.sender.SenderRecord;
+import reactor.util.retry.Retry;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class publishes the card lifecycle events to Kafka, keyed by card id so the events of a card keep their
+ * order. Publishing never blocks the caller: events wait in a buffer of {@code card.events.buffer-size} and are
+ * dropped, and counted, when it is full. The producer batches with {@code linger.ms} and compresses the batches.
+ * The buffer outlives a restart of the producer pipeline; the events in flight when it fails are counted as failed.
+ * Events are best effort; a crash loses the events still buffered. The card of an event leaves out the security
+ * code and masks the card number, see {@link CardEventResponse}.
+ *
+ * @author Alcibar Vasquez
+ * @version 1.0
+ */
+@Component
+public class CardEventPublisher {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CardEventPublisher.class);
+
+    private final String topic;
+
+    private final TimestampProvider timestampProvider;
+
+    private final KafkaSender<String, KafkaEvent<CardEventResponse>> sender;
+
+    private final Sinks.Many<KafkaEvent<CardEventResponse>> queue;
+
+    private final Disposable subscription;
+
+    private final AtomicInteger pending = new AtomicInteger();
+
+    /**
+     * Events taken from the buffer and not acknowledged yet, lost when the producer pipeline restarts
+     */
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final Counter sent;
+
+    private final Counter failed;
+
+    private final Counter dropped;
+
+    public CardEventPublisher(ObjectMapper objectMapper,
+                              TimestampProvider timestampProvider,
+                              MeterRegistry meterRegistry,
+                              @Value("${kafka.server.host}") String bootstrapServers,
+                              @Value("${card.events.enabled:true}") boolean enabled,
+                              @Value("${card.events.topic:" + Topic.CARD_EVENTS + "}") String topic,
+                              @Value("${card.events.buffer-size:10000}") int bufferSize,
+                              @Value("${card.events.linger:20ms}") Duration linger,
+                              @Value("${card.events.batch-size:65536}") int batchSize,
+                              @Value("${card.events.compression:lz4}") String compression,
+                              @Value("${card.events.max-in-flight:256}") int maxInFlight) {
+        this.topic = topic;
+        this.timestampProvider = timestampProvider;
+        this.sent = outcome(meterRegistry, "sent");
+        this.failed = outcome(meterRegistry, "failed");
+        this.dropped = outcome(meterRegistry, "dropped");
+        Gauge.builder("card.events.pending", pending, AtomicInteger::get)
+                .description("Card events buffered or in flight to Kafka")
+                .register(meterRegistry);
+        if (!enabled) {
+            this.sender = null;
+            this.queue = null;
+            this.subscription = null;
+            return;
+        }
+        Map<String, Object> props = new HashMap<>();
+        props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(ProducerConfig.CLIENT_ID_CONFIG, "card-events");
+        props.put(ProducerConfig.ACKS_CONFIG, "all");
+        props.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        props.put(ProducerConfig.LINGER_MS_CONFIG, (int) linger.toMillis());
+        props.put(ProducerConfig.BATCH_SIZE_CONFIG, batchSize);
+        props.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, compression);
+        this.sender = KafkaSender.create(SenderOptions.<String, KafkaEvent<CardEventResponse>>create(props)
+                .withKeySerializer(new StringSerializer())
+                .withValueSerializer(new JsonSerializer(objectMapper))
+                .maxInFlight(maxInFlight)
+                .stopOnError(false));
+        sender.doOnProducer(producer -> {
+            new KafkaClientMetrics(producer).bindTo(meterRegistry);
+            return producer;
+        }).subscribe(p -> {
+        }, e -> LOGGER.warn("[metrics] {}", e.toString()));
+        // one buffer for the life of the publisher, kept when the pipeline below is cancelled by a restart
+        this.queue = Sinks.many().multicast().onBackpressureBuffer(bufferSize, false);
+        this.subscription = sender.send(queue.asFlux()
+                        .map(event -> {
+                            inFlight.incrementAndGet();
+                            return SenderRecord.create(
+                                    new ProducerRecord<>(topic, event.getData().getId(), event), event.getId());
+                        }))
+                .doOnNext(result -> {
+                    inFlight.decrementAndGet();
+                    pending.decrementAndGet();
+                    if (result.exception() == null) {
+                        sent.increment();
+                    } else {
+                        failed.increment();
+                        LOGGER.error("[publish] {} {}", result.correlationMetadata(), result.exception().toString());
+                    }
+                })
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofMinutes(1))
+                        .doBeforeRetry(signal -> {
+                            int lost = inFlight.getAndSet(0);
+                            pending.addAndGet(-lost);
+                            failed.increment(lost);
+                            LOGGER.error("[publish] restarting the producer pipeline, {} events in flight lost: {}",
+                                    lost, signal.failure().toString());
+                        }))
+                .subscribe();
+    }
+
+    private static Counter outcome(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("card.events.published")
+                .description("Card events by outcome of the publication")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /**
+     * This method queues the event of a card, without waiting for Kafka
+     *
+     * @param type event type
+     * @param card card, or a card with only the id for a deletion
+     */
+    public void publish(EventType type, Card card) {
+        if (queue == null) {
+            return;
+        }
+        KafkaEvent<CardEventResponse> event = new KafkaEvent<>(UUID.randomUUID().toString(), timestampProvider.now(),
+                type, CardEventResponse.of(card));
+        pending.incrementAndGet();
+        Sinks.EmitResult result;
+        do {
+            // another thread is emitting: the sink takes one event at a time
+            result = queue.tryEmitNext(event);
+        } while (result == Sinks.EmitResult.FAIL_NON_SERIALIZED);
+        if (result.isFailure()) {
+            pending.decrementAndGet();
+            dropped.increment();
+            LOGGER.warn("[publish] buffer full, dropped {} of {}", type, card.getId());
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+        if (sender != null) {
+            sender.close();
+        }
+    }
+
+    /**
+     * Writes the events as JSON with the application object mapper
+     */
+    static class JsonSerializer implements Serializer<KafkaEvent<CardEventResponse>> {
+
+        private final ObjectMapper objectMapper;
+
+        JsonSerializer(ObjectMapper objectMapper) {
+            this.objectMapper = objectMapper;
+        }
+
+        @Override
+        public byte[] serialize(String topic, KafkaEvent<CardEventResponse> event) {
+            try {
+                return objectMapper.writeValueAsBytes(event);
+            } catch (JsonProcessingException e) {
+                throw new SerializationException(e);
+            }
+        }
+
+    }
+
+}
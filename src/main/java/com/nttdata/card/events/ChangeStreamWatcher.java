@@ -0,0 +1,107 @@
+package com.nttdata.card.events;
+
+import lombok.RequiredArgsConstructor;
+import org.bson.BsonObjectId;
+import org.bson.BsonTimestamp;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.core.ChangeStreamEvent;
+import org.springframework.data.mongodb.core.ChangeStreamOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.function.Consumer;
+
+/**
+ * This class opens resilient change streams over the collections of the service
+ *
+ * @author Alcibar Vasquez
+ * @version 1.0
+ */
+@RequiredArgsConstructor
+@Component
+public class ChangeStreamWatcher {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ChangeStreamWatcher.class);
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+    /**
+     * This method watches a collection forever, reopening the stream after errors.
+     * Events may be lost while the stream is down, so {@code onGap} is called before each reopen.
+     *
+     * @param collection collection name
+     * @param onGap      callback for a possible gap of events
+     * @return change events
+     */
+    public Flux<ChangeStreamEvent<Document>> watch(String collection, Runnable onGap) {
+        return reactiveMongoTemplate.changeStream(collection, ChangeStreamOptions.empty(), Document.class)
+                .doOnError(e -> {
+                    LOGGER.warn("[watch][{}] change stream failed: {}", collection, e.getMessage());
+                    onGap.run();
+                })
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofMinutes(1)))
+                .repeatWhen(completed -> completed
+                        .doOnNext(c -> onGap.run())
+                        .delayElements(Duration.ofSeconds(1)));
+    }
+
+    /**
+     * This method watches a collection forever from a checkpoint: every open, and every reopen after an error,
+     * reads its options again, e.g. from the last resume token saved, so no event is lost while the stream is down.
+     *
+     * @param collection collection name
+     * @param type       type of the documents
+     * @param options    options of the next open
+     * @param onError    callback for the errors of the stream, before it is reopened
+     * @return change events
+     */
+    public <T> Flux<ChangeStreamEvent<T>> watch(String collection, Class<T> type, Mono<ChangeStreamOptions> options,
+                                                Consumer<Throwable> onError) {
+        return options
+                .flatMapMany(o -> reactiveMongoTemplate.changeStream(collection, o, type))
+                .doOnError(e -> {
+                    LOGGER.warn("[watch][{}] change stream failed: {}", collection, e.getMessage());
+                    onError.accept(e);
+                })
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofMinutes(1)))
+                .repeatWhen(completed -> completed.delayElements(Duration.ofSeconds(1)));
+    }
+
+    /**
+     * This method returns the cluster time of the deployment, to start a change stream at it
+     *
+     * @return operation time, empty when the deployment is not a replica set
+     */
+    public Mono<BsonTimestamp> operationTime() {
+        return reactiveMongoTemplate.executeCommand(new Document("ping", 1))
+                .flatMap(reply -> Mono.justOrEmpty(reply.get("operationTime", BsonTimestamp.class)));
+    }
+
+    /**
+     * This method returns the document id of the event as string
+     *
+     * @param event change event
+     * @return document id or null
+     */
+    public static String documentId(ChangeStreamEvent<?> event) {
+        if (event.getRaw() == null || event.getRaw().getDocumentKey() == null) {
+            return null;
+        }
+        BsonValue id = event.getRaw().getDocumentKey().get("_id");
+        if (id == null) {
+            return null;
+        }
+        if (id instanceof BsonObjectId) {
+            return id.asObjectId().getValue().toHexString();
+        }
+        return id.isString() ? id.asString().getValue() : id.toString();
+    }
+
+}
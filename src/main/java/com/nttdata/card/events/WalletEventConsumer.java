@@ -0,0 +1,411 @@
+package com.nttdata.card.events;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.nttdata.card.dto.request.BalanceDeltaRequest;
+import com.nttdata.card.dto.response.BalanceDeltaResponse;
+import com.nttdata.card.service.ICardService;
+import com.nttdata.card.util.Topic;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.micrometer.core.instrument.binder.kafka.KafkaClientMetrics;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.kafka.receiver.KafkaReceiver;
+import reactor.kafka.receiver.ReceiverOptions;
+import reactor.kafka.receiver.ReceiverRecord;
+import reactor.kafka.sender.KafkaSender;
+import reactor.kafka.sender.SenderOptions;
+import reactor.kafka.sender.SenderRecord;
+import reactor.util.retry.Retry;
+
+import javax.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * This class applies the balance changes published on the WALLET-* topics. The data of every event is a balance
+ * delta of a card, keyed by card. The partitions are consumed in parallel and each partition in order, so the
+ * events of a card are applied in order. The records of a partition are applied in batches through the bulk balance
+ * deltas; the offsets are acknowledged, and later committed, only after the batch is written. The events of a batch
+ * that fail are retried up to {@code card.wallet.consumer.max-attempts} times and then sent to the dead-letter topic,
+ * so one bad event does not hold its partition forever. The batches are pulled as they are applied: a partition
+ * that falls behind stops the fetching, and the receiver pauses the consumer until it catches up. Events are
+ * deduplicated by event id in a bounded store of recent ids, and again by the idempotency refs kept on the cards,
+ * which also covers the events redelivered after a restart.
+ *
+ * @author Alcibar Vasquez
+ * @version 1.0
+ */
+@Component
+@ConditionalOnProperty(name = "card.wallet.consumer.enabled", matchIfMissing = true)
+public class WalletEventConsumer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(WalletEventConsumer.class);
+
+    private static final Duration MAX_BACKOFF = Duration.ofMinutes(1);
+
+    private static final TypeReference<KafkaEvent<BalanceDeltaRequest>> EVENT = new TypeReference<KafkaEvent<BalanceDeltaRequest>>() {
+    };
+
+    /**
+     * Closes the batch of a partition when the window ends
+     */
+    private static final Object WINDOW_END = new Object();
+
+    public static final String ORIGINAL_TOPIC = "x-original-topic";
+
+    public static final String ORIGINAL_PARTITION = "x-original-partition";
+
+    public static final String ORIGINAL_OFFSET = "x-original-offset";
+
+    public static final String ERROR = "x-error";
+
+    public static final List<String> TOPICS = Arrays.asList(Topic.WALLET_CREATED, Topic.WALLET_UPDATED, Topic.WALLET_DELETED);
+
+    private final ObjectMapper objectMapper;
+
+    private final ICardService cardService;
+
+    private final MeterRegistry meterRegistry;
+
+    private final ReceiverOptions<String, String> receiverOptions;
+
+    private final int batchSize;
+
+    private final Duration batchWindow;
+
+    private final Duration retryBackoff;
+
+    private final int maxPendingBatches;
+
+    private final int maxAttempts;
+
+    private final String deadLetterTopic;
+
+    private final KafkaSender<String, String> deadLetterSender;
+
+    private final Cache<String, Boolean> processed;
+
+    private final Map<String, Counter> outcomes = new HashMap<>();
+
+    private final Timer batchTimer;
+
+    private final AtomicBoolean metricsBound = new AtomicBoolean();
+
+    private KafkaReceiver<String, String> receiver;
+
+    private Disposable subscription;
+
+    public WalletEventConsumer(ObjectMapper objectMapper,
+                               ICardService cardService,
+                               MeterRegistry meterRegistry,
+                               @Value("${kafka.server.host}") String bootstrapServers,
+                               @Value("${card.wallet.consumer.group-id:card-wallet}") String groupId,
+                               @Value("${card.wallet.consumer.batch-size:500}") int batchSize,
+                               @Value("${card.wallet.consumer.batch-window:50ms}") Duration batchWindow,
+                               @Value("${card.wallet.consumer.max-pending-batches:2}") int maxPendingBatches,
+                               @Value("${card.wallet.consumer.commit-interval:1s}") Duration commitInterval,
+                               @Value("${card.wallet.consumer.retry-backoff:1s}") Duration retryBackoff,
+                               @Value("${card.wallet.consumer.max-attempts:5}") int maxAttempts,
+                               @Value("${card.wallet.consumer.dead-letter-topic:WALLET-DLT}") String deadLetterTopic,
+                               @Value("${card.wallet.consumer.dedupe.max-size:100000}") long dedupeMaxSize,
+                               @Value("${card.wallet.consumer.dedupe.ttl:1h}") Duration dedupeTtl) {
+        this.objectMapper = objectMapper;
+        this.cardService = cardService;
+        this.meterRegistry = meterRegistry;
+        this.batchSize = batchSize;
+        this.batchWindow = batchWindow;
+        this.retryBackoff = retryBackoff;
+        this.maxPendingBatches = maxPendingBatches;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.deadLetterTopic = deadLetterTopic;
+        Map<String, Object> props = new HashMap<>();
+        props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(ConsumerConfig.GROUP_ID_CONFIG, groupId);
+        props.put(ConsumerConfig.CLIENT_ID_CONFIG, "card-wallet");
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, batchSize);
+        this.receiverOptions = ReceiverOptions.<String, String>create(props)
+                .withKeyDeserializer(new StringDeserializer())
+                .withValueDeserializer(new StringDeserializer())
+                .commitInterval(commitInterval)
+                .addAssignListener(partitions -> {
+                    LOGGER.info("[assign] {}", partitions);
+                    bindConsumerMetrics();
+                })
+                .addRevokeListener(partitions -> LOGGER.info("[revoke] {}", partitions))
+                .subscription(TOPICS);
+        Map<String, Object> producerProps = new HashMap<>();
+        producerProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        producerProps.put(ProducerConfig.CLIENT_ID_CONFIG, "card-wallet-dead-letter");
+        producerProps.put(ProducerConfig.ACKS_CONFIG, "all");
+        producerProps.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        this.deadLetterSender = KafkaSender.create(SenderOptions.<String, String>create(producerProps)
+                .withKeySerializer(new StringSerializer())
+                .withValueSerializer(new StringSerializer()));
+        this.processed = CaffeineCacheMetrics.monitor(meterRegistry,
+                Caffeine.newBuilder()
+                        .maximumSize(dedupeMaxSize)
+                        .expireAfterWrite(dedupeTtl)
+                        .recordStats()
+                        .<String, Boolean>build(),
+                "wallet-events.processed");
+        for (String outcome : Arrays.asList(BalanceDeltaResponse.APPLIED, BalanceDeltaResponse.DUPLICATE,
+                BalanceDeltaResponse.NOT_FOUND, BalanceDeltaResponse.INVALID, BalanceDeltaResponse.FAILED)) {
+            outcomes.put(outcome, Counter.builder("card.wallet.events")
+                    .description("Wallet events consumed by outcome")
+                    .tag("outcome", outcome.toLowerCase())
+                    .register(meterRegistry));
+        }
+        this.batchTimer = Timer.builder("card.wallet.batch")
+                .description("Time to apply a batch of wallet events of one partition")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        LOGGER.info("[start] consuming {}", TOPICS);
+        receiver = KafkaReceiver.create(receiverOptions);
+        subscription = receiver.receive()
+                .groupBy(record -> record.receiverOffset().topicPartition())
+                .flatMap(partition -> batches(partition)
+                        .concatMap(this::process, maxPendingBatches), Integer.MAX_VALUE)
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, retryBackoff).maxBackoff(MAX_BACKOFF)
+                        .doBeforeRetry(signal -> LOGGER.error("[start] restarting the consumer: {}",
+                                signal.failure().toString())))
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+        deadLetterSender.close();
+    }
+
+    /**
+     * This method cuts the records of a partition into batches of up to {@code batch-size} records, closed early
+     * when {@code batch-window} ends. Records are only requested as the batches are taken, and a window that ends
+     * while no batch is wanted is dropped, so a partition behind its batches stops requesting records instead of
+     * piling them up.
+     *
+     * @param records records of a partition
+     * @return batches in partition order
+     */
+    @SuppressWarnings("unchecked")
+    Flux<List<ReceiverRecord<String, String>>> batches(Flux<ReceiverRecord<String, String>> records) {
+        return records.publish(shared -> Flux.defer(() -> {
+            AtomicInteger size = new AtomicInteger();
+            Flux<Object> windows = Flux.interval(batchWindow)
+                    .onBackpressureDrop()
+                    .map(tick -> WINDOW_END)
+                    .takeUntilOther(shared.ignoreElements());
+            return Flux.merge(shared, windows)
+                    .bufferUntil(item -> {
+                        if (item == WINDOW_END || size.incrementAndGet() >= batchSize) {
+                            size.set(0);
+                            return true;
+                        }
+                        return false;
+                    })
+                    .map(batch -> {
+                        batch.removeIf(item -> item == WINDOW_END);
+                        return (List<ReceiverRecord<String, String>>) (List<?>) batch;
+                    })
+                    .filter(batch -> !batch.isEmpty());
+        }));
+    }
+
+    /**
+     * Binds the consumer lag, fetch rate and consumed records rate once the consumer exists
+     */
+    private void bindConsumerMetrics() {
+        if (!metricsBound.compareAndSet(false, true)) {
+            return;
+        }
+        receiver.doOnConsumer(consumer -> {
+                    new KafkaClientMetrics(consumer).bindTo(meterRegistry);
+                    return consumer;
+                })
+                .subscribe(c -> {
+                }, e -> {
+                    metricsBound.set(false);
+                    LOGGER.warn("[metrics] {}", e.toString());
+                });
+    }
+
+    /**
+     * This method applies a batch of records of one partition and acknowledges its last offset. The events that
+     * still fail after {@code max-attempts} are sent to the dead-letter topic before the offset is acknowledged.
+     *
+     * @param records records in partition order
+     * @return completion once acknowledged
+     */
+    Mono<Void> process(List<ReceiverRecord<String, String>> records) {
+        Map<String, ReceiverRecord<String, String>> byRef = new HashMap<>();
+        List<BalanceDeltaRequest> requests = new ArrayList<>(records.size());
+        for (ReceiverRecord<String, String> record : records) {
+            BalanceDeltaRequest request = toRequest(record);
+            if (request == null) {
+                outcomes.get(BalanceDeltaResponse.INVALID).increment();
+                continue;
+            }
+            if (processed.getIfPresent(request.getIdempotencyRef()) != null) {
+                outcomes.get(BalanceDeltaResponse.DUPLICATE).increment();
+                continue;
+            }
+            byRef.put(request.getIdempotencyRef(), record);
+            requests.add(request);
+        }
+        ReceiverRecord<String, String> last = records.get(records.size() - 1);
+        if (requests.isEmpty()) {
+            last.receiverOffset().acknowledge();
+            return Mono.empty();
+        }
+        return Mono.defer(() -> {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            return apply(requests, 1)
+                    .flatMap(failed -> deadLetter(failed, byRef))
+                    .then(Mono.fromRunnable(() -> {
+                        sample.stop(batchTimer);
+                        byRef.keySet().forEach(id -> processed.put(id, Boolean.TRUE));
+                        last.receiverOffset().acknowledge();
+                    }));
+        });
+    }
+
+    /**
+     * This method applies the events and retries the failed ones with a growing backoff
+     *
+     * @param requests events to apply
+     * @param attempt  number of this attempt, from 1
+     * @return the events still failed after the last attempt
+     */
+    private Mono<List<BalanceDeltaResponse>> apply(List<BalanceDeltaRequest> requests, int attempt) {
+        return cardService.applyBalanceDeltas(Flux.fromIterable(requests))
+                .collectList()
+                .onErrorResume(e -> Mono.just(requests.stream()
+                        .map(r -> new BalanceDeltaResponse(r.getCardId(), r.getCci(), r.getDelta(),
+                                Collections.singletonList(r.getIdempotencyRef()), BalanceDeltaResponse.FAILED,
+                                e.toString()))
+                        .collect(Collectors.toList())))
+                .flatMap(responses -> {
+                    List<BalanceDeltaResponse> failed = new ArrayList<>();
+                    for (BalanceDeltaResponse response : responses) {
+                        if (BalanceDeltaResponse.FAILED.equals(response.getStatus())) {
+                            failed.add(response);
+                            continue;
+                        }
+                        Counter counter = outcomes.get(response.getStatus());
+                        if (counter != null) {
+                            counter.increment(Math.max(1, response.getIdempotencyRefs().size()));
+                        }
+                    }
+                    if (failed.isEmpty() || attempt >= maxAttempts) {
+                        return Mono.just(failed);
+                    }
+                    Set<String> refs = failed.stream()
+                            .flatMap(r -> r.getIdempotencyRefs().stream())
+                            .collect(Collectors.toSet());
+                    List<BalanceDeltaRequest> retry = requests.stream()
+                            .filter(r -> refs.contains(r.getIdempotencyRef()))
+                            .collect(Collectors.toList());
+                    LOGGER.error("[process] retrying {} events, attempt {} of {}: {}", retry.size(), attempt + 1,
+                            maxAttempts, failed.get(0).getError());
+                    return Mono.delay(backoff(attempt)).then(apply(retry, attempt + 1));
+                });
+    }
+
+    private Duration backoff(int attempt) {
+        Duration backoff = retryBackoff.multipliedBy(1L << Math.min(attempt - 1, 16));
+        return backoff.compareTo(MAX_BACKOFF) > 0 ? MAX_BACKOFF : backoff;
+    }
+
+    /**
+     * The records are sent as received, with their origin and the error in the headers. A record that can not be
+     * sent fails the batch, so its offset is not committed and the consumer restarts from it.
+     */
+    private Mono<Void> deadLetter(List<BalanceDeltaResponse> failed, Map<String, ReceiverRecord<String, String>> byRef) {
+        if (failed.isEmpty()) {
+            return Mono.empty();
+        }
+        LOGGER.error("[process] sending {} events to {} after {} attempts: {}", failed.size(), deadLetterTopic,
+                maxAttempts, failed.get(0).getError());
+        return deadLetterSender.send(Flux.fromIterable(failed)
+                        .flatMapIterable(BalanceDeltaResponse::getIdempotencyRefs)
+                        .map(ref -> {
+                            ReceiverRecord<String, String> record = byRef.get(ref);
+                            RecordHeaders headers = new RecordHeaders();
+                            headers.add(ORIGINAL_TOPIC, record.topic().getBytes(StandardCharsets.UTF_8));
+                            headers.add(ORIGINAL_PARTITION, String.valueOf(record.partition()).getBytes(StandardCharsets.UTF_8));
+                            headers.add(ORIGINAL_OFFSET, String.valueOf(record.offset()).getBytes(StandardCharsets.UTF_8));
+                            headers.add(ERROR, String.valueOf(errorOf(failed, ref)).getBytes(StandardCharsets.UTF_8));
+                            return SenderRecord.create(new ProducerRecord<>(deadLetterTopic, null, record.key(),
+                                    record.value(), headers), ref);
+                        }))
+                .doOnNext(result -> outcomes.get(BalanceDeltaResponse.FAILED).increment())
+                .then();
+    }
+
+    private static String errorOf(List<BalanceDeltaResponse> failed, String ref) {
+        for (BalanceDeltaResponse response : failed) {
+            if (response.getIdempotencyRefs().contains(ref)) {
+                return response.getError();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The event id is the idempotency ref of the delta; an event without id is identified by its offset
+     *
+     * @return the delta, null when the record is not a balance delta
+     */
+    private BalanceDeltaRequest toRequest(ReceiverRecord<String, String> record) {
+        try {
+            KafkaEvent<BalanceDeltaRequest> event = objectMapper.readValue(record.value(), EVENT);
+            if (event == null || event.getData() == null) {
+                return null;
+            }
+            BalanceDeltaRequest request = event.getData();
+            request.setIdempotencyRef(event.getId() != null ? event.getId()
+                    : record.topic() + "-" + record.partition() + "@" + record.offset());
+            return request;
+        } catch (Exception e) {
+            LOGGER.warn("[process] skipping {}-{}@{}: {}", record.topic(), record.partition(), record.offset(),
+                    e.toString());
+            return null;
+        }
+    }
+
+}
@@ -19,6 +19,14 @@ public class CustomException {
         return new ResponseStatusException(HttpStatus.BAD_REQUEST, message);
     }
 
+    public static ResponseStatusException conflict(String message) {
+        return new ResponseStatusException(HttpStatus.CONFLICT, message);
+    }
+
+    public static ResponseStatusException serviceUnavailable(String message) {
+        return new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, message);
+    }
+
     public static ResponseStatusException internalServerError(String message) {
         return new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, message);
     }
@@ -0,0 +1,88 @@
+package com.nttdata.card.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class defines the coalesced balance change of one card, identified by id or by cci. The deltas with an
+ * idempotency ref are kept apart by ref, so the refs already applied to the card can be left out of the sum.
+ *
+ * @author Alcibar Vasquez
+ * @version 1.0
+ */
+@Data
+@AllArgsConstructor
+public class BalanceDelta {
+
+    private String cardId;
+
+    private String cci;
+
+    /**
+     * Sum of the deltas without an idempotency ref in minor units, null when there is none
+     */
+    private Long unreferenced;
+
+    /**
+     * Deltas in minor units by idempotency ref, in the order received
+     */
+    private Map<String, Long> referenced;
+
+    public BalanceDelta(String cardId, String cci) {
+        this(cardId, cci, null, new LinkedHashMap<>());
+    }
+
+    /**
+     * This method adds a delta of the card
+     *
+     * @param ref   idempotency ref, null when it has none
+     * @param delta minor units of the default currency
+     */
+    public void add(String ref, long delta) {
+        if (ref == null) {
+            unreferenced = unreferenced == null ? delta : Math.addExact(unreferenced, delta);
+        } else {
+            referenced.merge(ref, delta, Math::addExact);
+        }
+    }
+
+    /**
+     * @return sum of the deltas in minor units of the default currency
+     */
+    public long getDelta() {
+        long delta = unreferenced == null ? 0L : unreferenced;
+        for (long d : referenced.values()) {
+            delta = Math.addExact(delta, d);
+        }
+        return delta;
+    }
+
+    public List<String> getRefs() {
+        return new ArrayList<>(referenced.keySet());
+    }
+
+    public boolean isEmpty() {
+        return unreferenced == null && referenced.isEmpty();
+    }
+
+    /**
+     * This method returns the delta without the refs already applied to the card
+     *
+     * @param applied refs applied to the card
+     * @return delta left to apply, this one when none of its refs was applied
+     */
+    public BalanceDelta without(Collection<?> applied) {
+        Map<String, Long> left = new LinkedHashMap<>(referenced);
+        if (!left.keySet().removeAll(applied)) {
+            return this;
+        }
+        return new BalanceDelta(cardId, cci, unreferenced, left);
+    }
+
+}
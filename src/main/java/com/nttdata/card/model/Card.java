@@ -5,6 +5,9 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
 
@@ -21,26 +24,31 @@ import java.util.Date;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "cards")
+@CompoundIndex(name = "created_at_id", def = "{'created_at': 1, '_id': 1}")
 public class Card {
 
     @Id
     private String id;
 
+    @Indexed(name = "card_number_unique", unique = true, sparse = true)
     @Field(name = "card_number", write = Field.Write.NON_NULL)
     private String cardNumber;
 
     @Field(name = "security_code", write = Field.Write.NON_NULL)
     private Long securityCode;
 
+    @Indexed(name = "expiration_date")
     @Field(name = "expiration_date", write = Field.Write.NON_NULL)
     private Date expirationDate;
 
+    @Indexed(name = "cci_unique", unique = true, sparse = true)
     @Field(name = "cci", write = Field.Write.NON_NULL)
     private String cci;
 
     @Field(name = "balance", write = Field.Write.NON_NULL)
-    private Float balance;
+    private Money balance;
 
+    @Indexed(name = "bank_name")
     @Field(name = "bank_name")
     private String bankName;
 
@@ -50,7 +58,11 @@ public class Card {
     @Field(name = "updated_at")
     private Date updatedAt;
 
-    public Card(String cardNumber, Long securityCode, Date expirationDate, String cci, Float balance, String bankName, Date createdAt, Date updatedAt) {
+    @Version
+    @Field(name = "version")
+    private Long version;
+
+    public Card(String cardNumber, Long securityCode, Date expirationDate, String cci, Money balance, String bankName, Date createdAt, Date updatedAt) {
         this.cardNumber = cardNumber;
         this.securityCode = securityCode;
         this.expirationDate = expirationDate;
@@ -0,0 +1,109 @@
+package com.nttdata.card.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * This class defines the summary of the cards of a bank, materialized from the cards collection: the number of
+ * cards, the balances by currency and the cards expiring by month. It is kept up to date incrementally from the
+ * entries of the cards, see {@link CardBankSummaryEntry}.
+ *
+ * @author Alcibar Vasquez
+ * @version 1.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "card_bank_summary")
+public class CardBankSummary {
+
+    public static final String CARD_COUNT = "card_count";
+
+    public static final String BALANCES = "balances";
+
+    public static final String EXPIRING = "expiring";
+
+    public static final String COUNT = "count";
+
+    public static final String TOTAL = "total";
+
+    public static final String UPDATED_AT = "updated_at";
+
+    /**
+     * Bank name
+     */
+    @Id
+    private String id;
+
+    @Field(name = CARD_COUNT)
+    private long cardCount;
+
+    /**
+     * Cards with a balance and their total in minor units, by currency
+     */
+    @Field(name = BALANCES)
+    private Map<String, BalanceTotal> balances;
+
+    /**
+     * Cards by expiration month, {@code yyyy-MM}
+     */
+    @Field(name = EXPIRING)
+    private Map<String, Long> expiring;
+
+    @Field(name = UPDATED_AT)
+    private Date updatedAt;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class BalanceTotal {
+
+        @Field(name = COUNT)
+        private long count;
+
+        @Field(name = TOTAL)
+        private long total;
+
+    }
+
+    /**
+     * This method returns the increments that take the summaries from the previous entry of a card to its new one
+     *
+     * @param previous entry replaced, null when the card was in no summary
+     * @param next     entry stored, null when the card is no longer in a summary
+     * @return field increments by bank, without the zero ones
+     */
+    public static Map<String, Map<String, Long>> increments(CardBankSummaryEntry previous, CardBankSummaryEntry next) {
+        Map<String, Map<String, Long>> increments = new LinkedHashMap<>();
+        add(increments, previous, -1L);
+        add(increments, next, 1L);
+        increments.values().forEach(fields -> fields.values().removeIf(v -> v == 0L));
+        increments.values().removeIf(Map::isEmpty);
+        return increments;
+    }
+
+    private static void add(Map<String, Map<String, Long>> increments, CardBankSummaryEntry entry, long sign) {
+        if (entry == null || entry.getBankName() == null) {
+            return;
+        }
+        Map<String, Long> fields = increments.computeIfAbsent(entry.getBankName(), k -> new LinkedHashMap<>());
+        fields.merge(CARD_COUNT, sign, Long::sum);
+        if (entry.getCurrency() != null) {
+            String balance = BALANCES + "." + entry.getCurrency() + ".";
+            fields.merge(balance + COUNT, sign, Long::sum);
+            fields.merge(balance + TOTAL, Math.multiplyExact(sign, entry.getBalance()), Long::sum);
+        }
+        if (entry.getExpirationMonth() != null) {
+            fields.merge(EXPIRING + "." + entry.getExpirationMonth(), sign, Long::sum);
+        }
+    }
+
+}
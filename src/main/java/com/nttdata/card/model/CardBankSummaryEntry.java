@@ -0,0 +1,78 @@
+package com.nttdata.card.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+
+/**
+ * This class defines what a card adds to the summary of its bank. The summary is kept by swapping the entry of a
+ * card and adding the difference between the old and the new entry, so applying the same change twice adds nothing.
+ *
+ * @author Alcibar Vasquez
+ * @version 1.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "card_bank_summary_entries")
+public class CardBankSummaryEntry {
+
+    /**
+     * Months are {@code yyyy-MM} in UTC, as {@code $dateToString} writes them in the rebuild
+     */
+    public static final String MONTH_FORMAT = "%Y-%m";
+
+    private static final DateTimeFormatter MONTH = DateTimeFormatter.ofPattern("yyyy-MM").withZone(ZoneOffset.UTC);
+
+    /**
+     * Card id
+     */
+    @Id
+    private String id;
+
+    @Indexed(name = "bank_name")
+    @Field(name = "bank_name")
+    private String bankName;
+
+    @Field(name = "currency")
+    private String currency;
+
+    /**
+     * Balance in minor units
+     */
+    @Field(name = "balance")
+    private long balance;
+
+    @Field(name = "expiration_month")
+    private String expirationMonth;
+
+    /**
+     * This method returns what a card adds to the summary of its bank
+     *
+     * @param card card, null when it no longer exists
+     * @return entry, null when the card is not in any summary
+     */
+    public static CardBankSummaryEntry of(Card card) {
+        if (card == null || card.getBankName() == null) {
+            return null;
+        }
+        Money balance = card.getBalance();
+        return new CardBankSummaryEntry(card.getId(), card.getBankName(),
+                balance == null ? null : balance.getCurrency(),
+                balance == null ? 0L : balance.getMinorUnits(),
+                card.getExpirationDate() == null ? null : month(card.getExpirationDate()));
+    }
+
+    public static String month(Date date) {
+        return MONTH.format(date.toInstant());
+    }
+
+}
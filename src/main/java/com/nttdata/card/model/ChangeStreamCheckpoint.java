@@ -0,0 +1,43 @@
+package com.nttdata.card.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.util.Date;
+
+/**
+ * This class defines where a change stream consumer resumes: after the last event it applied, or at the cluster
+ * time its view of the collection was built at when it has applied no event since
+ *
+ * @author Alcibar Vasquez
+ * @version 1.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "change_stream_checkpoints")
+public class ChangeStreamCheckpoint {
+
+    /**
+     * Consumer name
+     */
+    @Id
+    private String id;
+
+    @Field(name = "resume_token")
+    private org.bson.Document resumeToken;
+
+    /**
+     * Cluster time as a BSON timestamp value
+     */
+    @Field(name = "operation_time")
+    private Long operationTime;
+
+    @Field(name = "updated_at")
+    private Date updatedAt;
+
+}
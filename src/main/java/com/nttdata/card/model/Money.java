@@ -0,0 +1,238 @@
+package com.nttdata.card.model;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.nttdata.card.util.MoneyJsonDeserializer;
+import com.nttdata.card.util.MoneyJsonSerializer;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * This class defines an immutable amount of money, kept as a long of minor units (cents) and an ISO 4217 currency.
+ * Arithmetic is exact; rounding only happens once, when a decimal is converted with {@link #parse(String)}.
+ * Every supported currency has two decimals.
+ *
+ * @author Alcibar Vasquez
+ * @version 1.0
+ */
+@JsonSerialize(using = MoneyJsonSerializer.class)
+@JsonDeserialize(using = MoneyJsonDeserializer.class)
+public final class Money implements Comparable<Money> {
+
+    public static final String DEFAULT_CURRENCY = "PEN";
+
+    public static final int SCALE = 2;
+
+    private static final long FACTOR = 100L;
+
+    private static final Money ZERO = new Money(0L, DEFAULT_CURRENCY);
+
+    private final long minorUnits;
+
+    private final String currency;
+
+    private Money(long minorUnits, String currency) {
+        this.minorUnits = minorUnits;
+        this.currency = currency;
+    }
+
+    /**
+     * This method returns an amount of the given currency
+     *
+     * @param minorUnits amount in minor units, e.g. 1050 for 10.50
+     * @param currency   ISO 4217 code, the default currency when null
+     * @return money
+     */
+    public static Money ofMinor(long minorUnits, String currency) {
+        if (currency == null || DEFAULT_CURRENCY.equals(currency)) {
+            return minorUnits == 0L ? ZERO : new Money(minorUnits, DEFAULT_CURRENCY);
+        }
+        if (currency.length() != 3) {
+            throw new IllegalArgumentException("The currency is invalid: " + currency);
+        }
+        return new Money(minorUnits, currency);
+    }
+
+    public static Money ofMinor(long minorUnits) {
+        return ofMinor(minorUnits, DEFAULT_CURRENCY);
+    }
+
+    public static Money zero() {
+        return ZERO;
+    }
+
+    /**
+     * This method parses a plain decimal of the default currency, e.g. {@code -10.5}.
+     * Digits beyond the second decimal are rounded half up, as the previous float formatting did.
+     *
+     * @param text decimal
+     * @return money
+     */
+    public static Money parse(String text) {
+        return parse(text, DEFAULT_CURRENCY);
+    }
+
+    /**
+     * This method parses a plain decimal, without allocating intermediate numbers
+     *
+     * @param text     decimal
+     * @param currency ISO 4217 code
+     * @return money
+     */
+    public static Money parse(String text, String currency) {
+        int length = text == null ? 0 : text.length();
+        int i = 0;
+        boolean negative = false;
+        if (length > 0 && (text.charAt(0) == '-' || text.charAt(0) == '+')) {
+            negative = text.charAt(0) == '-';
+            i++;
+        }
+        long units = 0L;
+        int decimals = -1;
+        boolean roundUp = false;
+        boolean digits = false;
+        for (; i < length; i++) {
+            char c = text.charAt(i);
+            if (c == '.' && decimals < 0) {
+                decimals = 0;
+                continue;
+            }
+            if (c < '0' || c > '9') {
+                throw new NumberFormatException("The amount is invalid: " + text);
+            }
+            digits = true;
+            if (decimals < SCALE) {
+                units = Math.addExact(Math.multiplyExact(units, 10L), c - '0');
+                if (decimals >= 0) {
+                    decimals++;
+                }
+            } else if (decimals == SCALE) {
+                roundUp = c >= '5';
+                decimals++;
+            }
+        }
+        if (!digits) {
+            throw new NumberFormatException("The amount is invalid: " + text);
+        }
+        for (int d = Math.max(decimals, 0); d < SCALE; d++) {
+            units = Math.multiplyExact(units, 10L);
+        }
+        if (roundUp) {
+            units = Math.addExact(units, 1L);
+        }
+        return ofMinor(negative ? -units : units, currency);
+    }
+
+    /**
+     * This method converts a decimal, rounding half up to two decimals
+     *
+     * @param amount   decimal
+     * @param currency ISO 4217 code
+     * @return money
+     */
+    public static Money of(BigDecimal amount, String currency) {
+        return ofMinor(amount.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact(), currency);
+    }
+
+    /**
+     * This method converts a legacy floating point amount, rounding its decimal form half up to two decimals like
+     * {@code MoneyMigration} does, so 1.005 is 1.01 and not the 1.00 of {@code Math.round(1.005 * 100)}
+     *
+     * @param amount amount stored as a double
+     * @return money of the default currency
+     */
+    public static Money ofDouble(double amount) {
+        return of(BigDecimal.valueOf(amount), DEFAULT_CURRENCY);
+    }
+
+    public long getMinorUnits() {
+        return minorUnits;
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    public boolean isNegative() {
+        return minorUnits < 0L;
+    }
+
+    public boolean isPositive() {
+        return minorUnits > 0L;
+    }
+
+    public Money plus(Money other) {
+        return ofMinor(Math.addExact(minorUnits, sameCurrency(other).minorUnits), currency);
+    }
+
+    public Money minus(Money other) {
+        return ofMinor(Math.subtractExact(minorUnits, sameCurrency(other).minorUnits), currency);
+    }
+
+    public Money negate() {
+        return ofMinor(Math.negateExact(minorUnits), currency);
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(minorUnits, SCALE);
+    }
+
+    /**
+     * This method appends the amount as a plain decimal with two digits, e.g. {@code -0.05}
+     *
+     * @param builder target
+     * @return the same builder
+     */
+    public StringBuilder appendTo(StringBuilder builder) {
+        long units = minorUnits;
+        if (units < 0L) {
+            builder.append('-');
+        }
+        long major = Math.abs(units / FACTOR);
+        int minor = (int) Math.abs(units % FACTOR);
+        builder.append(major).append('.');
+        if (minor < 10) {
+            builder.append('0');
+        }
+        return builder.append(minor);
+    }
+
+    private Money sameCurrency(Money other) {
+        if (!currency.equals(other.currency)) {
+            throw new IllegalArgumentException("The currencies differ: " + currency + " and " + other.currency);
+        }
+        return other;
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(minorUnits, sameCurrency(other).minorUnits);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Money)) {
+            return false;
+        }
+        Money money = (Money) o;
+        return minorUnits == money.minorUnits && currency.equals(money.currency);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Long.hashCode(minorUnits) + currency.hashCode();
+    }
+
+    /**
+     * @return the plain decimal, without the currency
+     */
+    @Override
+    public String toString() {
+        return appendTo(new StringBuilder(24)).toString();
+    }
+
+}
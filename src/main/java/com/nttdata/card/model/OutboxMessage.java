@@ -0,0 +1,94 @@
+package com.nttdata.card.model;
+
+import com.nttdata.card.enums.OutboxStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.util.Date;
+
+/**
+ * This class defines a change for another service, written in the same transaction as the card it comes from
+ * and delivered later by a relay. A message is due once {@code nextAttemptAt} is reached; a relay claiming it
+ * pushes {@code nextAttemptAt} to the end of its lease, so the message is claimed again if the relay dies.
+ *
+ * @author Alcibar Vasquez
+ * @version 1.0
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "card_outbox")
+@CompoundIndex(name = "status_next_attempt_at", def = "{'status': 1, 'next_attempt_at': 1}")
+@CompoundIndex(name = "status_bank_account_id_created_at", def = "{'status': 1, 'bank_account_id': 1, 'created_at': 1}")
+public class OutboxMessage {
+
+    public static final String BANK_ACCOUNT_LINK = "BANK_ACCOUNT_LINK";
+
+    @Id
+    private String id;
+
+    @Field(name = "type")
+    private String type;
+
+    @Field(name = "card_id")
+    private String cardId;
+
+    @Field(name = "bank_account_id")
+    private String bankAccountId;
+
+    @Field(name = "status")
+    private OutboxStatus status;
+
+    @Field(name = "attempts")
+    private int attempts;
+
+    @Field(name = "next_attempt_at")
+    private Date nextAttemptAt;
+
+    /**
+     * Claim of the relay delivering the message
+     */
+    @Field(name = "lease_owner", write = Field.Write.NON_NULL)
+    private String leaseOwner;
+
+    @Field(name = "last_error", write = Field.Write.NON_NULL)
+    private String lastError;
+
+    @Field(name = "created_at")
+    private Date createdAt;
+
+    /**
+     * Delivered messages are removed a week after delivery
+     */
+    @Indexed(name = "sent_at_ttl", expireAfter = "7d")
+    @Field(name = "sent_at", write = Field.Write.NON_NULL)
+    private Date sentAt;
+
+    /**
+     * This method builds the message linking a bank account to a card
+     *
+     * @param cardId        card id
+     * @param bankAccountId bank account id
+     * @param now           time of the card write
+     * @return message due now
+     */
+    public static OutboxMessage bankAccountLink(String cardId, String bankAccountId, Date now) {
+        return OutboxMessage.builder()
+                .type(BANK_ACCOUNT_LINK)
+                .cardId(cardId)
+                .bankAccountId(bankAccountId)
+                .status(OutboxStatus.PENDING)
+                .nextAttemptAt(now)
+                .createdAt(now)
+                .build();
+    }
+
+}
@@ -1,60 +1,203 @@
 package com.nttdata.card.proxy.bankaccount;
 
+import com.nttdata.card.cache.BankAccountCache;
 import com.nttdata.card.dto.request.proxy.BankAccountRequest;
 import com.nttdata.card.dto.response.proxy.BankAccountResponse;
 import com.nttdata.card.exceptions.CustomException;
-import lombok.RequiredArgsConstructor;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import com.nttdata.card.util.BatchLoader;
+import com.nttdata.card.util.Correlation;
+import com.nttdata.card.util.LogSampler;
+import com.nttdata.card.util.MethodMetrics;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import org.springframework.web.server.ResponseStatusException;
 import reactor.core.publisher.Mono;
 
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+
 /**
- * This class get queries external
+ * This class get queries external. Bank accounts missing from the cache are read in batches through
+ * {@code POST {account}/by-ids} when {@code card.bank-account.batch.enabled}, or one by one when the bank
+ * account service has no batch endpoint. One in {@code card.logging.sample.every} outbound requests is logged at INFO,
+ * with the correlation id of the request being served.
  *
  * @author Alcibar Vasquez
  * @version 1.0
  */
-@RequiredArgsConstructor
 @Service
 public class BankAccountProxy {
 
     private final static Logger LOGGER = LoggerFactory.getLogger(BankAccountProxy.class);
 
+    private static final String COMPONENT = "bank-account-proxy";
+
     @Value("${api-gateway.routes.ms-bank-account.account}")
     private String accountURL;
 
     private final WebClient webClient;
 
+    private final BankAccountCache bankAccountCache;
+
+    private final BankAccountResilience bankAccountResilience;
+
+    private final MethodMetrics methodMetrics;
+
+    private final String batchPath;
+
+    private final BatchLoader<String, BankAccountResponse> batchLoader;
+
+    private final LogSampler requestLogs;
+
+    public BankAccountProxy(WebClient webClient,
+                            BankAccountCache bankAccountCache,
+                            BankAccountResilience bankAccountResilience,
+                            MethodMetrics methodMetrics,
+                            @Value("${card.bank-account.batch.enabled:true}") boolean batchEnabled,
+                            @Value("${card.bank-account.batch.path:/by-ids}") String batchPath,
+                            @Value("${card.bank-account.batch.max-size:50}") int batchMaxSize,
+                            @Value("${card.bank-account.batch.window:5ms}") Duration batchWindow,
+                            @Value("${card.bank-account.batch.concurrency:4}") int batchConcurrency,
+                            @Value("${card.logging.sample.every:100}") int logSampleEvery) {
+        this.webClient = webClient;
+        this.bankAccountCache = bankAccountCache;
+        this.bankAccountResilience = bankAccountResilience;
+        this.methodMetrics = methodMetrics;
+        this.batchPath = batchPath;
+        this.requestLogs = new LogSampler(logSampleEvery);
+        this.batchLoader = batchEnabled
+                ? new BatchLoader<>(this::fetchBankAccountsByIds, this::fetchBankAccountById,
+                BankAccountProxy::isBatchUnsupported, batchMaxSize, batchWindow, batchConcurrency)
+                : null;
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (batchLoader != null) {
+            batchLoader.dispose();
+        }
+    }
+
+    /**
+     * This method returns the bank account through the bank account cache
+     *
+     * @param id bank account id
+     * @return bank account
+     */
     public Mono<BankAccountResponse> getBankAccountById(String id) {
-        LOGGER.info("[REQUEST][URL][getBankAccountById]:" + accountURL + "/" + id);
-        return webClient.get()
-                .uri(accountURL + "/" + id)
-                .accept(MediaType.APPLICATION_JSON)
-                .retrieve()
-                .bodyToMono(BankAccountResponse.class)
-                .onErrorResume(e -> {
-                    LOGGER.error("[" + getClass().getName() + "][getBankAccountById]" + e);
-                    return Mono.error(CustomException.badRequest("The request to proxy bank account is invalid"));
-                });
+        return bankAccountCache.findById(id, batchLoader != null ? batchLoader::load : this::fetchBankAccountById)
+                .transform(m -> methodMetrics.time(COMPONENT, "getBankAccountById", m));
+    }
+
+    private Mono<Map<String, BankAccountResponse>> fetchBankAccountsByIds(List<String> ids) {
+        return Mono.deferContextual(ctx -> {
+            if (requestLogs.sample()) {
+                Correlation.log(ctx, () -> LOGGER.info("[getBankAccountsByIds] POST {}{} {} ids, 1 in {} logged",
+                        accountURL, batchPath, ids.size(), requestLogs.getEvery()));
+            }
+            return bankAccountResilience.read(() -> webClient.post()
+                            .uri(accountURL + batchPath)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .accept(MediaType.APPLICATION_JSON)
+                            .bodyValue(ids)
+                            .retrieve()
+                            .bodyToFlux(BankAccountResponse.class)
+                            .collectMap(BankAccountResponse::getId))
+                    .onErrorResume(e -> {
+                        if (isBatchUnsupported(e)) {
+                            Correlation.log(ctx, () -> LOGGER.warn("[getBankAccountsByIds] no batch endpoint, "
+                                    + "reading the bank accounts one by one: {}", e.toString()));
+                            return Mono.error(e);
+                        }
+                        Correlation.log(ctx, () -> LOGGER.error("[getBankAccountsByIds] {}", e.toString()));
+                        return Mono.error(toProxyException(e));
+                    });
+        });
+    }
+
+    private Mono<BankAccountResponse> fetchBankAccountById(String id) {
+        return Mono.deferContextual(ctx -> {
+            if (requestLogs.sample()) {
+                Correlation.log(ctx, () -> LOGGER.info("[getBankAccountById] GET {}/{}, 1 in {} logged",
+                        accountURL, id, requestLogs.getEvery()));
+            }
+            return bankAccountResilience.read(() -> webClient.get()
+                            .uri(accountURL + "/{id}", id)
+                            .accept(MediaType.APPLICATION_JSON)
+                            .retrieve()
+                            .bodyToMono(BankAccountResponse.class))
+                    .onErrorResume(e -> {
+                        Correlation.log(ctx, () -> LOGGER.error("[getBankAccountById] {}", e.toString()));
+                        return Mono.error(toProxyException(e));
+                    });
+        });
     }
 
+    /**
+     * This method updates a bank account; the request line is sampled and the body is logged at DEBUG only
+     *
+     * @param id      bank account id
+     * @param request update
+     * @return bank account updated
+     */
     public Mono<BankAccountResponse> bankAccountUpdate(String id, BankAccountRequest request) {
-        LOGGER.info("[REQUEST][URL][bankAccountUpdate]" + accountURL + "/" + id);
-        LOGGER.info("[REQUEST][BODY][bankAccountUpdate]" + request.toString());
-        return webClient.put()
-                .uri(accountURL + "/" + id)
-                .accept(MediaType.APPLICATION_JSON)
-                .body(Mono.just(request), BankAccountRequest.class)
-                .retrieve()
-                .bodyToMono(BankAccountResponse.class)
-                .onErrorResume(e -> {
-                    LOGGER.error("[" + getClass().getName() + "][bankAccountUpdate]" + e);
-                    return Mono.error(CustomException.badRequest("The request to proxy bank account is invalid"));
-                });
+        return Mono.deferContextual(ctx -> {
+            if (requestLogs.sample()) {
+                Correlation.log(ctx, () -> LOGGER.info("[bankAccountUpdate] PUT {}/{}, 1 in {} logged",
+                        accountURL, id, requestLogs.getEvery()));
+            }
+            if (LOGGER.isDebugEnabled()) {
+                Correlation.log(ctx, () -> LOGGER.debug("[bankAccountUpdate] {}", request));
+            }
+            return bankAccountResilience.write(() -> webClient.put()
+                            .uri(accountURL + "/{id}", id)
+                            .accept(MediaType.APPLICATION_JSON)
+                            .body(Mono.just(request), BankAccountRequest.class)
+                            .retrieve()
+                            .bodyToMono(BankAccountResponse.class))
+                    .doOnSuccess(r -> bankAccountCache.invalidate(id))
+                    .onErrorResume(e -> {
+                        Correlation.log(ctx, () -> LOGGER.error("[bankAccountUpdate] {}", e.toString()));
+                        return Mono.error(toProxyException(e));
+                    });
+        }).transform(m -> methodMetrics.time(COMPONENT, "bankAccountUpdate", m));
+    }
+
+    /**
+     * A bank account service without the batch endpoint answers with 404, 405 or 501
+     */
+    private static boolean isBatchUnsupported(Throwable e) {
+        if (!(e instanceof WebClientResponseException)) {
+            return false;
+        }
+        HttpStatus status = ((WebClientResponseException) e).getStatusCode();
+        return status == HttpStatus.NOT_FOUND || status == HttpStatus.METHOD_NOT_ALLOWED
+                || status == HttpStatus.NOT_IMPLEMENTED;
+    }
+
+    /**
+     * An open circuit, a full bulkhead or a spent budget is reported as unavailable, without waiting for the service;
+     * a bank account the service does not have is reported as not found
+     */
+    private static ResponseStatusException toProxyException(Throwable e) {
+        if (e instanceof CallNotPermittedException || e instanceof BulkheadFullException || e instanceof TimeoutException) {
+            return CustomException.serviceUnavailable("The bank account service is unavailable");
+        }
+        if (e instanceof WebClientResponseException.NotFound) {
+            return CustomException.notFound("Bank account not found");
+        }
+        return CustomException.badRequest("The request to proxy bank account is invalid");
     }
 
 }
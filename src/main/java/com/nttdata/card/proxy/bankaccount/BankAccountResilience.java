@@ -0,0 +1,130 @@
+package com.nttdata.card.proxy.bankaccount;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.github.resilience4j.reactor.bulkhead.operator.BulkheadOperator;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * This class guards the calls to the bank account service. Every operation has its own deadline budget, and all of
+ * them share a bulkhead, which bounds the calls in flight, and a circuit breaker, which fails fast while the service
+ * is failing or slow. Reads may also be hedged: a second request is sent when the first is slower than the hedge
+ * delay, and the first response wins.
+ *
+ * @author Alcibar Vasquez
+ * @version 1.0
+ */
+@Component
+public class BankAccountResilience {
+
+    public static final String NAME = "bank-account";
+
+    private final Duration readTimeout;
+
+    private final Duration writeTimeout;
+
+    private final boolean hedgeEnabled;
+
+    private final Duration hedgeDelay;
+
+    private final Bulkhead bulkhead;
+
+    private final CircuitBreaker circuitBreaker;
+
+    public BankAccountResilience(@Value("${card.bank-account.read-timeout:2s}") Duration readTimeout,
+                                 @Value("${card.bank-account.write-timeout:3s}") Duration writeTimeout,
+                                 @Value("${card.bank-account.bulkhead.max-concurrent-calls:25}") int maxConcurrentCalls,
+                                 @Value("${card.bank-account.bulkhead.max-wait:0ms}") Duration maxWait,
+                                 @Value("${card.bank-account.circuit-breaker.failure-rate-threshold:50}") float failureRateThreshold,
+                                 @Value("${card.bank-account.circuit-breaker.slow-call-duration:1s}") Duration slowCallDuration,
+                                 @Value("${card.bank-account.circuit-breaker.slow-call-rate-threshold:80}") float slowCallRateThreshold,
+                                 @Value("${card.bank-account.circuit-breaker.sliding-window-size:20}") int slidingWindowSize,
+                                 @Value("${card.bank-account.circuit-breaker.minimum-calls:10}") int minimumCalls,
+                                 @Value("${card.bank-account.circuit-breaker.open-duration:10s}") Duration openDuration,
+                                 @Value("${card.bank-account.hedge.enabled:false}") boolean hedgeEnabled,
+                                 @Value("${card.bank-account.hedge.delay:300ms}") Duration hedgeDelay,
+                                 MeterRegistry meterRegistry) {
+        this.readTimeout = readTimeout;
+        this.writeTimeout = writeTimeout;
+        this.hedgeEnabled = hedgeEnabled;
+        this.hedgeDelay = hedgeDelay;
+        BulkheadRegistry bulkheadRegistry = BulkheadRegistry.of(BulkheadConfig.custom()
+                .maxConcurrentCalls(maxConcurrentCalls)
+                .maxWaitDuration(maxWait)
+                .build());
+        CircuitBreakerRegistry circuitBreakerRegistry = CircuitBreakerRegistry.of(CircuitBreakerConfig.custom()
+                .failureRateThreshold(failureRateThreshold)
+                .slowCallDurationThreshold(slowCallDuration)
+                .slowCallRateThreshold(slowCallRateThreshold)
+                .slidingWindowSize(slidingWindowSize)
+                .minimumNumberOfCalls(minimumCalls)
+                .waitDurationInOpenState(openDuration)
+                .permittedNumberOfCallsInHalfOpenState(Math.max(1, minimumCalls / 2))
+                // a full bulkhead is our own back pressure and a missing bank account an answer, not failures of the service
+                .ignoreExceptions(BulkheadFullException.class, WebClientResponseException.NotFound.class)
+                .build());
+        this.bulkhead = bulkheadRegistry.bulkhead(NAME);
+        this.circuitBreaker = circuitBreakerRegistry.circuitBreaker(NAME);
+        TaggedBulkheadMetrics.ofBulkheadRegistry(bulkheadRegistry).bindTo(meterRegistry);
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(circuitBreakerRegistry).bindTo(meterRegistry);
+    }
+
+    /**
+     * This method guards an idempotent read, hedged when {@code card.bank-account.hedge.enabled}
+     *
+     * @param call request, subscribed once per attempt
+     * @param <T>  response type
+     * @return response within the read budget
+     */
+    public <T> Mono<T> read(Supplier<Mono<T>> call) {
+        Mono<T> attempt = Mono.defer(call);
+        Mono<T> hedged = hedgeEnabled
+                ? Mono.firstWithValue(attempt, Mono.delay(hedgeDelay).then(attempt))
+                : attempt;
+        return guard(hedged, readTimeout);
+    }
+
+    /**
+     * This method guards a write, which is never sent twice
+     *
+     * @param call request
+     * @param <T>  response type
+     * @return response within the write budget
+     */
+    public <T> Mono<T> write(Supplier<Mono<T>> call) {
+        return guard(Mono.defer(call), writeTimeout);
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public Bulkhead getBulkhead() {
+        return bulkhead;
+    }
+
+    /**
+     * The breaker is checked first, so an open circuit neither takes a bulkhead permit nor waits for the budget
+     */
+    private <T> Mono<T> guard(Mono<T> call, Duration budget) {
+        return call.timeout(budget)
+                .transformDeferred(BulkheadOperator.of(bulkhead))
+                .transformDeferred(CircuitBreakerOperator.of(circuitBreaker));
+    }
+
+}
@@ -0,0 +1,19 @@
+package com.nttdata.card.repository;
+
+import com.nttdata.card.model.CardBankSummary;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+/**
+ * This interface defines the repository of the bank summaries of the cards
+ *
+ * @author Alcibar Vasquez
+ * @version 1.0
+ */
+@Repository
+public interface ICardBankSummaryRepository extends ReactiveMongoRepository<CardBankSummary, String>, ICardBankSummaryRepositoryCustom {
+
+    Flux<CardBankSummary> findByCardCountGreaterThanOrderByIdAsc(long cardCount);
+
+}
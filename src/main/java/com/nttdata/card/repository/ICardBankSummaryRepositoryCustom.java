@@ -0,0 +1,20 @@
+package com.nttdata.card.repository;
+
+import com.nttdata.card.model.CardBankSummaryEntry;
+import reactor.core.publisher.Mono;
+
+import java.util.Date;
+
+/**
+ * This interface defines the operations of the bank summaries repository written with the template
+ *
+ * @author Alcibar Vasquez
+ * @version 1.0
+ */
+public interface ICardBankSummaryRepositoryCustom {
+
+    Mono<Void> sync(String cardId, CardBankSummaryEntry entry, Date now);
+
+    Mono<Long> rebuild(int concurrency, Date now);
+
+}
@@ -0,0 +1,184 @@
+package com.nttdata.card.repository;
+
+import com.mongodb.MongoNamespace;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.RenameCollectionOptions;
+import com.mongodb.reactivestreams.client.MongoCollection;
+import com.mongodb.reactivestreams.client.MongoDatabase;
+import com.nttdata.card.config.MongoConfig;
+import com.nttdata.card.model.Card;
+import com.nttdata.card.model.CardBankSummary;
+import com.nttdata.card.model.CardBankSummaryEntry;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * This class implements the operations of the bank summaries repository written with the template
+ *
+ * @author Alcibar Vasquez
+ * @version 1.0
+ */
+public class ICardBankSummaryRepositoryCustomImpl implements ICardBankSummaryRepositoryCustom {
+
+    private static final String ID = "_id";
+
+    private static final String BANK_NAME = "bank_name";
+
+    private static final String CURRENCY = "currency";
+
+    private static final String BALANCE = "balance";
+
+    private static final String EXPIRATION_DATE = "expiration_date";
+
+    private static final String EXPIRATION_MONTH = "expiration_month";
+
+    private static final String REBUILD_SUFFIX = "_rebuild";
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+    public ICardBankSummaryRepositoryCustomImpl(ReactiveMongoTemplate reactiveMongoTemplate) {
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+    }
+
+    /**
+     * This method swaps the entry of a card and adds the difference to the summaries of its banks.
+     * Both writes must share a transaction, otherwise a failure between them leaves the summary behind the entries.
+     *
+     * @param cardId card id
+     * @param entry  new entry, null when the card is in no summary
+     * @param now    update time
+     * @return completion
+     */
+    @Override
+    public Mono<Void> sync(String cardId, CardBankSummaryEntry entry, Date now) {
+        Query card = Query.query(Criteria.where(ID).is(cardId));
+        Mono<CardBankSummaryEntry> previous = entry == null
+                ? reactiveMongoTemplate.findAndRemove(card, CardBankSummaryEntry.class)
+                : reactiveMongoTemplate.findAndReplace(card, entry, FindAndReplaceOptions.options().upsert());
+        return previous
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .flatMapMany(p -> Flux.fromIterable(CardBankSummary.increments(p.orElse(null), entry).entrySet()))
+                .concatMap(bank -> {
+                    Update update = new Update().set(CardBankSummary.UPDATED_AT, now);
+                    bank.getValue().forEach(update::inc);
+                    return reactiveMongoTemplate.upsert(Query.query(Criteria.where(ID).is(bank.getKey())), update,
+                            CardBankSummary.class);
+                })
+                .then();
+    }
+
+    /**
+     * This method rebuilds the entries and the summaries from the cards, with one aggregation per bank and
+     * {@code concurrency} banks at a time. The new collections are built aside and renamed over the current ones,
+     * so readers see the old summaries until the new ones are complete.
+     *
+     * @param concurrency banks aggregated at a time
+     * @param now         update time
+     * @return banks summarized
+     */
+    @Override
+    public Mono<Long> rebuild(int concurrency, Date now) {
+        String entriesName = reactiveMongoTemplate.getCollectionName(CardBankSummaryEntry.class);
+        String summaryName = reactiveMongoTemplate.getCollectionName(CardBankSummary.class);
+        return reactiveMongoTemplate.getMongoDatabase().flatMap(database -> {
+            MongoCollection<Document> cards = database.getCollection(reactiveMongoTemplate.getCollectionName(Card.class));
+            MongoCollection<Document> entries = database.getCollection(entriesName + REBUILD_SUFFIX);
+            MongoCollection<Document> summaries = database.getCollection(summaryName + REBUILD_SUFFIX);
+            return Mono.from(entries.drop())
+                    .then(Mono.from(summaries.drop()))
+                    .then(Mono.from(database.createCollection(entries.getNamespace().getCollectionName())))
+                    .then(Mono.from(database.createCollection(summaries.getNamespace().getCollectionName())))
+                    .then(Mono.from(entries.createIndex(Indexes.ascending(BANK_NAME), new IndexOptions().name(BANK_NAME))))
+                    .thenMany(Flux.from(cards.distinct(BANK_NAME, Filters.ne(BANK_NAME, null), String.class)))
+                    .flatMap(bank -> Mono.from(cards.aggregate(entriesOf(bank, entries)).toCollection())
+                            .then(Mono.from(entries.aggregate(summaryOf(bank, now, summaries)).toCollection()))
+                            .thenReturn(bank), concurrency)
+                    .count()
+                    .flatMap(banks -> replace(database, entries, entriesName)
+                            .then(replace(database, summaries, summaryName))
+                            .thenReturn(banks));
+        });
+    }
+
+    private static Mono<Void> replace(MongoDatabase database, MongoCollection<Document> source, String target) {
+        return Mono.from(source.renameCollection(new MongoNamespace(database.getName(), target),
+                new RenameCollectionOptions().dropTarget(true)));
+    }
+
+    /**
+     * The entries of the cards of a bank, as {@link CardBankSummaryEntry#of} builds them
+     */
+    private static List<Document> entriesOf(String bank, MongoCollection<Document> into) {
+        return Arrays.asList(
+                new Document("$match", new Document(BANK_NAME, bank)),
+                new Document("$project", new Document(BANK_NAME, 1)
+                        .append(CURRENCY, "$" + BALANCE + "." + MongoConfig.MONEY_CURRENCY)
+                        .append(BALANCE, new Document("$ifNull",
+                                Arrays.asList("$" + BALANCE + "." + MongoConfig.MONEY_AMOUNT, 0L)))
+                        .append(EXPIRATION_MONTH, new Document("$dateToString",
+                                new Document("format", CardBankSummaryEntry.MONTH_FORMAT)
+                                        .append("date", "$" + EXPIRATION_DATE)))),
+                merge(into));
+    }
+
+    /**
+     * The summary of a bank from the entries of its cards
+     */
+    private static List<Document> summaryOf(String bank, Date now, MongoCollection<Document> into) {
+        Document facets = new Document(CardBankSummary.CARD_COUNT,
+                Collections.singletonList(new Document("$count", CardBankSummary.COUNT)))
+                .append(CardBankSummary.BALANCES, Arrays.asList(
+                        new Document("$match", new Document(CURRENCY, new Document("$ne", null))),
+                        new Document("$group", new Document(ID, "$" + CURRENCY)
+                                .append(CardBankSummary.COUNT, new Document("$sum", 1))
+                                .append(CardBankSummary.TOTAL, new Document("$sum", "$" + BALANCE)))))
+                .append(CardBankSummary.EXPIRING, Arrays.asList(
+                        new Document("$match", new Document(EXPIRATION_MONTH, new Document("$ne", null))),
+                        new Document("$group", new Document(ID, "$" + EXPIRATION_MONTH)
+                                .append(CardBankSummary.COUNT, new Document("$sum", 1)))));
+        return Arrays.asList(
+                new Document("$match", new Document(BANK_NAME, bank)),
+                new Document("$facet", facets),
+                new Document("$project", new Document(ID, new Document("$literal", bank))
+                        .append(CardBankSummary.CARD_COUNT, new Document("$ifNull", Arrays.asList(
+                                new Document("$arrayElemAt", Arrays.asList(
+                                        "$" + CardBankSummary.CARD_COUNT + "." + CardBankSummary.COUNT, 0)), 0)))
+                        .append(CardBankSummary.BALANCES, toObject(CardBankSummary.BALANCES,
+                                new Document(CardBankSummary.COUNT, "$$this." + CardBankSummary.COUNT)
+                                        .append(CardBankSummary.TOTAL, "$$this." + CardBankSummary.TOTAL)))
+                        .append(CardBankSummary.EXPIRING, toObject(CardBankSummary.EXPIRING,
+                                "$$this." + CardBankSummary.COUNT))
+                        .append(CardBankSummary.UPDATED_AT, new Document("$literal", now))),
+                merge(into));
+    }
+
+    /**
+     * Turns the groups of a facet into an object keyed by the group id
+     */
+    private static Document toObject(String facet, Object value) {
+        return new Document("$arrayToObject", new Document("$map", new Document("input", "$" + facet)
+                .append("in", new Document("k", "$$this." + ID).append("v", value))));
+    }
+
+    private static Document merge(MongoCollection<Document> into) {
+        return new Document("$merge", new Document("into", into.getNamespace().getCollectionName())
+                .append("whenMatched", "replace")
+                .append("whenNotMatched", "insert"));
+    }
+
+}
@@ -1,10 +1,17 @@
 package com.nttdata.card.repository;
 
 import com.nttdata.card.model.Card;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
 import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.Date;
+
 /**
  * This interface defines the repository for bank account charges
  *
@@ -12,8 +19,32 @@ import reactor.core.publisher.Mono;
  * @version 1.0
  */
 @Repository
-public interface ICardRepository extends ReactiveMongoRepository<Card, String> {
+public interface ICardRepository extends ReactiveMongoRepository<Card, String>, ICardRepositoryCustom {
 
     Mono<Card> findByCci(String name);
 
+    /**
+     * Deletes a card, unlike {@code deleteById} telling whether it existed
+     *
+     * @param id card id
+     * @return number of cards removed
+     */
+    Mono<Long> removeById(String id);
+
+    Flux<Card> findAllBy(Pageable pageable);
+
+    Flux<Card> findByIdGreaterThan(String id, Pageable pageable);
+
+    Flux<Card> findByIdGreaterThan(String id, Sort sort);
+
+    @Query("{ '$or': [ { 'created_at': { '$gt': ?0 } }, { 'created_at': ?0, '_id': { '$gt': ?1 } } ] }")
+    Flux<Card> findAfterCreatedAt(Date createdAt, ObjectId id, Pageable pageable);
+
+    /**
+     * Cards after a card without created_at: the rest of the cards without it, then every card with it, as
+     * ascending sorts put a missing field first
+     */
+    @Query("{ '$or': [ { 'created_at': null, '_id': { '$gt': ?0 } }, { 'created_at': { '$ne': null } } ] }")
+    Flux<Card> findAfterMissingCreatedAt(ObjectId id, Pageable pageable);
+
 }
@@ -0,0 +1,50 @@
+package com.nttdata.card.repository;
+
+import com.nttdata.card.enums.CardField;
+import com.nttdata.card.model.BalanceDelta;
+import com.nttdata.card.model.Card;
+import com.nttdata.card.model.Money;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * This interface defines the operations of the card repository written with the template
+ *
+ * @author Alcibar Vasquez
+ * @version 1.0
+ */
+public interface ICardRepositoryCustom {
+
+    Flux<Card> findAll(Set<CardField> fields);
+
+    Mono<Card> findById(String id, Set<CardField> fields);
+
+    Mono<Card> findByCci(String cci, Set<CardField> fields);
+
+    Mono<Map<Integer, String>> insertAllUnordered(List<Card> cards);
+
+    Mono<Card> replaceIfVersion(Card card);
+
+    Mono<Card> applyPatch(String id, Map<CardField, Object> set, Set<CardField> unset, Date updatedAt);
+
+    Mono<Card> setBalance(String id, Money balance, Date updatedAt);
+
+    Mono<Card> incrementBalance(String id, long delta, boolean allowNegative, Date updatedAt);
+
+    Mono<Tuple2<Long, Map<Integer, String>>> applyBalanceDeltas(List<BalanceDelta> deltas, String batchToken, Date updatedAt);
+
+    Flux<Document> findBalanceDeltaState(List<BalanceDelta> deltas);
+
+    Flux<RawBsonDocument> findAllRaw();
+
+    Mono<RawBsonDocument> findRawById(String id);
+
+}
@@ -0,0 +1,281 @@
+package com.nttdata.card.repository;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.InsertOneModel;
+import com.mongodb.client.model.PushOptions;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
+import com.nttdata.card.config.MongoConfig;
+import com.nttdata.card.enums.CardField;
+import com.nttdata.card.model.BalanceDelta;
+import com.nttdata.card.model.Card;
+import com.nttdata.card.model.Money;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * This class implements the operations of the card repository written with the template
+ *
+ * @author Alcibar Vasquez
+ * @version 1.0
+ */
+public class ICardRepositoryCustomImpl implements ICardRepositoryCustom {
+
+    public static final String APPLIED_DELTA_REFS = "applied_delta_refs";
+
+    public static final String LAST_DELTA_BATCH = "last_delta_batch";
+
+    private static final String VERSION = "version";
+
+    private static final String BALANCE = "balance";
+
+    private static final String BALANCE_AMOUNT = BALANCE + "." + MongoConfig.MONEY_AMOUNT;
+
+    private static final String UPDATED_AT = "updatedAt";
+
+    private static final FindAndModifyOptions RETURN_NEW = FindAndModifyOptions.options().returnNew(true);
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+    /**
+     * How many idempotency refs are remembered per card
+     */
+    private final int deltaRefsWindow;
+
+    public ICardRepositoryCustomImpl(ReactiveMongoTemplate reactiveMongoTemplate,
+                                     @Value("${card.balance-deltas.refs-window:1000}") int deltaRefsWindow) {
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+        this.deltaRefsWindow = deltaRefsWindow;
+    }
+
+    @Override
+    public Flux<Card> findAll(Set<CardField> fields) {
+        return reactiveMongoTemplate.find(project(new Query(), fields), Card.class);
+    }
+
+    @Override
+    public Mono<Card> findById(String id, Set<CardField> fields) {
+        return reactiveMongoTemplate.findOne(project(Query.query(Criteria.where("id").is(id)), fields), Card.class);
+    }
+
+    @Override
+    public Mono<Card> findByCci(String cci, Set<CardField> fields) {
+        return reactiveMongoTemplate.findOne(project(Query.query(Criteria.where("cci").is(cci)), fields), Card.class);
+    }
+
+    /**
+     * This method inserts the cards with one unordered bulk write.
+     * Ids are assigned before the write, so every card carries its id when this completes.
+     *
+     * @param cards cards to insert
+     * @return write error by position of the card, empty when every card was inserted
+     */
+    @Override
+    public Mono<Map<Integer, String>> insertAllUnordered(List<Card> cards) {
+        List<InsertOneModel<Document>> inserts = new ArrayList<>(cards.size());
+        for (Card card : cards) {
+            if (card.getId() == null) {
+                card.setId(new ObjectId().toHexString());
+            }
+            Document document = new Document();
+            reactiveMongoTemplate.getConverter().write(card, document);
+            inserts.add(new InsertOneModel<>(document));
+        }
+        return reactiveMongoTemplate.getCollection(reactiveMongoTemplate.getCollectionName(Card.class))
+                .flatMap(c -> Mono.from(c.bulkWrite(inserts, new BulkWriteOptions().ordered(false))))
+                .map(r -> Collections.<Integer, String>emptyMap())
+                .onErrorResume(MongoBulkWriteException.class, e -> Mono.just(e.getWriteErrors().stream()
+                        .collect(Collectors.toMap(BulkWriteError::getIndex, BulkWriteError::getMessage))));
+    }
+
+    /**
+     * This method writes the card only if nobody changed it since it was read, bumping its version.
+     * Documents written before versioning have no version and match a null version.
+     *
+     * @param card card read and modified
+     * @return card written, or OptimisticLockingFailureException when the version changed
+     */
+    @Override
+    public Mono<Card> replaceIfVersion(Card card) {
+        Document fields = new Document();
+        reactiveMongoTemplate.getConverter().write(card, fields);
+        fields.remove("_id");
+        fields.remove(VERSION);
+        Update update = new Update().inc(VERSION, 1);
+        fields.forEach(update::set);
+        Query query = Query.query(Criteria.where("id").is(card.getId()).and(VERSION).is(card.getVersion()));
+        return reactiveMongoTemplate.findAndModify(query, update, RETURN_NEW, Card.class)
+                .switchIfEmpty(Mono.error(() -> new OptimisticLockingFailureException(
+                        "Card " + card.getId() + " was modified after version " + card.getVersion())));
+    }
+
+    /**
+     * This method applies a merge patch with one server-side update, which only touches the fields of the patch
+     *
+     * @param id        card id
+     * @param set       fields to set, with their values
+     * @param unset     fields to remove
+     * @param updatedAt update date
+     * @return card updated, empty when it does not exist
+     */
+    @Override
+    public Mono<Card> applyPatch(String id, Map<CardField, Object> set, Set<CardField> unset, Date updatedAt) {
+        Update update = new Update();
+        set.forEach((field, value) -> update.set(field.getProperty(), value));
+        unset.forEach(field -> update.unset(field.getProperty()));
+        update.set(UPDATED_AT, updatedAt).inc(VERSION, 1);
+        return reactiveMongoTemplate.findAndModify(Query.query(Criteria.where("id").is(id)), update, RETURN_NEW, Card.class);
+    }
+
+    /**
+     * This method sets the balance with one server-side update
+     *
+     * @param id        card id
+     * @param balance   new balance
+     * @param updatedAt update date
+     * @return card updated, empty when it does not exist
+     */
+    @Override
+    public Mono<Card> setBalance(String id, Money balance, Date updatedAt) {
+        Update update = new Update().set(BALANCE, balance).set(UPDATED_AT, updatedAt).inc(VERSION, 1);
+        return reactiveMongoTemplate.findAndModify(Query.query(Criteria.where("id").is(id)), update, RETURN_NEW, Card.class);
+    }
+
+    /**
+     * This method adds a delta to the balance with one server-side update.
+     * Without {@code allowNegative}, a debit only matches while the balance covers it.
+     *
+     * @param id            card id
+     * @param delta         minor units to add, negative for a debit
+     * @param allowNegative whether the balance may end below zero
+     * @param updatedAt     update date
+     * @return card updated, empty when it does not exist or the balance does not cover the debit
+     */
+    @Override
+    public Mono<Card> incrementBalance(String id, long delta, boolean allowNegative, Date updatedAt) {
+        Criteria criteria = Criteria.where("id").is(id);
+        if (delta < 0 && !allowNegative) {
+            criteria = criteria.and(BALANCE_AMOUNT).gte(-delta);
+        }
+        Update update = new Update().inc(BALANCE_AMOUNT, delta).set(UPDATED_AT, updatedAt).inc(VERSION, 1);
+        return reactiveMongoTemplate.findAndModify(Query.query(criteria), update, RETURN_NEW, Card.class);
+    }
+
+    /**
+     * This method applies the deltas with one unordered bulk write of {@code $inc} updates.
+     * A delta with refs only matches while none of them was applied to the card, so the caller leaves out the refs
+     * it read as applied and retries the cards that applied one meanwhile; the update records the refs
+     * in a bounded window of the card; every applied update also stamps the batch token.
+     *
+     * @param deltas     coalesced deltas, one per card
+     * @param batchToken unique token of this write
+     * @param updatedAt  update date
+     * @return number of cards matched, and write error by position of the delta, empty when no update failed
+     */
+    @Override
+    public Mono<Tuple2<Long, Map<Integer, String>>> applyBalanceDeltas(List<BalanceDelta> deltas, String batchToken, Date updatedAt) {
+        List<WriteModel<Document>> updates = new ArrayList<>(deltas.size());
+        for (BalanceDelta delta : deltas) {
+            Bson filter = keyFilter(delta);
+            List<Bson> changes = new ArrayList<>(4);
+            changes.add(Updates.inc(BALANCE_AMOUNT, delta.getDelta()));
+            changes.add(Updates.inc(VERSION, 1));
+            changes.add(Updates.set("updated_at", updatedAt));
+            changes.add(Updates.set(LAST_DELTA_BATCH, batchToken));
+            if (!delta.getRefs().isEmpty()) {
+                filter = Filters.and(filter, Filters.nin(APPLIED_DELTA_REFS, delta.getRefs()));
+                changes.add(Updates.pushEach(APPLIED_DELTA_REFS, delta.getRefs(), new PushOptions().slice(-deltaRefsWindow)));
+            }
+            updates.add(new UpdateOneModel<>(filter, Updates.combine(changes)));
+        }
+        return reactiveMongoTemplate.getCollection(reactiveMongoTemplate.getCollectionName(Card.class))
+                .flatMap(c -> Mono.from(c.bulkWrite(updates, new BulkWriteOptions().ordered(false))))
+                .map(r -> Tuples.of((long) r.getMatchedCount(), Collections.<Integer, String>emptyMap()))
+                // the other updates of an unordered write are committed: report only the ones that failed
+                .onErrorResume(MongoBulkWriteException.class, e -> Mono.just(Tuples.of(
+                        (long) e.getWriteResult().getMatchedCount(),
+                        e.getWriteErrors().stream().collect(Collectors.toMap(BulkWriteError::getIndex, BulkWriteError::getMessage)))));
+    }
+
+    /**
+     * This method reads the id, cci, applied refs and last batch token of the cards of the deltas
+     *
+     * @param deltas deltas
+     * @return documents of the cards found
+     */
+    @Override
+    public Flux<Document> findBalanceDeltaState(List<BalanceDelta> deltas) {
+        List<Bson> keys = deltas.stream().map(ICardRepositoryCustomImpl::keyFilter).collect(Collectors.toList());
+        return reactiveMongoTemplate.getCollection(reactiveMongoTemplate.getCollectionName(Card.class))
+                .flatMapMany(c -> c.find(Filters.or(keys))
+                        .projection(Projections.include("cci", APPLIED_DELTA_REFS, LAST_DELTA_BATCH)));
+    }
+
+    /**
+     * This method reads the cards as undecoded BSON, for the responses written straight from it
+     *
+     * @return cards, in natural order
+     */
+    @Override
+    public Flux<RawBsonDocument> findAllRaw() {
+        return reactiveMongoTemplate.getCollection(reactiveMongoTemplate.getCollectionName(Card.class))
+                .flatMapMany(c -> c.withDocumentClass(RawBsonDocument.class).find());
+    }
+
+    /**
+     * This method reads a card as undecoded BSON
+     *
+     * @param id card id
+     * @return card, empty when it does not exist
+     */
+    @Override
+    public Mono<RawBsonDocument> findRawById(String id) {
+        Object key = ObjectId.isValid(id) ? new ObjectId(id) : id;
+        return reactiveMongoTemplate.getCollection(reactiveMongoTemplate.getCollectionName(Card.class))
+                .flatMap(c -> Mono.from(c.withDocumentClass(RawBsonDocument.class).find(Filters.eq("_id", key)).first()));
+    }
+
+    private static Bson keyFilter(BalanceDelta delta) {
+        return delta.getCardId() != null
+                ? Filters.eq("_id", new ObjectId(delta.getCardId()))
+                : Filters.eq("cci", delta.getCci());
+    }
+
+    /**
+     * The projection is sent to the server, so only the requested fields are read and transferred
+     */
+    private static Query project(Query query, Set<CardField> fields) {
+        fields.forEach(f -> query.fields().include(f.getProperty()));
+        if (!fields.contains(CardField.ID)) {
+            query.fields().exclude(CardField.ID.getProperty());
+        }
+        return query;
+    }
+
+}
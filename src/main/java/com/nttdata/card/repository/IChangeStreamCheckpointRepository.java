@@ -0,0 +1,15 @@
+package com.nttdata.card.repository;
+
+import com.nttdata.card.model.ChangeStreamCheckpoint;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * This interface defines the repository of the change stream checkpoints
+ *
+ * @author Alcibar Vasquez
+ * @version 1.0
+ */
+@Repository
+public interface IChangeStreamCheckpointRepository extends ReactiveMongoRepository<ChangeStreamCheckpoint, String> {
+}
@@ -0,0 +1,15 @@
+package com.nttdata.card.repository;
+
+import com.nttdata.card.model.OutboxMessage;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * This interface defines the repository of the outbox messages
+ *
+ * @author Alcibar Vasquez
+ * @version 1.0
+ */
+@Repository
+public interface IOutboxRepository extends ReactiveMongoRepository<OutboxMessage, String>, IOutboxRepositoryCustom {
+}
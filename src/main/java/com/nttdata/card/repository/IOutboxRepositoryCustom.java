@@ -0,0 +1,23 @@
+package com.nttdata.card.repository;
+
+import com.nttdata.card.model.OutboxMessage;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Date;
+
+/**
+ * This interface defines the operations of the outbox repository written with the template
+ *
+ * @author Alcibar Vasquez
+ * @version 1.0
+ */
+public interface IOutboxRepositoryCustom {
+
+    Flux<OutboxMessage> claim(int limit, Date now, Date leaseUntil);
+
+    Mono<Boolean> markSent(OutboxMessage message, Date now);
+
+    Mono<Boolean> markRetry(OutboxMessage message, Date nextAttemptAt, String error, boolean giveUp);
+
+}
@@ -0,0 +1,161 @@
+package com.nttdata.card.repository;
+
+import com.mongodb.client.result.UpdateResult;
+import com.nttdata.card.enums.OutboxStatus;
+import com.nttdata.card.model.OutboxMessage;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * This class implements the operations of the outbox repository written with the template
+ *
+ * @author Alcibar Vasquez
+ * @version 1.0
+ */
+public class IOutboxRepositoryCustomImpl implements IOutboxRepositoryCustom {
+
+    private static final String ID = "id";
+
+    private static final String STATUS = "status";
+
+    private static final String BANK_ACCOUNT_ID = "bankAccountId";
+
+    private static final String ATTEMPTS = "attempts";
+
+    private static final String NEXT_ATTEMPT_AT = "nextAttemptAt";
+
+    private static final String LEASE_OWNER = "leaseOwner";
+
+    private static final String LAST_ERROR = "lastError";
+
+    private static final String CREATED_AT = "createdAt";
+
+    private static final String SENT_AT = "sentAt";
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+    public IOutboxRepositoryCustomImpl(ReactiveMongoTemplate reactiveMongoTemplate) {
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+    }
+
+    /**
+     * This method claims the due messages until the end of a lease. Relays claiming at the same time get
+     * disjoint messages: the claim only takes the messages still due, under an owner of its own.
+     * A message is only claimed when every older pending message of its bank account is claimed with it, so a
+     * message waiting for its retry, or leased by another relay, holds back the newer messages of its bank account.
+     *
+     * @param limit      most messages claimed
+     * @param now        current time
+     * @param leaseUntil end of the lease
+     * @return messages claimed, oldest first
+     */
+    @Override
+    public Flux<OutboxMessage> claim(int limit, Date now, Date leaseUntil) {
+        String owner = UUID.randomUUID().toString();
+        Query due = Query.query(Criteria.where(STATUS).is(OutboxStatus.PENDING).and(NEXT_ATTEMPT_AT).lte(now))
+                .with(Sort.by(NEXT_ATTEMPT_AT))
+                .limit(limit);
+        due.fields().include(ID).include(BANK_ACCOUNT_ID).include(CREATED_AT);
+        return reactiveMongoTemplate.find(due, OutboxMessage.class)
+                .collectList()
+                .filter(candidates -> !candidates.isEmpty())
+                .flatMap(this::inOrder)
+                .filter(ids -> !ids.isEmpty())
+                .flatMapMany(ids -> reactiveMongoTemplate.updateMulti(
+                                Query.query(Criteria.where(ID).in(ids)
+                                        .and(STATUS).is(OutboxStatus.PENDING)
+                                        .and(NEXT_ATTEMPT_AT).lte(now)),
+                                new Update().set(LEASE_OWNER, owner).set(NEXT_ATTEMPT_AT, leaseUntil),
+                                OutboxMessage.class)
+                        .filter(r -> r.getModifiedCount() > 0)
+                        .flatMapMany(r -> reactiveMongoTemplate.find(
+                                Query.query(Criteria.where(ID).in(ids).and(LEASE_OWNER).is(owner))
+                                        .with(Sort.by(CREATED_AT, ID)),
+                                OutboxMessage.class)));
+    }
+
+    /**
+     * This method leaves out the candidates with an older pending message of their bank account that is not a
+     * candidate too
+     *
+     * @param candidates due messages, with their id, bank account and creation date
+     * @return ids of the candidates that can be delivered in order
+     */
+    private Mono<List<String>> inOrder(List<OutboxMessage> candidates) {
+        Set<String> bankAccountIds = new HashSet<>();
+        List<String> ids = new ArrayList<>(candidates.size());
+        for (OutboxMessage candidate : candidates) {
+            bankAccountIds.add(candidate.getBankAccountId());
+            ids.add(candidate.getId());
+        }
+        Query others = Query.query(Criteria.where(STATUS).is(OutboxStatus.PENDING)
+                .and(BANK_ACCOUNT_ID).in(bankAccountIds)
+                .and(ID).nin(ids));
+        others.with(Sort.by(CREATED_AT, ID)).fields().include(ID).include(BANK_ACCOUNT_ID).include(CREATED_AT);
+        return reactiveMongoTemplate.find(others, OutboxMessage.class)
+                .collect(() -> new HashMap<String, OutboxMessage>(),
+                        (oldest, m) -> oldest.putIfAbsent(m.getBankAccountId(), m))
+                .map(oldest -> {
+                    List<String> claimable = new ArrayList<>(candidates.size());
+                    for (OutboxMessage candidate : candidates) {
+                        OutboxMessage blocker = oldest.get(candidate.getBankAccountId());
+                        if (blocker == null || isOlder(candidate, blocker)) {
+                            claimable.add(candidate.getId());
+                        }
+                    }
+                    return claimable;
+                });
+    }
+
+    private static boolean isOlder(OutboxMessage message, OutboxMessage than) {
+        int byDate = message.getCreatedAt().compareTo(than.getCreatedAt());
+        return byDate < 0 || byDate == 0 && message.getId().compareTo(than.getId()) < 0;
+    }
+
+    /**
+     * @return false when the lease was lost and the message belongs to another relay
+     */
+    @Override
+    public Mono<Boolean> markSent(OutboxMessage message, Date now) {
+        return reactiveMongoTemplate.updateFirst(leased(message),
+                        new Update().set(STATUS, OutboxStatus.SENT).set(SENT_AT, now).unset(LEASE_OWNER),
+                        OutboxMessage.class)
+                .map(UpdateResult::getModifiedCount)
+                .map(count -> count > 0);
+    }
+
+    /**
+     * @return false when the lease was lost and the message belongs to another relay
+     */
+    @Override
+    public Mono<Boolean> markRetry(OutboxMessage message, Date nextAttemptAt, String error, boolean giveUp) {
+        return reactiveMongoTemplate.updateFirst(leased(message),
+                        new Update()
+                                .set(STATUS, giveUp ? OutboxStatus.FAILED : OutboxStatus.PENDING)
+                                .inc(ATTEMPTS, 1)
+                                .set(NEXT_ATTEMPT_AT, nextAttemptAt)
+                                .set(LAST_ERROR, error)
+                                .unset(LEASE_OWNER),
+                        OutboxMessage.class)
+                .map(UpdateResult::getModifiedCount)
+                .map(count -> count > 0);
+    }
+
+    private static Query leased(OutboxMessage message) {
+        return Query.query(Criteria.where(ID).is(message.getId()).and(LEASE_OWNER).is(message.getLeaseOwner()));
+    }
+
+}
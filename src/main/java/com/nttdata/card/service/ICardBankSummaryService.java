@@ -0,0 +1,21 @@
+package com.nttdata.card.service;
+
+import com.nttdata.card.model.CardBankSummary;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * This interface defines the service of the bank summaries of the cards
+ *
+ * @author Alcibar Vasquez
+ * @version 1.0
+ */
+public interface ICardBankSummaryService {
+
+    Flux<CardBankSummary> findAll();
+
+    Mono<CardBankSummary> findByBankName(String bankName);
+
+    Flux<CardBankSummary> rebuild();
+
+}
@@ -1,10 +1,20 @@
 package com.nttdata.card.service;
 
+import com.nttdata.card.dto.request.BalanceDeltaRequest;
+import com.nttdata.card.dto.request.BalanceRequest;
+import com.nttdata.card.dto.request.CardPatchRequest;
 import com.nttdata.card.dto.request.CardRequest;
+import com.nttdata.card.dto.response.BalanceDeltaResponse;
+import com.nttdata.card.dto.response.CardBatchItemResponse;
+import com.nttdata.card.enums.CardField;
 import com.nttdata.card.model.Card;
+import com.nttdata.card.util.PageCursor;
+import org.bson.RawBsonDocument;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.Set;
+
 /**
  * This interface defines the service of bank accounts charges
  *
@@ -15,14 +25,40 @@ public interface ICardService {
 
     Flux<Card> findAll();
 
+    Flux<Card> findPage(PageCursor cursor, int limit);
+
+    Flux<Card> stream(String afterId, int batchSize);
+
     Mono<Card> findById(String id);
 
     Mono<Card> findByCci(String cci);
 
+    Flux<Card> findAll(Set<CardField> fields);
+
+    Mono<Card> findById(String id, Set<CardField> fields);
+
+    Mono<Card> findByCci(String cci, Set<CardField> fields);
+
+    Flux<RawBsonDocument> findAllRaw();
+
+    Mono<RawBsonDocument> findRawById(String id);
+
     Mono<Card> create(CardRequest request);
 
+    Flux<CardBatchItemResponse> createBatch(Flux<CardRequest> requests);
+
     Mono<Card> update(String id, CardRequest request);
 
+    Mono<Card> patch(String id, CardPatchRequest request);
+
+    Mono<Card> setBalance(String id, BalanceRequest request);
+
+    Mono<Card> credit(String id, BalanceRequest request);
+
+    Mono<Card> debit(String id, BalanceRequest request);
+
+    Flux<BalanceDeltaResponse> applyBalanceDeltas(Flux<BalanceDeltaRequest> requests);
+
     Mono<Void> deleteById(String id);
 
 }
@@ -0,0 +1,84 @@
+package com.nttdata.card.service.impl;
+
+import com.nttdata.card.events.CardBankSummaryProjector;
+import com.nttdata.card.exceptions.CustomException;
+import com.nttdata.card.model.CardBankSummary;
+import com.nttdata.card.repository.ICardBankSummaryRepository;
+import com.nttdata.card.service.ICardBankSummaryService;
+import com.nttdata.card.util.Correlation;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * This class defines the service of the bank summaries of the cards. The summaries are read as stored,
+ * one document per bank, without aggregating the cards.
+ *
+ * @author Alcibar Vasquez
+ * @version 1.0
+ */
+@RequiredArgsConstructor
+@Service
+public class CardBankSummaryServiceImpl implements ICardBankSummaryService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CardBankSummaryServiceImpl.class);
+
+    private final ICardBankSummaryRepository cardBankSummaryRepository;
+
+    private final ObjectProvider<CardBankSummaryProjector> cardBankSummaryProjector;
+
+    /**
+     * This method returns the summaries of the banks with cards
+     *
+     * @return summaries ordered by bank name
+     */
+    @Override
+    public Flux<CardBankSummary> findAll() {
+        return cardBankSummaryRepository.findByCardCountGreaterThanOrderByIdAsc(0L)
+                .onErrorResume(e -> Correlation.log(() -> LOGGER.error("[findAll] {}", e.getMessage()))
+                        .then(Mono.error(CustomException.internalServerError("Internal Server Error:" + e))));
+    }
+
+    /**
+     * This method returns the summary of a bank
+     *
+     * @param bankName bank name
+     * @return summary
+     */
+    @Override
+    public Mono<CardBankSummary> findByBankName(String bankName) {
+        return cardBankSummaryRepository.findById(bankName)
+                .filter(s -> s.getCardCount() > 0)
+                .onErrorResume(e -> Correlation.log(() -> LOGGER.error("[findByBankName] {}", e.getMessage()))
+                        .then(Mono.error(CustomException.internalServerError("Internal Server Error:" + e))))
+                .switchIfEmpty(Mono.error(CustomException.notFound("Bank summary not found")));
+    }
+
+    /**
+     * This method rebuilds the summaries from the cards
+     *
+     * @return summaries rebuilt
+     */
+    @Override
+    public Flux<CardBankSummary> rebuild() {
+        CardBankSummaryProjector projector = cardBankSummaryProjector.getIfAvailable();
+        if (projector == null) {
+            return Flux.error(CustomException.serviceUnavailable("The bank summaries are disabled"));
+        }
+        return projector.rebuild()
+                .onErrorResume(e -> {
+                    if (e instanceof ResponseStatusException) {
+                        return Mono.error(e);
+                    }
+                    return Correlation.log(() -> LOGGER.error("[rebuild] {}", e.toString()))
+                            .then(Mono.error(CustomException.internalServerError("Internal Server Error:" + e)));
+                })
+                .thenMany(findAll());
+    }
+
+}
@@ -1,23 +1,58 @@
 package com.nttdata.card.service.impl;
 
+import com.nttdata.card.cache.CardCache;
 import com.nttdata.card.dto.mapper.CardMapper;
+import com.nttdata.card.dto.request.BalanceDeltaRequest;
+import com.nttdata.card.dto.request.BalanceRequest;
+import com.nttdata.card.dto.request.CardPatchRequest;
 import com.nttdata.card.dto.request.CardRequest;
-import com.nttdata.card.dto.request.proxy.BankAccountRequest;
+import com.nttdata.card.dto.response.BalanceDeltaResponse;
+import com.nttdata.card.dto.response.CardBatchItemResponse;
+import com.nttdata.card.enums.CardField;
+import com.nttdata.card.enums.EventType;
+import com.nttdata.card.events.CardEventPublisher;
 import com.nttdata.card.exceptions.CustomException;
+import com.nttdata.card.model.BalanceDelta;
 import com.nttdata.card.model.Card;
-import com.nttdata.card.proxy.bankaccount.BankAccountProxy;
+import com.nttdata.card.model.Money;
+import com.nttdata.card.model.OutboxMessage;
 import com.nttdata.card.repository.ICardRepository;
+import com.nttdata.card.repository.ICardRepositoryCustomImpl;
+import com.nttdata.card.repository.IOutboxRepository;
 import com.nttdata.card.service.ICardService;
+import com.nttdata.card.util.Correlation;
+import com.nttdata.card.util.MethodMetrics;
+import com.nttdata.card.util.PageCursor;
+import com.nttdata.card.util.TimestampProvider;
 import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.types.ObjectId;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import org.springframework.web.server.ResponseStatusException;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+import reactor.util.retry.Retry;
 
-import java.lang.reflect.Field;
-import java.util.Arrays;
-import java.util.stream.Stream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
 
 /**
  * This class defines the service of bank accounts charges
@@ -31,11 +66,35 @@ public class CardServiceImpl implements ICardService {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(CardServiceImpl.class);
 
+    private static final String COMPONENT = "card-service";
+
     private final ICardRepository cardRepository;
 
     private final CardMapper cardMapper;
 
-    private final BankAccountProxy bankAccountProxy;
+    private final IOutboxRepository outboxRepository;
+
+    private final TransactionalOperator transactionalOperator;
+
+    private final CardCache cardCache;
+
+    private final TimestampProvider timestampProvider;
+
+    private final CardEventPublisher cardEventPublisher;
+
+    private final MethodMetrics methodMetrics;
+
+    @Value("${card.batch.chunk-size:1000}")
+    private int batchChunkSize;
+
+    @Value("${card.batch.max-in-flight:4}")
+    private int batchMaxInFlight;
+
+    @Value("${card.update.max-retries:3}")
+    private int updateMaxRetries;
+
+    @Value("${card.balance-deltas.chunk-size:1000}")
+    private int deltasChunkSize;
 
     /**
      * This method returns a list of bank accounts charges
@@ -44,10 +103,62 @@ public class CardServiceImpl implements ICardService {
      */
     @Override
     public Flux<Card> findAll() {
-        return cardRepository.findAll().onErrorResume(e -> {
-            LOGGER.error("[" + getClass().getName() + "][findAll]" + e);
-            return Mono.error(CustomException.internalServerError("Internal Server Error:" + e));
-        });
+        return cardRepository.findAll()
+                .onErrorResume(e -> Correlation.log(() -> LOGGER.error("[findAll] {}", e.toString()))
+                        .then(Mono.error(CustomException.internalServerError("Internal Server Error:" + e))))
+                .transform(m -> methodMetrics.time(COMPONENT, "findAll", m));
+    }
+
+    /**
+     * This method returns one page of cards after the cursor, seeking on the sort index
+     *
+     * @param cursor position of the last card returned
+     * @param limit  page size
+     * @return cards page
+     */
+    @Override
+    public Flux<Card> findPage(PageCursor cursor, int limit) {
+        Flux<Card> page;
+        if (cursor.isSortedByCreatedAt()) {
+            Pageable pageable = PageRequest.of(0, limit, Sort.by(PageCursor.SORT_CREATED_AT, PageCursor.SORT_ID));
+            if (cursor.isFirst()) {
+                page = cardRepository.findAllBy(pageable);
+            } else if (cursor.getCreatedAt() == null) {
+                page = cardRepository.findAfterMissingCreatedAt(new ObjectId(cursor.getId()), pageable);
+            } else {
+                page = cardRepository.findAfterCreatedAt(new Date(cursor.getCreatedAt()), new ObjectId(cursor.getId()), pageable);
+            }
+        } else {
+            Pageable pageable = PageRequest.of(0, limit, Sort.by(PageCursor.SORT_ID));
+            page = cursor.isFirst()
+                    ? cardRepository.findAllBy(pageable)
+                    : cardRepository.findByIdGreaterThan(cursor.getId(), pageable);
+        }
+        return page
+                .onErrorResume(e -> Correlation.log(() -> LOGGER.error("[findPage] {}", e.toString()))
+                        .then(Mono.error(CustomException.internalServerError("Internal Server Error:" + e))))
+                .transform(m -> methodMetrics.time(COMPONENT, "findPage", m));
+    }
+
+    /**
+     * This method streams every card in id order, resuming after the given id.
+     * The demand sent to the Mongo cursor, and so its batch size, is capped to {@code batchSize}.
+     *
+     * @param afterId   last card id received, null to start from the beginning
+     * @param batchSize maximum cursor batch
+     * @return cards
+     */
+    @Override
+    public Flux<Card> stream(String afterId, int batchSize) {
+        if (afterId != null && !ObjectId.isValid(afterId)) {
+            return Flux.error(CustomException.badRequest("The last id is invalid"));
+        }
+        Sort sort = Sort.by(PageCursor.SORT_ID);
+        Flux<Card> cards = afterId == null ? cardRepository.findAll(sort) : cardRepository.findByIdGreaterThan(afterId, sort);
+        return cards.limitRate(batchSize)
+                .onErrorResume(e -> Correlation.log(() -> LOGGER.error("[stream] {}", e.toString()))
+                        .then(Mono.error(CustomException.internalServerError("Internal Server Error:" + e))))
+                .transform(m -> methodMetrics.time(COMPONENT, "stream", m));
     }
 
     /**
@@ -58,11 +169,11 @@ public class CardServiceImpl implements ICardService {
      */
     @Override
     public Mono<Card> findById(String id) {
-        return cardRepository.findById(id)
-                .onErrorResume(e -> {
-                    LOGGER.error("[" + getClass().getName() + "][findById]" + e.getMessage());
-                    return Mono.error(CustomException.badRequest("The request is invalid:" + e));
-                }).switchIfEmpty(Mono.error(CustomException.notFound("Bank account charge not found")));
+        return cardCache.findById(id, cardRepository::findById)
+                .onErrorResume(e -> Correlation.log(() -> LOGGER.error("[findById] {}", e.getMessage()))
+                        .then(Mono.error(CustomException.badRequest("The request is invalid:" + e))))
+                .switchIfEmpty(Mono.error(CustomException.notFound("Bank account charge not found")))
+                .transform(m -> methodMetrics.time(COMPONENT, "findById", m));
     }
 
     /**
@@ -71,11 +182,82 @@ public class CardServiceImpl implements ICardService {
      */
     @Override
     public Mono<Card> findByCci(String cci) {
-        return cardRepository.findByCci(cci)
-                .onErrorResume(e -> {
-                    LOGGER.error("[" + getClass().getName() + "][findById]" + e.getMessage());
-                    return Mono.error(CustomException.badRequest("The request is invalid:" + e));
-                }).switchIfEmpty(Mono.error(CustomException.notFound("Bank account charge not found")));
+        return cardCache.findByCci(cci, cardRepository::findByCci)
+                .onErrorResume(e -> Correlation.log(() -> LOGGER.error("[findById] {}", e.getMessage()))
+                        .then(Mono.error(CustomException.badRequest("The request is invalid:" + e))))
+                .switchIfEmpty(Mono.error(CustomException.notFound("Bank account charge not found")))
+                .transform(m -> methodMetrics.time(COMPONENT, "findByCci", m));
+    }
+
+    /**
+     * This method returns the cards with only the requested fields read from the database
+     *
+     * @param fields fields to read
+     * @return cards list
+     */
+    @Override
+    public Flux<Card> findAll(Set<CardField> fields) {
+        return cardRepository.findAll(fields)
+                .onErrorResume(e -> Correlation.log(() -> LOGGER.error("[findAll] {}", e.toString()))
+                        .then(Mono.error(CustomException.internalServerError("Internal Server Error:" + e))))
+                .transform(m -> methodMetrics.time(COMPONENT, "findAllFields", m));
+    }
+
+    /**
+     * @param id     request
+     * @param fields fields to read
+     * @return card with only the requested fields
+     */
+    @Override
+    public Mono<Card> findById(String id, Set<CardField> fields) {
+        return cardRepository.findById(id, fields)
+                .onErrorResume(e -> Correlation.log(() -> LOGGER.error("[findById] {}", e.getMessage()))
+                        .then(Mono.error(CustomException.badRequest("The request is invalid:" + e))))
+                .switchIfEmpty(Mono.error(CustomException.notFound("Bank account charge not found")))
+                .transform(m -> methodMetrics.time(COMPONENT, "findByIdFields", m));
+    }
+
+    /**
+     * @param cci    request
+     * @param fields fields to read
+     * @return card with only the requested fields
+     */
+    @Override
+    public Mono<Card> findByCci(String cci, Set<CardField> fields) {
+        return cardRepository.findByCci(cci, fields)
+                .onErrorResume(e -> Correlation.log(() -> LOGGER.error("[findByCci] {}", e.getMessage()))
+                        .then(Mono.error(CustomException.badRequest("The request is invalid:" + e))))
+                .switchIfEmpty(Mono.error(CustomException.notFound("Bank account charge not found")))
+                .transform(m -> methodMetrics.time(COMPONENT, "findByCciFields", m));
+    }
+
+    /**
+     * This method reads the cards without decoding them, for the raw JSON route
+     *
+     * @return cards as BSON
+     */
+    @Override
+    public Flux<RawBsonDocument> findAllRaw() {
+        return cardRepository.findAllRaw()
+                .onErrorResume(e -> Correlation.log(() -> LOGGER.error("[findAllRaw] {}", e.toString()))
+                        .then(Mono.error(CustomException.internalServerError("Internal Server Error:" + e))))
+                .transform(m -> methodMetrics.time(COMPONENT, "findAllRaw", m));
+    }
+
+    /**
+     * This method reads a card without decoding it, for the raw JSON route.
+     * It skips the card cache, which holds decoded cards.
+     *
+     * @param id card id
+     * @return card as BSON
+     */
+    @Override
+    public Mono<RawBsonDocument> findRawById(String id) {
+        return cardRepository.findRawById(id)
+                .onErrorResume(e -> Correlation.log(() -> LOGGER.error("[findRawById] {}", e.getMessage()))
+                        .then(Mono.error(CustomException.badRequest("The request is invalid:" + e))))
+                .switchIfEmpty(Mono.error(CustomException.notFound("Bank account charge not found")))
+                .transform(m -> methodMetrics.time(COMPONENT, "findRawById", m));
     }
 
     /**
@@ -88,14 +270,95 @@ public class CardServiceImpl implements ICardService {
     public Mono<Card> create(CardRequest request) {
         return cardMapper.toPostModel(request)
                 .flatMap(cardRepository::save)
+                .doOnNext(cardCache::invalidate)
+                .doOnNext(card -> cardEventPublisher.publish(EventType.CREATED, card))
+                .onErrorResume(e -> Correlation.log(() -> LOGGER.error("[create] {}", e.toString()))
+                        .then(Mono.error(CustomException.badRequest("The request is invalid:" + e))))
+                .switchIfEmpty(Mono.error(CustomException.notFound("Bank account charge not created")))
+                .transform(m -> methodMetrics.time(COMPONENT, "create", m));
+    }
+
+    /**
+     * This method creates a batch of cards with unordered bulk writes of {@code card.batch.chunk-size}
+     * cards, keeping at most {@code card.batch.max-in-flight} chunks in flight.
+     * A failing item, e.g. a duplicated cci, does not fail the rest of the batch.
+     *
+     * @param requests requests to create new cards
+     * @return one result per request, in the order of the requests
+     */
+    @Override
+    public Flux<CardBatchItemResponse> createBatch(Flux<CardRequest> requests) {
+        return requests.index()
+                .buffer(batchChunkSize)
+                .flatMapSequential(this::createChunk, batchMaxInFlight, 1)
+                .transform(m -> methodMetrics.time(COMPONENT, "createBatch", m));
+    }
+
+    private Flux<CardBatchItemResponse> createChunk(List<Tuple2<Long, CardRequest>> chunk) {
+        CardBatchItemResponse[] results = new CardBatchItemResponse[chunk.size()];
+        List<Card> cards = new ArrayList<>(chunk.size());
+        List<Integer> positions = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            String error = validate(chunk.get(i).getT2());
+            if (error != null) {
+                results[i] = CardBatchItemResponse.invalid(chunk.get(i).getT1(), error);
+            } else {
+                cards.add(cardMapper.toModel(chunk.get(i).getT2()));
+                positions.add(i);
+            }
+        }
+        if (cards.isEmpty()) {
+            return Flux.fromArray(results);
+        }
+        return cardRepository.insertAllUnordered(cards)
                 .onErrorResume(e -> {
-                    LOGGER.error("[" + getClass().getName() + "][create]" + e);
-                    return Mono.error(CustomException.badRequest("The request is invalid:" + e));
-                }).switchIfEmpty(Mono.error(CustomException.notFound("Bank account charge not created")));
+                    Map<Integer, String> errors = new HashMap<>();
+                    for (int i = 0; i < cards.size(); i++) {
+                        errors.put(i, "Internal Server Error:" + e.getMessage());
+                    }
+                    return Correlation.log(() -> LOGGER.error("[createBatch] {}", e.toString()))
+                            .thenReturn(errors);
+                })
+                .flatMapMany(errors -> {
+                    for (int i = 0; i < cards.size(); i++) {
+                        int position = positions.get(i);
+                        long index = chunk.get(position).getT1();
+                        if (errors.containsKey(i)) {
+                            results[position] = CardBatchItemResponse.failed(index, errors.get(i));
+                        } else {
+                            results[position] = CardBatchItemResponse.created(index, cards.get(i).getId());
+                            cardEventPublisher.publish(EventType.CREATED, cards.get(i));
+                        }
+                    }
+                    return Flux.fromArray(results);
+                });
+    }
+
+    private static String validate(CardRequest request) {
+        if (request.getCardNumber() == null || request.getCardNumber().isEmpty()) {
+            return "cardNumber is required";
+        }
+        if (request.getCci() == null || request.getCci().isEmpty()) {
+            return "cci is required";
+        }
+        if (request.getSecurityCode() == null) {
+            return "securityCode is required";
+        }
+        if (request.getExpirationDate() == null) {
+            return "expirationDate is required";
+        }
+        if (request.getBalance() == null) {
+            return "balance is required";
+        }
+        return null;
     }
 
     /**
-     * This method updates a bank account charges
+     * This method updates a bank account charges.
+     * The write only applies over the version read; on a concurrent change the card is read
+     * again and the update retried, up to {@code card.update.max-retries} times.
+     * A bank account to link is recorded in the outbox in the same transaction as the card and
+     * delivered to the bank account service afterwards, so the update does not wait for it.
      *
      * @param id      bank account charge id to update
      * @param request request to update bank account charge
@@ -103,47 +366,373 @@ public class CardServiceImpl implements ICardService {
      */
     @Override
     public Mono<Card> update(String id, CardRequest request) {
-        return findById(id)
-                .flatMap(c -> cardMapper.toPutModel(c, request)
-                        .flatMap(req -> {
-                            if (checkIfExistField(request, "bankAccountId")) {
-                                return bankAccountProxy.getBankAccountById(request.getBankAccountId())
-                                        .flatMap(ba -> bankAccountProxy.bankAccountUpdate(ba.getId(),
-                                                        new BankAccountRequest(c.getId()))
-                                                .flatMap(res -> cardRepository.save(req))
-                                        );
-                            }
-                            System.out.println("test:" + checkIfExistField(request, "bankAccountId"));
-                            return cardRepository.save(req);
-                        }))
+        // read from the repository: toPutModel mutates the entity and cached instances must stay untouched
+        return cardRepository.findById(id)
+                .flatMap(c -> request.getBankAccountId() == null
+                        ? put(c, request)
+                        : transactionalOperator.transactional(put(c, request)
+                        .flatMap(card -> linkBankAccount(card, request.getBankAccountId()))))
+                .doOnNext(cardCache::invalidate)
+                .doOnNext(card -> cardEventPublisher.publish(EventType.UPDATED, card))
                 .onErrorResume(e -> {
-                    LOGGER.error("[" + getClass().getName() + "][update]" + e);
-                    return Mono.error(CustomException.badRequest("The request is invalid:" + e));
-                }).switchIfEmpty(Mono.error(CustomException.notFound("Card not found"))
-                );
+                    Throwable error;
+                    if (e instanceof OptimisticLockingFailureException) {
+                        error = CustomException.conflict("The card was modified concurrently, retry the request");
+                    } else if (e instanceof ResponseStatusException) {
+                        error = e;
+                    } else {
+                        error = CustomException.badRequest("The request is invalid:" + e);
+                    }
+                    return Correlation.log(() -> LOGGER.error("[update] {}", e.toString()))
+                            .then(Mono.error(error));
+                }).switchIfEmpty(Mono.error(CustomException.notFound("Card not found")))
+                .transform(m -> methodMetrics.time(COMPONENT, "update", m));
     }
 
     /**
-     * This method delete a bank account charge
+     * This method applies a merge patch with one atomic update of the fields present in the patch.
+     * The bank account is only linked when the patch carries {@code bankAccountId}, through the outbox
+     * written in the same transaction as the card.
      *
-     * @param id bank account charge id to delete
-     * @return void
+     * @param id      card id
+     * @param request merge patch
+     * @return card updated
      */
     @Override
-    public Mono<Void> deleteById(String id) {
-        return cardRepository.deleteById(id).onErrorResume(e -> {
-            LOGGER.error("[" + getClass().getName() + "][delete]" + e);
-            return Mono.error(CustomException.badRequest("The request is invalid:" + e));
-        });
+    public Mono<Card> patch(String id, CardPatchRequest request) {
+        if (request.isEmpty()) {
+            return findById(id);
+        }
+        Mono<Card> write = Mono.defer(() -> request.getSet().isEmpty() && request.getUnset().isEmpty()
+                ? cardRepository.findById(id)
+                : cardRepository.applyPatch(id, request.getSet(), request.getUnset(), timestampProvider.now()));
+        Mono<Card> patched = request.getBankAccountId() == null
+                ? write
+                : cardRepository.existsById(id)
+                .flatMap(exists -> exists
+                        ? transactionalOperator.transactional(write
+                        .flatMap(card -> linkBankAccount(card, request.getBankAccountId())))
+                        : Mono.empty());
+        return patched
+                .doOnNext(cardCache::invalidate)
+                .doOnNext(card -> cardEventPublisher.publish(EventType.UPDATED, card))
+                .onErrorResume(e -> Correlation.log(() -> LOGGER.error("[patch] {}", e.toString()))
+                        .then(Mono.error(e instanceof ResponseStatusException
+                                ? e : CustomException.badRequest("The request is invalid:" + e))))
+                .switchIfEmpty(Mono.error(CustomException.notFound("Card not found")))
+                .transform(m -> methodMetrics.time(COMPONENT, "patch", m));
+    }
+
+    /**
+     * This method records the link of a bank account to a card in the outbox, for the outbox relay
+     */
+    private Mono<Card> linkBankAccount(Card card, String bankAccountId) {
+        return outboxRepository.save(OutboxMessage.bankAccountLink(card.getId(), bankAccountId, timestampProvider.now()))
+                .thenReturn(card);
+    }
+
+    private Mono<Card> put(Card card, CardRequest request) {
+        return cardMapper.toPutModel(card, request)
+                .flatMap(cardRepository::replaceIfVersion)
+                .onErrorResume(OptimisticLockingFailureException.class, e -> Mono.defer(() -> cardRepository.findById(card.getId()))
+                        .flatMap(c -> cardMapper.toPutModel(c, request))
+                        .flatMap(cardRepository::replaceIfVersion)
+                        .retryWhen(Retry.max(Math.max(0, updateMaxRetries - 1))
+                                .filter(OptimisticLockingFailureException.class::isInstance)
+                                .onRetryExhaustedThrow((spec, signal) -> signal.failure())));
+    }
+
+    /**
+     * This method sets the balance of a card with one atomic update
+     *
+     * @param id      card id
+     * @param request new balance
+     * @return card updated
+     */
+    @Override
+    public Mono<Card> setBalance(String id, BalanceRequest request) {
+        if (request.getAmount() == null || request.getAmount().isNegative()) {
+            return Mono.error(CustomException.badRequest("The amount must be zero or positive"));
+        }
+        return cardRepository.setBalance(id, request.getAmount(), timestampProvider.now())
+                .doOnNext(cardCache::invalidate)
+                .doOnNext(card -> cardEventPublisher.publish(EventType.UPDATED, card))
+                .onErrorResume(e -> Correlation.log(() -> LOGGER.error("[setBalance] {}", e.toString()))
+                        .then(Mono.error(CustomException.badRequest("The request is invalid:" + e))))
+                .switchIfEmpty(Mono.error(CustomException.notFound("Card not found")))
+                .transform(m -> methodMetrics.time(COMPONENT, "setBalance", m));
+    }
+
+    /**
+     * This method adds an amount to the balance of a card with one atomic update
+     *
+     * @param id      card id
+     * @param request amount to add
+     * @return card updated
+     */
+    @Override
+    public Mono<Card> credit(String id, BalanceRequest request) {
+        if (request.getAmount() == null || !request.getAmount().isPositive()) {
+            return Mono.error(CustomException.badRequest("The amount must be positive"));
+        }
+        return cardRepository.incrementBalance(id, request.getAmount().getMinorUnits(), true, timestampProvider.now())
+                .doOnNext(cardCache::invalidate)
+                .doOnNext(card -> cardEventPublisher.publish(EventType.UPDATED, card))
+                .onErrorResume(e -> Correlation.log(() -> LOGGER.error("[credit] {}", e.toString()))
+                        .then(Mono.error(CustomException.badRequest("The request is invalid:" + e))))
+                .switchIfEmpty(Mono.error(CustomException.notFound("Card not found")))
+                .transform(m -> methodMetrics.time(COMPONENT, "credit", m));
     }
 
-    private boolean checkIfExistField(CardRequest request, String fieldName) {
-        try {
-            Field f = request.getClass().getField(fieldName);
-            return true;
-        } catch (NoSuchFieldException e) {
-            return false;
+    /**
+     * This method subtracts an amount from the balance of a card with one atomic update,
+     * which only applies while the balance covers the amount
+     *
+     * @param id      card id
+     * @param request amount to subtract
+     * @return card updated
+     */
+    @Override
+    public Mono<Card> debit(String id, BalanceRequest request) {
+        if (request.getAmount() == null || !request.getAmount().isPositive()) {
+            return Mono.error(CustomException.badRequest("The amount must be positive"));
         }
+        return cardRepository.incrementBalance(id, -request.getAmount().getMinorUnits(), false, timestampProvider.now())
+                .doOnNext(cardCache::invalidate)
+                .doOnNext(card -> cardEventPublisher.publish(EventType.UPDATED, card))
+                .onErrorResume(e -> Correlation.log(() -> LOGGER.error("[debit] {}", e.toString()))
+                        .then(Mono.error(CustomException.badRequest("The request is invalid:" + e))))
+                // nothing matched: tell a missing card from an insufficient balance, only on this path
+                .switchIfEmpty(Mono.defer(() -> cardRepository.existsById(id))
+                        .flatMap(exists -> Mono.error(exists
+                                ? CustomException.badRequest("The balance is insufficient")
+                                : CustomException.notFound("Card not found"))))
+                .transform(m -> methodMetrics.time(COMPONENT, "debit", m));
+    }
+
+    /**
+     * This method applies a settlement batch of balance deltas.
+     * Deltas of the same card (same id, or same cci) are summed and applied with one {@code $inc},
+     * with one unordered bulk write per {@code card.balance-deltas.chunk-size} cards.
+     * Idempotency refs are remembered by the card and left out of the sum once applied, so a ref sent again is
+     * reported as DUPLICATE while the new refs of the same card are applied.
+     *
+     * @param requests balance deltas
+     * @return outcome of every ref, of the deltas without a ref of every card, and of every invalid entry
+     */
+    @Override
+    public Flux<BalanceDeltaResponse> applyBalanceDeltas(Flux<BalanceDeltaRequest> requests) {
+        return requests.collectList()
+                .flatMapMany(list -> {
+                    List<BalanceDeltaResponse> rejected = new ArrayList<>();
+                    List<BalanceDelta> deltas = coalesce(list, rejected);
+                    return Flux.fromIterable(rejected)
+                            .concatWith(Flux.fromIterable(deltas)
+                                    .buffer(deltasChunkSize)
+                                    .concatMap(chunk -> applyDeltaChunk(chunk, 0)));
+                })
+                .transform(m -> methodMetrics.time(COMPONENT, "applyBalanceDeltas", m));
+    }
+
+    private static List<BalanceDelta> coalesce(List<BalanceDeltaRequest> requests, List<BalanceDeltaResponse> rejected) {
+        Map<String, BalanceDelta> byCard = new LinkedHashMap<>();
+        Set<String> refs = new HashSet<>();
+        for (BalanceDeltaRequest request : requests) {
+            String error = null;
+            if (request.getDelta() == null) {
+                error = "delta is required";
+            } else if (request.getCardId() == null && request.getCci() == null) {
+                error = "cardId or cci is required";
+            } else if (request.getCardId() != null && !ObjectId.isValid(request.getCardId())) {
+                error = "cardId is invalid";
+            }
+            List<String> requestRefs = request.getIdempotencyRef() == null
+                    ? Collections.emptyList() : Collections.singletonList(request.getIdempotencyRef());
+            if (error != null) {
+                rejected.add(new BalanceDeltaResponse(request.getCardId(), request.getCci(), request.getDelta(),
+                        requestRefs, BalanceDeltaResponse.INVALID, error));
+                continue;
+            }
+            if (request.getIdempotencyRef() != null && !refs.add(request.getIdempotencyRef())) {
+                rejected.add(new BalanceDeltaResponse(request.getCardId(), request.getCci(), request.getDelta(),
+                        requestRefs, BalanceDeltaResponse.DUPLICATE, "idempotencyRef repeated in the batch"));
+                continue;
+            }
+            String key = request.getCardId() != null ? "id:" + request.getCardId() : "cci:" + request.getCci();
+            byCard.computeIfAbsent(key, k -> new BalanceDelta(request.getCardId(),
+                            request.getCardId() != null ? null : request.getCci()))
+                    .add(request.getIdempotencyRef(), request.getDelta().getMinorUnits());
+        }
+        return new ArrayList<>(byCard.values());
+    }
+
+    /**
+     * The cards are read first: the refs they already applied are reported as DUPLICATE and left out of the sums,
+     * so a replayed ref does not hold back the new refs of its card. A card that changes between the read and the
+     * write is skipped by the write and tried again, up to {@code card.update.max-retries} times.
+     */
+    private Flux<BalanceDeltaResponse> applyDeltaChunk(List<BalanceDelta> deltas, int retries) {
+        if (deltas.isEmpty()) {
+            return Flux.empty();
+        }
+        return cardRepository.findBalanceDeltaState(deltas)
+                .collectList()
+                .flatMapMany(cards -> {
+                    List<BalanceDeltaResponse> settled = new ArrayList<>();
+                    List<BalanceDelta> writes = new ArrayList<>();
+                    List<Document> written = new ArrayList<>();
+                    for (BalanceDelta delta : deltas) {
+                        Document card = cardOf(delta, cards);
+                        if (card == null) {
+                            settled.addAll(deltaResponses(delta, BalanceDeltaResponse.NOT_FOUND, null));
+                            continue;
+                        }
+                        List<?> applied = card.get(ICardRepositoryCustomImpl.APPLIED_DELTA_REFS, List.class);
+                        BalanceDelta left = applied == null ? delta : delta.without(applied);
+                        delta.getReferenced().forEach((ref, minor) -> {
+                            if (!left.getReferenced().containsKey(ref)) {
+                                settled.add(refResponse(delta, ref, minor, BalanceDeltaResponse.DUPLICATE, null));
+                            }
+                        });
+                        if (!left.isEmpty()) {
+                            writes.add(left);
+                            written.add(card);
+                        }
+                    }
+                    return Flux.fromIterable(settled).concatWith(writeDeltas(writes, written, retries));
+                })
+                .onErrorResume(e -> Correlation.log(() -> LOGGER.error("[applyBalanceDeltas] {}", e.toString()))
+                        .thenMany(failed(deltas, e)));
+    }
+
+    private Flux<BalanceDeltaResponse> writeDeltas(List<BalanceDelta> deltas, List<Document> cards, int retries) {
+        if (deltas.isEmpty()) {
+            return Flux.empty();
+        }
+        String batchToken = UUID.randomUUID().toString();
+        return cardRepository.applyBalanceDeltas(deltas, batchToken, timestampProvider.now())
+                // the documents read carry both keys, so a delta by cci also drops the card cached by id
+                .doOnSuccess(result -> cards.forEach(card -> cardCache.invalidate(Card.builder()
+                        .id(card.getObjectId("_id").toHexString())
+                        .cci(card.getString("cci"))
+                        .build())))
+                .flatMapMany(result -> {
+                    List<BalanceDeltaResponse> failed = new ArrayList<>();
+                    List<BalanceDelta> written = new ArrayList<>();
+                    List<String> writtenIds = new ArrayList<>();
+                    for (int i = 0; i < deltas.size(); i++) {
+                        String error = result.getT2().get(i);
+                        if (error != null) {
+                            failed.addAll(deltaResponses(deltas.get(i), BalanceDeltaResponse.FAILED, "Internal Server Error:" + error));
+                        } else {
+                            written.add(deltas.get(i));
+                            writtenIds.add(cards.get(i).getObjectId("_id").toHexString());
+                        }
+                    }
+                    return Flux.fromIterable(failed).concatWith(result.getT1() == written.size()
+                            ? publishUpdated(writtenIds).thenMany(Flux.fromIterable(written)
+                            .concatMapIterable(d -> deltaResponses(d, BalanceDeltaResponse.APPLIED, null)))
+                            : settleSkipped(written, batchToken, retries));
+                })
+                .onErrorResume(e -> Correlation.log(() -> LOGGER.error("[applyBalanceDeltas] {}", e.toString()))
+                        .thenMany(failed(deltas, e)));
+    }
+
+    /**
+     * Some cards changed since they were read: the written ones carry the batch token, the others are tried again
+     */
+    private Flux<BalanceDeltaResponse> settleSkipped(List<BalanceDelta> deltas, String batchToken, int retries) {
+        return cardRepository.findBalanceDeltaState(deltas)
+                .collectList()
+                .flatMapMany(after -> {
+                    List<BalanceDeltaResponse> settled = new ArrayList<>();
+                    List<String> writtenIds = new ArrayList<>();
+                    List<BalanceDelta> retry = new ArrayList<>();
+                    for (BalanceDelta delta : deltas) {
+                        Document card = cardOf(delta, after);
+                        if (card != null && batchToken.equals(card.getString(ICardRepositoryCustomImpl.LAST_DELTA_BATCH))) {
+                            settled.addAll(deltaResponses(delta, BalanceDeltaResponse.APPLIED, null));
+                            writtenIds.add(card.getObjectId("_id").toHexString());
+                        } else if (retries >= updateMaxRetries) {
+                            settled.addAll(deltaResponses(delta, BalanceDeltaResponse.FAILED,
+                                    "The card was modified concurrently, retry the request"));
+                        } else {
+                            retry.add(delta);
+                        }
+                    }
+                    return publishUpdated(writtenIds)
+                            .thenMany(Flux.fromIterable(settled))
+                            .concatWith(applyDeltaChunk(retry, retries + 1));
+                });
+    }
+
+    /**
+     * The bulk write does not return the cards, so the cards written are read again for their events.
+     * A failed read only loses the events, the deltas stay applied.
+     */
+    private Mono<Void> publishUpdated(List<String> ids) {
+        if (ids.isEmpty()) {
+            return Mono.empty();
+        }
+        return cardRepository.findAllById(ids)
+                .doOnNext(card -> cardEventPublisher.publish(EventType.UPDATED, card))
+                .onErrorResume(e -> Correlation.log(() -> LOGGER.error("[applyBalanceDeltas] {}", e.toString()))
+                        .thenMany(Flux.empty()))
+                .then();
+    }
+
+    private static Document cardOf(BalanceDelta delta, List<Document> cards) {
+        for (Document card : cards) {
+            boolean same = delta.getCardId() != null
+                    ? delta.getCardId().equals(card.getObjectId("_id").toHexString())
+                    : delta.getCci().equals(card.getString("cci"));
+            if (same) {
+                return card;
+            }
+        }
+        return null;
+    }
+
+    private static Flux<BalanceDeltaResponse> failed(List<BalanceDelta> deltas, Throwable e) {
+        return Flux.fromIterable(deltas)
+                .concatMapIterable(d -> deltaResponses(d, BalanceDeltaResponse.FAILED, "Internal Server Error:" + e.getMessage()));
+    }
+
+    /**
+     * One response per ref, and one for the sum of the deltas without a ref
+     */
+    private static List<BalanceDeltaResponse> deltaResponses(BalanceDelta delta, String status, String error) {
+        List<BalanceDeltaResponse> responses = new ArrayList<>(delta.getReferenced().size() + 1);
+        delta.getReferenced().forEach((ref, minor) -> responses.add(refResponse(delta, ref, minor, status, error)));
+        if (delta.getUnreferenced() != null) {
+            responses.add(new BalanceDeltaResponse(delta.getCardId(), delta.getCci(),
+                    Money.ofMinor(delta.getUnreferenced()), Collections.emptyList(), status, error));
+        }
+        return responses;
+    }
+
+    private static BalanceDeltaResponse refResponse(BalanceDelta delta, String ref, long minor, String status, String error) {
+        return new BalanceDeltaResponse(delta.getCardId(), delta.getCci(), Money.ofMinor(minor),
+                Collections.singletonList(ref), status, error);
+    }
+
+    /**
+     * This method delete a bank account charge.
+     * The DELETED event is only published when a card was removed.
+     *
+     * @param id bank account charge id to delete
+     * @return void
+     */
+    @Override
+    public Mono<Void> deleteById(String id) {
+        return cardRepository.removeById(id)
+                .filter(deleted -> deleted > 0)
+                .doOnNext(deleted -> cardCache.invalidateId(id))
+                .doOnNext(deleted -> cardEventPublisher.publish(EventType.DELETED, Card.builder().id(id).build()))
+                .then()
+                .onErrorResume(e -> Correlation.log(() -> LOGGER.error("[delete] {}", e.toString()))
+                        .then(Mono.error(CustomException.badRequest("The request is invalid:" + e))))
+                .transform(m -> methodMetrics.time(COMPONENT, "deleteById", m));
     }
 
 }
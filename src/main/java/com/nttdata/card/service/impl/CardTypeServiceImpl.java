@@ -1,11 +1,13 @@
 package com.nttdata.card.service.impl;
 
+import com.nttdata.card.cache.CardTypeSnapshot;
 import com.nttdata.card.dto.mapper.CardTypeMapper;
 import com.nttdata.card.dto.request.CardTypeRequest;
 import com.nttdata.card.exceptions.CustomException;
 import com.nttdata.card.model.CardType;
 import com.nttdata.card.repository.ICardTypeRepository;
 import com.nttdata.card.service.ICardTypeService;
+import com.nttdata.card.util.Correlation;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -29,6 +31,8 @@ public class CardTypeServiceImpl implements ICardTypeService {
 
     private final CardTypeMapper cardTypeMapper;
 
+    private final CardTypeSnapshot cardTypeSnapshot;
+
     /**
      * This method returns a list of cards
      *
@@ -36,11 +40,10 @@ public class CardTypeServiceImpl implements ICardTypeService {
      */
     @Override
     public Flux<CardType> findAll() {
-        return cardTypeRepository.findAll()
-                .onErrorResume(e -> {
-                    LOGGER.error("[" + getClass().getName() + "][findAll]" + e.getMessage());
-                    return Mono.error(CustomException.internalServerError("Internal Server Error:" + e));
-                });
+        Flux<CardType> cardTypes = cardTypeSnapshot.isLoaded() ? cardTypeSnapshot.findAll() : cardTypeRepository.findAll();
+        return cardTypes
+                .onErrorResume(e -> Correlation.log(() -> LOGGER.error("[findAll] {}", e.getMessage()))
+                        .then(Mono.error(CustomException.internalServerError("Internal Server Error:" + e))));
     }
 
     /**
@@ -51,11 +54,11 @@ public class CardTypeServiceImpl implements ICardTypeService {
      */
     @Override
     public Mono<CardType> findById(String id) {
-        return cardTypeRepository.findById(id)
-                .onErrorResume(e -> {
-                    LOGGER.error("[" + getClass().getName() + "][findById]" + e.getMessage());
-                    return Mono.error(CustomException.badRequest("The request si invalid:" + e));
-                }).switchIfEmpty(Mono.error(CustomException.notFound("Card type not found")));
+        Mono<CardType> cardType = cardTypeSnapshot.isLoaded() ? cardTypeSnapshot.findById(id) : cardTypeRepository.findById(id);
+        return cardType
+                .onErrorResume(e -> Correlation.log(() -> LOGGER.error("[findById] {}", e.getMessage()))
+                        .then(Mono.error(CustomException.badRequest("The request si invalid:" + e))))
+                .switchIfEmpty(Mono.error(CustomException.notFound("Card type not found")));
     }
 
     /**
@@ -68,10 +71,10 @@ public class CardTypeServiceImpl implements ICardTypeService {
     public Mono<CardType> create(CardTypeRequest request) {
         return cardTypeMapper.toPostModel(request)
                 .flatMap(cardTypeRepository::save)
-                .onErrorResume(e -> {
-                    LOGGER.error("[" + getClass().getName() + "][create]" + e);
-                    return Mono.error(CustomException.badRequest("The request is invalid:" + e));
-                }).switchIfEmpty(Mono.error(CustomException.notFound("Card type not created")));
+                .doOnNext(cardTypeSnapshot::put)
+                .onErrorResume(e -> Correlation.log(() -> LOGGER.error("[create] {}", e.toString()))
+                        .then(Mono.error(CustomException.badRequest("The request is invalid:" + e))))
+                .switchIfEmpty(Mono.error(CustomException.notFound("Card type not created")));
     }
 
     /**
@@ -83,13 +86,14 @@ public class CardTypeServiceImpl implements ICardTypeService {
      */
     @Override
     public Mono<CardType> update(String id, CardTypeRequest request) {
-        return findById(id)
+        // read from the repository: toPutModel mutates the entity and snapshot entries must stay immutable
+        return cardTypeRepository.findById(id)
                 .flatMap(c -> cardTypeMapper.toPutModel(c, request)
                         .flatMap(cardTypeRepository::save))
-                .onErrorResume(e -> {
-                    LOGGER.error("[" + getClass().getName() + "][update]" + e.getMessage());
-                    return Mono.error(CustomException.badRequest("The request is invalid:" + e));
-                }).switchIfEmpty(Mono.error(CustomException.notFound("Card type not found")));
+                .doOnNext(cardTypeSnapshot::put)
+                .onErrorResume(e -> Correlation.log(() -> LOGGER.error("[update] {}", e.getMessage()))
+                        .then(Mono.error(CustomException.badRequest("The request is invalid:" + e))))
+                .switchIfEmpty(Mono.error(CustomException.notFound("Card type not found")));
     }
 
     /**
@@ -101,9 +105,8 @@ public class CardTypeServiceImpl implements ICardTypeService {
     @Override
     public Mono<Void> deleteById(String id) {
         return cardTypeRepository.deleteById(id)
-                .onErrorResume(e -> {
-                    LOGGER.error("[" + getClass().getName() + "][delete]" + e);
-                    return Mono.error(CustomException.badRequest("The request is invalid"));
-                });
+                .doOnSuccess(v -> cardTypeSnapshot.remove(id))
+                .onErrorResume(e -> Correlation.log(() -> LOGGER.error("[delete] {}", e.toString()))
+                        .then(Mono.error(CustomException.badRequest("The request is invalid"))));
     }
 }
@@ -20,7 +20,9 @@ public class AppUtil {
      *
      * @param date date
      * @return date formatted
+     * @deprecated use {@link TimestampProvider#now()}, which truncates without formatting and parsing
      */
+    @Deprecated
     @SneakyThrows(ParseException.class)
     public static Date dateFormat(Date date) {
         String pattern = "yyyy-MM-dd HH:mm:ss";
@@ -29,6 +31,14 @@ public class AppUtil {
         return simpleDateFormat.parse(newDate);
     }
 
+    /**
+     * This method rounds an amount to two decimals through its text
+     *
+     * @param request amount
+     * @return amount rounded
+     * @deprecated balances are {@link com.nttdata.card.model.Money}, which never rounds after it is parsed
+     */
+    @Deprecated
     public static Float decimalFormat(Float request) {
         return Float.valueOf(String.format(Locale.getDefault(),
                 "%.2f", request).replace(",", "."));
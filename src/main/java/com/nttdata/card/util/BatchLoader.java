@@ -0,0 +1,147 @@
+package com.nttdata.card.util;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * This class collects the keys requested within a window, or until a batch is full, and loads them with one call,
+ * fanning the values back out to every caller; a key requested twice in a batch is loaded once. Keys missing from
+ * the batch result are loaded one by one. When the batch call fails with an error the fallback predicate accepts,
+ * e.g. the batch endpoint does not exist, the loader stops batching and loads every key one by one from then on.
+ *
+ * @param <K> key
+ * @param <V> value
+ * @author Alcibar Vasquez
+ * @version 1.0
+ */
+public class BatchLoader<K, V> implements Disposable {
+
+    private final Function<List<K>, Mono<Map<K, V>>> batch;
+
+    private final Function<K, Mono<V>> single;
+
+    private final Predicate<Throwable> fallback;
+
+    private final Disposable subscription;
+
+    private volatile FluxSink<Pending<K, V>> queue;
+
+    private volatile boolean batching = true;
+
+    /**
+     * @param batch        loads many keys at once; the result may omit keys
+     * @param single       loads one key
+     * @param fallback     batch errors after which only single loads are used
+     * @param maxBatchSize keys per batch
+     * @param window       longest wait of a key for its batch
+     * @param concurrency  batches in flight
+     */
+    public BatchLoader(Function<List<K>, Mono<Map<K, V>>> batch, Function<K, Mono<V>> single,
+                       Predicate<Throwable> fallback, int maxBatchSize, Duration window, int concurrency) {
+        this.batch = batch;
+        this.single = single;
+        this.fallback = fallback;
+        this.subscription = Flux.<Pending<K, V>>create(sink -> queue = sink)
+                .bufferTimeout(maxBatchSize, window)
+                // the window closes on time even without demand: batches wait here while the batches in flight
+                // are at their limit, otherwise the overflow would end the loader
+                .onBackpressureBuffer()
+                .flatMap(this::dispatch, concurrency)
+                .subscribe();
+    }
+
+    /**
+     * This method loads a key with the next batch
+     *
+     * @param key key
+     * @return value, empty when the single load is empty
+     */
+    public Mono<V> load(K key) {
+        if (!batching) {
+            return single.apply(key);
+        }
+        return Mono.create(sink -> queue.next(new Pending<>(key, sink)));
+    }
+
+    public boolean isBatching() {
+        return batching;
+    }
+
+    private Mono<Void> dispatch(List<Pending<K, V>> pendings) {
+        Map<K, List<MonoSink<V>>> callers = new LinkedHashMap<>();
+        for (Pending<K, V> pending : pendings) {
+            callers.computeIfAbsent(pending.key, k -> new ArrayList<>(1)).add(pending.sink);
+        }
+        if (!batching) {
+            return loadEach(callers);
+        }
+        return Mono.defer(() -> batch.apply(new ArrayList<>(callers.keySet())))
+                .defaultIfEmpty(new LinkedHashMap<>())
+                .flatMap(values -> {
+                    Map<K, List<MonoSink<V>>> missing = new LinkedHashMap<>();
+                    callers.forEach((key, sinks) -> {
+                        V value = values.get(key);
+                        if (value == null) {
+                            missing.put(key, sinks);
+                        } else {
+                            sinks.forEach(sink -> sink.success(value));
+                        }
+                    });
+                    return loadEach(missing);
+                })
+                .onErrorResume(e -> {
+                    if (fallback.test(e)) {
+                        batching = false;
+                        return loadEach(callers);
+                    }
+                    callers.values().forEach(sinks -> sinks.forEach(sink -> sink.error(e)));
+                    return Mono.empty();
+                });
+    }
+
+    private Mono<Void> loadEach(Map<K, List<MonoSink<V>>> callers) {
+        return Flux.fromIterable(callers.entrySet())
+                .flatMap(entry -> single.apply(entry.getKey())
+                        .doOnSuccess(value -> entry.getValue().forEach(sink -> sink.success(value)))
+                        .onErrorResume(e -> {
+                            entry.getValue().forEach(sink -> sink.error(e));
+                            return Mono.empty();
+                        }))
+                .then();
+    }
+
+    @Override
+    public void dispose() {
+        subscription.dispose();
+    }
+
+    @Override
+    public boolean isDisposed() {
+        return subscription.isDisposed();
+    }
+
+    private static final class Pending<K, V> {
+
+        private final K key;
+
+        private final MonoSink<V> sink;
+
+        private Pending(K key, MonoSink<V> sink) {
+            this.key = key;
+            this.sink = sink;
+        }
+
+    }
+
+}
@@ -0,0 +1,60 @@
+package com.nttdata.card.util;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.nttdata.card.dto.request.CardPatchRequest;
+import com.nttdata.card.enums.CardField;
+
+import java.io.IOException;
+
+/**
+ * This class reads a merge patch of a card in one pass over the tokens. Each member is looked up in the
+ * {@link CardField} descriptor, which gives its type and whether it may be changed or removed.
+ *
+ * @author Alcibar Vasquez
+ * @version 1.0
+ */
+public class CardPatchRequestDeserializer extends StdDeserializer<CardPatchRequest> {
+
+    private static final String BANK_ACCOUNT_ID = "bankAccountId";
+
+    public CardPatchRequestDeserializer() {
+        super(CardPatchRequest.class);
+    }
+
+    @Override
+    public CardPatchRequest deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+        if (!p.isExpectedStartObjectToken()) {
+            return (CardPatchRequest) ctxt.handleUnexpectedToken(CardPatchRequest.class, p);
+        }
+        CardPatchRequest patch = new CardPatchRequest();
+        for (String name = p.nextFieldName(); name != null; name = p.nextFieldName()) {
+            JsonToken token = p.nextToken();
+            if (BANK_ACCOUNT_ID.equals(name)) {
+                if (token != JsonToken.VALUE_STRING) {
+                    return ctxt.reportInputMismatch(this, "bankAccountId must be a string");
+                }
+                patch.setBankAccountId(p.getText());
+                continue;
+            }
+            CardField field = CardField.forProperty(name);
+            if (field == null || field.getPatch() == CardField.Patch.NONE) {
+                return ctxt.reportInputMismatch(this, "The field can not be patched: %s", name);
+            }
+            if (token == JsonToken.VALUE_NULL) {
+                if (field.getPatch() == CardField.Patch.REQUIRED) {
+                    return ctxt.reportInputMismatch(this, "The field is required: %s", name);
+                }
+                patch.getUnset().add(field);
+                patch.getSet().remove(field);
+            } else {
+                patch.getSet().put(field, ctxt.readValue(p, field.getType()));
+                patch.getUnset().remove(field);
+            }
+        }
+        return patch;
+    }
+
+}
@@ -0,0 +1,61 @@
+package com.nttdata.card.util;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class is a clock that caches the time of another clock and refreshes it every tick from a daemon thread,
+ * so reading it is a volatile read. It is at most one tick behind.
+ *
+ * @author Alcibar Vasquez
+ * @version 1.0
+ */
+public class CoarseClock extends Clock implements AutoCloseable {
+
+    private final Clock source;
+
+    private final ScheduledExecutorService ticker;
+
+    private volatile long millis;
+
+    public CoarseClock(Clock source, long tickMillis) {
+        this.source = source;
+        this.millis = source.millis();
+        this.ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "coarse-clock");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(() -> millis = source.millis(), tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public long millis() {
+        return millis;
+    }
+
+    @Override
+    public Instant instant() {
+        return Instant.ofEpochMilli(millis);
+    }
+
+    @Override
+    public ZoneId getZone() {
+        return source.getZone();
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+        throw new UnsupportedOperationException("The coarse clock keeps the zone of its source");
+    }
+
+    @Override
+    public void close() {
+        ticker.shutdownNow();
+    }
+
+}
@@ -0,0 +1,108 @@
+package com.nttdata.card.util;
+
+import org.slf4j.MDC;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import reactor.core.publisher.Mono;
+import reactor.util.context.ContextView;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Pattern;
+
+/**
+ * This class carries the correlation id of a request. The id travels in the Reactor context rather than in the
+ * MDC, since a reactive request hops between threads; a log line that should carry it puts it in the MDC around
+ * that line only, see {@link #log(ContextView, Runnable)}, which costs nothing to the lines that do not.
+ *
+ * @author Alcibar Vasquez
+ * @version 1.0
+ */
+public final class Correlation {
+
+    public static final String HEADER = "X-Correlation-Id";
+
+    /**
+     * Key of the id in the Reactor context and in the MDC
+     */
+    public static final String KEY = "correlationId";
+
+    private static final Pattern VALID = Pattern.compile("[A-Za-z0-9._-]{1,64}");
+
+    private Correlation() {
+    }
+
+    /**
+     * This method returns the id received, or a new one when it is missing or is not a safe log value
+     *
+     * @param received id of the caller, may be null
+     * @return correlation id
+     */
+    public static String idOf(String received) {
+        return received != null && VALID.matcher(received).matches() ? received : newId();
+    }
+
+    /**
+     * A random id of 16 hex digits, cheaper than a random UUID which draws from {@code SecureRandom}
+     */
+    public static String newId() {
+        String hex = Long.toHexString(ThreadLocalRandom.current().nextLong());
+        return hex.length() == 16 ? hex : "0000000000000000".substring(hex.length()) + hex;
+    }
+
+    public static String idOf(ContextView context) {
+        return context.getOrDefault(KEY, null);
+    }
+
+    /**
+     * This method runs a log statement with the correlation id of the context in the MDC
+     *
+     * @param context Reactor context of the request
+     * @param log     log statement
+     */
+    public static void log(ContextView context, Runnable log) {
+        String id = idOf(context);
+        if (id == null) {
+            log.run();
+            return;
+        }
+        String previous = MDC.get(KEY);
+        MDC.put(KEY, id);
+        try {
+            log.run();
+        } finally {
+            if (previous == null) {
+                MDC.remove(KEY);
+            } else {
+                MDC.put(KEY, previous);
+            }
+        }
+    }
+
+    /**
+     * This method runs a log statement with the correlation id of the subscriber context in the MDC, for a log line
+     * written outside of {@code deferContextual}, like the one of an {@code onErrorResume}
+     *
+     * @param log log statement
+     * @return completes once logged
+     */
+    public static Mono<Void> log(Runnable log) {
+        return Mono.deferContextual(ctx -> {
+            log(ctx, log);
+            return Mono.empty();
+        });
+    }
+
+    /**
+     * This method forwards the correlation id of the context to an outbound request
+     *
+     * @param request outbound request
+     * @param context Reactor context of the request
+     * @return request with the correlation header, or the same request without an id
+     */
+    public static ClientRequest propagate(ClientRequest request, ContextView context) {
+        String id = idOf(context);
+        return id == null || request.headers().containsKey(HEADER)
+                ? request
+                : ClientRequest.from(request).header(HEADER, id).build();
+    }
+
+}
@@ -0,0 +1,33 @@
+package com.nttdata.card.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class samples a high-volume log line: one in {@code every} calls is logged, and the line carries the count
+ * of calls it stands for. With {@code every} of 1 or less every call is logged.
+ *
+ * @author Alcibar Vasquez
+ * @version 1.0
+ */
+public class LogSampler {
+
+    private final long every;
+
+    private final AtomicLong calls = new AtomicLong();
+
+    public LogSampler(long every) {
+        this.every = Math.max(1L, every);
+    }
+
+    /**
+     * @return whether this call is logged
+     */
+    public boolean sample() {
+        return every == 1L || calls.getAndIncrement() % every == 0L;
+    }
+
+    public long getEvery() {
+        return every;
+    }
+
+}
@@ -0,0 +1,57 @@
+package com.nttdata.card.util;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This class times the reactive methods of the service, from the subscription to the termination of the result,
+ * as {@code card.method.calls} tagged by component, method and outcome: success, error or cancelled.
+ * The tags are fixed by the callers, so the series stay few.
+ *
+ * @author Alcibar Vasquez
+ * @version 1.0
+ */
+public class MethodMetrics {
+
+    public static final String TIMER = "card.method.calls";
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public MethodMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public <T> Mono<T> time(String component, String method, Mono<T> mono) {
+        return Mono.defer(() -> {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            return mono.doFinally(signal -> sample.stop(timer(component, method, signal)));
+        });
+    }
+
+    public <T> Flux<T> time(String component, String method, Flux<T> flux) {
+        return Flux.defer(() -> {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            return flux.doFinally(signal -> sample.stop(timer(component, method, signal)));
+        });
+    }
+
+    private Timer timer(String component, String method, SignalType signal) {
+        String outcome = signal == SignalType.ON_COMPLETE ? "success"
+                : signal == SignalType.ON_ERROR ? "error" : "cancelled";
+        return timers.computeIfAbsent(component + '.' + method + '.' + outcome, k -> Timer.builder(TIMER)
+                .description("Time of the reactive methods of the service, until their result terminates")
+                .tag("component", component)
+                .tag("method", method)
+                .tag("outcome", outcome)
+                .register(meterRegistry));
+    }
+
+}
@@ -0,0 +1,44 @@
+package com.nttdata.card.util;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.nttdata.card.model.Money;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+
+/**
+ * This class reads money of the default currency from a JSON number or a numeric string,
+ * straight from the text of the token so no float is involved
+ *
+ * @author Alcibar Vasquez
+ * @version 1.0
+ */
+public class MoneyJsonDeserializer extends StdDeserializer<Money> {
+
+    public MoneyJsonDeserializer() {
+        super(Money.class);
+    }
+
+    @Override
+    public Money deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+        JsonToken token = p.currentToken();
+        if (token == JsonToken.VALUE_NUMBER_INT) {
+            return Money.ofMinor(Math.multiplyExact(p.getLongValue(), 100L));
+        }
+        if (token == JsonToken.VALUE_NUMBER_FLOAT || token == JsonToken.VALUE_STRING) {
+            String text = p.getText().trim();
+            try {
+                return text.indexOf('e') < 0 && text.indexOf('E') < 0
+                        ? Money.parse(text)
+                        : Money.of(new BigDecimal(text), Money.DEFAULT_CURRENCY);
+            } catch (NumberFormatException | ArithmeticException e) {
+                return (Money) ctxt.handleWeirdStringValue(Money.class, text, "The amount is invalid");
+            }
+        }
+        return (Money) ctxt.handleUnexpectedToken(Money.class, p);
+    }
+
+}
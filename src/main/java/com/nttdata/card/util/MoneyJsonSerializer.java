@@ -0,0 +1,28 @@
+package com.nttdata.card.util;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.nttdata.card.model.Money;
+
+import java.io.IOException;
+
+/**
+ * This class writes money as a plain JSON number with two decimals, e.g. {@code 1500.25},
+ * so the responses keep the format of the previous float balances
+ *
+ * @author Alcibar Vasquez
+ * @version 1.0
+ */
+public class MoneyJsonSerializer extends StdSerializer<Money> {
+
+    public MoneyJsonSerializer() {
+        super(Money.class);
+    }
+
+    @Override
+    public void serialize(Money value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeNumber(value.toString());
+    }
+
+}
@@ -0,0 +1,122 @@
+package com.nttdata.card.util;
+
+import com.nttdata.card.exceptions.CustomException;
+import com.nttdata.card.model.Card;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.bson.types.ObjectId;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * This class defines the opaque continuation token of the keyset pagination.
+ * It keeps the sort key of the last card returned, so the next page is an index range scan. A card without
+ * {@code createdAt} sorts before every date, as Mongo sorts a missing field, and its cursor keeps no date.
+ *
+ * @author Alcibar Vasquez
+ * @version 1.0
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class PageCursor {
+
+    public static final String SORT_ID = "id";
+
+    public static final String SORT_CREATED_AT = "createdAt";
+
+    private static final String SEPARATOR = "|";
+
+    private final String sort;
+
+    /**
+     * Creation time of the last card in epoch millis, null when it has none
+     */
+    private final Long createdAt;
+
+    private final String id;
+
+    /**
+     * This method returns the cursor of the first page
+     *
+     * @param sort sort field, id or createdAt
+     * @return cursor
+     */
+    public static PageCursor first(String sort) {
+        if (sort == null || SORT_ID.equals(sort)) {
+            return new PageCursor(SORT_ID, null, null);
+        }
+        if (SORT_CREATED_AT.equals(sort)) {
+            return new PageCursor(SORT_CREATED_AT, null, null);
+        }
+        throw CustomException.badRequest("The sort is invalid: " + sort);
+    }
+
+    /**
+     * This method decodes a continuation token
+     *
+     * @param token token returned in the previous page
+     * @param sort  sort requested, must match the token when present
+     * @return cursor
+     */
+    public static PageCursor decode(String token, String sort) {
+        if (token == null || token.isEmpty()) {
+            return first(sort);
+        }
+        String[] parts;
+        try {
+            parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split("\\" + SEPARATOR);
+        } catch (IllegalArgumentException e) {
+            throw CustomException.badRequest("The cursor is invalid");
+        }
+        PageCursor cursor;
+        if (parts.length == 2 && SORT_ID.equals(parts[0])) {
+            cursor = new PageCursor(SORT_ID, null, parts[1]);
+        } else if (parts.length == 3 && SORT_CREATED_AT.equals(parts[0])) {
+            try {
+                cursor = new PageCursor(SORT_CREATED_AT, parts[1].isEmpty() ? null : Long.valueOf(parts[1]), parts[2]);
+            } catch (NumberFormatException e) {
+                throw CustomException.badRequest("The cursor is invalid");
+            }
+        } else {
+            throw CustomException.badRequest("The cursor is invalid");
+        }
+        if (!ObjectId.isValid(cursor.id)) {
+            throw CustomException.badRequest("The cursor is invalid");
+        }
+        if (sort != null && !sort.equals(cursor.sort)) {
+            throw CustomException.badRequest("The cursor was issued for sort " + cursor.sort);
+        }
+        return cursor;
+    }
+
+    public boolean isFirst() {
+        return id == null;
+    }
+
+    public boolean isSortedByCreatedAt() {
+        return SORT_CREATED_AT.equals(sort);
+    }
+
+    /**
+     * This method returns the cursor that continues after the given card
+     *
+     * @param last last card of the page
+     * @return cursor
+     */
+    public PageCursor next(Card last) {
+        if (isSortedByCreatedAt()) {
+            return new PageCursor(sort, last.getCreatedAt() == null ? null : last.getCreatedAt().getTime(), last.getId());
+        }
+        return new PageCursor(sort, null, last.getId());
+    }
+
+    public String encode() {
+        String raw = isSortedByCreatedAt()
+                ? sort + SEPARATOR + (createdAt == null ? "" : createdAt) + SEPARATOR + id
+                : sort + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+}
@@ -0,0 +1,42 @@
+package com.nttdata.card.util;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Date;
+
+/**
+ * This class provides the timestamps stored in the documents, truncated to the second.
+ * It reads an injectable {@link Clock}, so tests can drive the time.
+ *
+ * @author Alcibar Vasquez
+ * @version 1.0
+ */
+public class TimestampProvider {
+
+    private static final long SECOND = 1000L;
+
+    private final Clock clock;
+
+    public TimestampProvider(Clock clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * This method returns the current time without milliseconds
+     *
+     * @return date truncated to the second
+     */
+    public Date now() {
+        long millis = clock.millis();
+        return new Date(millis - Math.floorMod(millis, SECOND));
+    }
+
+    public Instant instant() {
+        return clock.instant();
+    }
+
+    public Clock getClock() {
+        return clock;
+    }
+
+}
@@ -5,5 +5,7 @@ public class Topic {
     public static final String WALLET_CREATED = "WALLET-CREATED";
     public static final String WALLET_UPDATED = "WALLET_UPDATED";
     public static final String WALLET_DELETED = "WALLET-DELETED";
+    public static final String WALLET_DEAD_LETTER = "WALLET-DLT";
+    public static final String CARD_EVENTS = "CARD-EVENTS";
 
 }
@@ -0,0 +1,96 @@
+package com.nttdata.card.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nttdata.card.dto.mapper.CardMapper;
+import com.nttdata.card.dto.response.CardResponse;
+import com.nttdata.card.enums.CardField;
+import com.nttdata.card.model.Card;
+import com.nttdata.card.model.Money;
+import com.nttdata.card.util.TimestampProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Cost of a listing page with the full response against {@code fields=id,cci,balance}.
+ * The partial cards only hold the projected fields, as read from Mongo with the projection.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CardFieldSetBenchmark {
+
+    @Param({"1000"})
+    private int cards;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final CardMapper cardMapper = new CardMapper(new TimestampProvider(Clock.systemUTC()));
+
+    private final Set<CardField> fields = CardField.parse("id,cci,balance");
+
+    private List<Card> full;
+
+    private List<Card> projected;
+
+    @Setup
+    public void setUp() throws Exception {
+        full = new ArrayList<>(cards);
+        projected = new ArrayList<>(cards);
+        for (int i = 0; i < cards; i++) {
+            Card card = Card.builder()
+                    .id(String.format("6253%020d", i))
+                    .cardNumber(String.format("4557%012d", i))
+                    .securityCode(123L)
+                    .expirationDate(new Date())
+                    .cci(String.format("002%017d", i))
+                    .balance(Money.parse("1500.25"))
+                    .bankName("BCP")
+                    .createdAt(new Date())
+                    .updatedAt(new Date())
+                    .build();
+            full.add(card);
+            projected.add(Card.builder().id(card.getId()).cci(card.getCci()).balance(card.getBalance()).build());
+        }
+        System.out.printf("%npayload bytes for %d cards: full=%d partial=%d%n", cards,
+                fullResponse().length, partialResponse().length);
+    }
+
+    @Benchmark
+    public byte[] fullResponse() throws Exception {
+        List<CardResponse> responses = full.stream()
+                .map(c -> new CardResponse(c.getId(), c.getCardNumber(), c.getSecurityCode(), c.getExpirationDate(),
+                        c.getCci(), c.getBalance(), c.getBankName(), c.getCreatedAt(), c.getUpdatedAt()))
+                .collect(Collectors.toList());
+        return objectMapper.writeValueAsBytes(responses);
+    }
+
+    @Benchmark
+    public byte[] partialResponse() throws Exception {
+        List<Map<String, Object>> responses = projected.stream()
+                .map(c -> cardMapper.toPartialResponse(c, fields))
+                .collect(Collectors.toList());
+        return objectMapper.writeValueAsBytes(responses);
+    }
+
+}
@@ -0,0 +1,152 @@
+package com.nttdata.card.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nttdata.card.dto.mapper.CardMapper;
+import com.nttdata.card.dto.mapper.CardTypeMapper;
+import com.nttdata.card.dto.request.CardRequest;
+import com.nttdata.card.dto.request.CardTypeRequest;
+import com.nttdata.card.dto.response.CardResponse;
+import com.nttdata.card.dto.response.CardTypeResponse;
+import com.nttdata.card.model.Card;
+import com.nttdata.card.model.CardType;
+import com.nttdata.card.model.Money;
+import com.nttdata.card.util.AppUtil;
+import com.nttdata.card.util.TimestampProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request CPU cost of the card hot path: the mappers used by every endpoint, the legacy
+ * date and amount formatting, the field lookup the update used to do, and the JSON writing of the response.
+ * The benchmark profile runs it with {@code -prof gc}, so every result comes with its allocation rate.
+ * Sources are hidden so Reactor cannot take its scalar shortcuts, as with the publishers of the repositories.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CardHotPathBenchmark {
+
+    @Param({"100"})
+    private int cards;
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private final TimestampProvider timestampProvider = new TimestampProvider(Clock.systemUTC());
+
+    private final CardMapper cardMapper = new CardMapper(timestampProvider);
+
+    private final CardTypeMapper cardTypeMapper = new CardTypeMapper(timestampProvider);
+
+    private CardRequest cardRequest;
+
+    private CardTypeRequest cardTypeRequest;
+
+    private Card card;
+
+    private CardType cardType;
+
+    private List<Card> page;
+
+    private CardResponse cardResponse;
+
+    @Setup
+    public void setUp() {
+        cardRequest = new CardRequest();
+        cardRequest.setBankAccountId("6253d9a1f1a2b3c4d5e6f701");
+        cardRequest.setCardNumber("4557880012345678");
+        cardRequest.setSecurityCode(123L);
+        cardRequest.setExpirationDate(new Date());
+        cardRequest.setCci("00219300123456789012");
+        cardRequest.setBalance(Money.parse("1500.25"));
+        cardRequest.setBankName("BCP");
+        cardTypeRequest = new CardTypeRequest();
+        cardTypeRequest.setName("DEBIT");
+        card = cardMapper.toModel(cardRequest);
+        card.setId("6253d9a1f1a2b3c4d5e6f702");
+        cardType = CardType.builder().id("6253d9a1f1a2b3c4d5e6f703").name("DEBIT")
+                .createdAt(new Date()).updatedAt(new Date()).build();
+        page = new ArrayList<>(cards);
+        for (int i = 0; i < cards; i++) {
+            page.add(card);
+        }
+        cardResponse = cardMapper.toMonoResponse(Mono.just(card).hide()).block();
+    }
+
+    @Benchmark
+    public Card cardToPostModel() {
+        return cardMapper.toPostModel(cardRequest).block();
+    }
+
+    @Benchmark
+    public CardResponse cardToMonoResponse() {
+        return cardMapper.toMonoResponse(Mono.just(card).hide()).block();
+    }
+
+    @Benchmark
+    public List<CardResponse> cardToFluxResponse() {
+        return cardMapper.toFluxResponse(Flux.fromIterable(page).hide()).collectList().block();
+    }
+
+    @Benchmark
+    public CardType cardTypeToPostModel() {
+        return cardTypeMapper.toPostModel(cardTypeRequest).block();
+    }
+
+    @Benchmark
+    public CardTypeResponse cardTypeToMonoResponse() {
+        return cardTypeMapper.toMonoResponse(Mono.just(cardType).hide()).block();
+    }
+
+    @Benchmark
+    @SuppressWarnings("deprecation")
+    public Date dateFormat() {
+        return AppUtil.dateFormat(new Date());
+    }
+
+    @Benchmark
+    @SuppressWarnings("deprecation")
+    public Float decimalFormat() {
+        return AppUtil.decimalFormat(1500.255f);
+    }
+
+    /**
+     * Lookup the card update used to do before checking {@code bankAccountId != null}:
+     * the field is private, so every call throws
+     */
+    @Benchmark
+    public boolean checkIfExistField() {
+        try {
+            cardRequest.getClass().getField("bankAccountId");
+            return true;
+        } catch (NoSuchFieldException e) {
+            return false;
+        }
+    }
+
+    @Benchmark
+    public byte[] cardResponseJson() throws Exception {
+        return objectMapper.writeValueAsBytes(cardResponse);
+    }
+
+}
@@ -0,0 +1,145 @@
+package com.nttdata.card.benchmark;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.OutputStreamAppender;
+import ch.qos.logback.core.encoder.Encoder;
+import com.nttdata.card.dto.request.proxy.BankAccountRequest;
+import com.nttdata.card.util.Correlation;
+import com.nttdata.card.util.LogSampler;
+import net.logstash.logback.encoder.LogstashEncoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import reactor.util.context.Context;
+
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Logging cost per bank account update, as {@code BankAccountProxy} logs it, written to a discarding stream so
+ * only the CPU of the logging is measured. {@code before} is the former code: two concatenated INFO lines, the
+ * body with {@code toString()}, through a synchronous pattern appender. {@code after} is the current code: one
+ * parameterized INFO line sampled one in {@code sampleEvery}, with the correlation id in the MDC, the body at
+ * DEBUG, and JSON through an async appender. With {@code sampleEvery} of 1 the gain of the rest is seen apart
+ * from the sampling.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class LoggingBenchmark {
+
+    private static final String ACCOUNT_URL = "http://ms-bank-account/api/v1/bank-accounts";
+
+    @Param({"1", "100"})
+    private int sampleEvery;
+
+    private final Context context = Context.of(Correlation.KEY, Correlation.newId());
+
+    private final BankAccountRequest request = new BankAccountRequest("6262f4f1b1b44f47cbb7d3a1");
+
+    private final String id = "6262f4f1b1b44f47cbb7d3a2";
+
+    private LoggerContext beforeContext;
+
+    private LoggerContext afterContext;
+
+    private Logger beforeLogger;
+
+    private Logger afterLogger;
+
+    private LogSampler sampler;
+
+    @Setup
+    public void setUp() {
+        beforeContext = new LoggerContext();
+        PatternLayoutEncoder pattern = new PatternLayoutEncoder();
+        pattern.setContext(beforeContext);
+        pattern.setPattern("%d{yyyy-MM-dd HH:mm:ss.SSS} %5p %t --- %-40.40logger{39} : %m%n");
+        pattern.start();
+        beforeLogger = logger(beforeContext, discarding(beforeContext, pattern));
+
+        afterContext = new LoggerContext();
+        LogstashEncoder json = new LogstashEncoder();
+        json.setContext(afterContext);
+        json.addIncludeMdcKeyName(Correlation.KEY);
+        json.start();
+        AsyncAppender async = new AsyncAppender();
+        async.setContext(afterContext);
+        async.setQueueSize(8192);
+        async.setNeverBlock(true);
+        async.addAppender(discarding(afterContext, json));
+        async.start();
+        afterLogger = logger(afterContext, async);
+
+        sampler = new LogSampler(sampleEvery);
+    }
+
+    @TearDown
+    public void tearDown() {
+        beforeContext.stop();
+        afterContext.stop();
+    }
+
+    @Benchmark
+    public void before() {
+        beforeLogger.info("[REQUEST][URL][bankAccountUpdate]" + ACCOUNT_URL + "/" + id);
+        beforeLogger.info("[REQUEST][BODY][bankAccountUpdate]" + request.toString());
+    }
+
+    @Benchmark
+    public void after() {
+        if (sampler.sample()) {
+            Correlation.log(context, () -> afterLogger.info("[bankAccountUpdate] PUT {}/{}, 1 in {} logged",
+                    ACCOUNT_URL, id, sampler.getEvery()));
+        }
+        if (afterLogger.isDebugEnabled()) {
+            Correlation.log(context, () -> afterLogger.debug("[bankAccountUpdate] {}", request));
+        }
+    }
+
+    private static Logger logger(LoggerContext context, Appender<ILoggingEvent> appender) {
+        Logger logger = context.getLogger(LoggingBenchmark.class);
+        logger.setLevel(Level.INFO);
+        logger.setAdditive(false);
+        logger.addAppender(appender);
+        return logger;
+    }
+
+    private static Appender<ILoggingEvent> discarding(LoggerContext context, Encoder<ILoggingEvent> encoder) {
+        OutputStreamAppender<ILoggingEvent> appender = new OutputStreamAppender<>();
+        appender.setContext(context);
+        appender.setEncoder(encoder);
+        appender.setOutputStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+        });
+        appender.start();
+        return appender;
+    }
+
+}
@@ -0,0 +1,65 @@
+package com.nttdata.card.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nttdata.card.model.Money;
+import com.nttdata.card.util.AppUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of adding an amount to a balance and writing it as JSON, with the previous float rounded
+ * through {@link AppUtil#decimalFormat(Float)} against {@link Money}.
+ * Run with {@code -prof gc} to compare the allocation rate.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoneyBenchmark {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private Float floatBalance = 1500.25f;
+
+    private final Float floatAmount = 0.10f;
+
+    private Money moneyBalance = Money.parse("1500.25");
+
+    private final Money moneyAmount = Money.parse("0.10");
+
+    @Benchmark
+    @SuppressWarnings("deprecation")
+    public Float floatAdd() {
+        floatBalance = AppUtil.decimalFormat(floatBalance + floatAmount);
+        return floatBalance;
+    }
+
+    @Benchmark
+    public Money moneyAdd() {
+        moneyBalance = moneyBalance.plus(moneyAmount);
+        return moneyBalance;
+    }
+
+    @Benchmark
+    @SuppressWarnings("deprecation")
+    public String floatJson() throws Exception {
+        return objectMapper.writeValueAsString(AppUtil.decimalFormat(floatBalance + floatAmount));
+    }
+
+    @Benchmark
+    public String moneyJson() throws Exception {
+        return objectMapper.writeValueAsString(moneyBalance.plus(moneyAmount));
+    }
+
+}
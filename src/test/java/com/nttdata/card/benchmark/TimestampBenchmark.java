@@ -0,0 +1,68 @@
+package com.nttdata.card.benchmark;
+
+import com.nttdata.card.util.AppUtil;
+import com.nttdata.card.util.CoarseClock;
+import com.nttdata.card.util.TimestampProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Clock;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the createdAt/updatedAt timestamp: {@link AppUtil#dateFormat(Date)} against {@link TimestampProvider}
+ * on the system clock and on a {@link CoarseClock}.
+ * Run with {@code -prof gc} to compare the allocation rate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TimestampBenchmark {
+
+    private final TimestampProvider system = new TimestampProvider(Clock.systemUTC());
+
+    private CoarseClock coarseClock;
+
+    private TimestampProvider coarse;
+
+    @Setup
+    public void setUp() {
+        coarseClock = new CoarseClock(Clock.systemUTC(), 10);
+        coarse = new TimestampProvider(coarseClock);
+    }
+
+    @TearDown
+    public void tearDown() {
+        coarseClock.close();
+    }
+
+    @Benchmark
+    @SuppressWarnings("deprecation")
+    public Date dateFormat() {
+        return AppUtil.dateFormat(new Date());
+    }
+
+    @Benchmark
+    public Date systemClock() {
+        return system.now();
+    }
+
+    @Benchmark
+    public Date coarseClock() {
+        return coarse.now();
+    }
+
+}
@@ -0,0 +1,77 @@
+package com.nttdata.card.cache;
+
+import com.nttdata.card.dto.response.proxy.BankAccountResponse;
+import com.nttdata.card.util.Correlation;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+import reactor.util.context.Context;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BankAccountCacheTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final BankAccountCache cache = new BankAccountCache(true, 100, Duration.ofMinutes(1), meterRegistry);
+
+    private static BankAccountResponse account(String id) {
+        BankAccountResponse response = new BankAccountResponse();
+        response.setId(id);
+        return response;
+    }
+
+    @Test
+    void concurrentMissesShareOneRequest() {
+        AtomicInteger calls = new AtomicInteger();
+        Sinks.One<BankAccountResponse> response = Sinks.one();
+        Flux<BankAccountResponse> lookups = Flux.range(0, 10)
+                .flatMap(i -> cache.findById("1", id -> {
+                    calls.incrementAndGet();
+                    return response.asMono();
+                }));
+
+        StepVerifier.create(lookups)
+                .then(() -> response.tryEmitValue(account("1")))
+                .expectNextCount(10)
+                .verifyComplete();
+        StepVerifier.create(cache.findById("1", id -> Mono.error(new IllegalStateException())))
+                .expectNextCount(1)
+                .verifyComplete();
+        assertEquals(1, calls.get());
+        assertEquals(9.0, meterRegistry.get("cache.coalesced").counter().count());
+        assertEquals(10.0, meterRegistry.get("cache.gets").tag("cache", "bank-accounts.by-id").tag("result", "hit").functionCounter().count());
+    }
+
+    @Test
+    void failuresAndInvalidationsAreNotKept() {
+        AtomicInteger calls = new AtomicInteger();
+        StepVerifier.create(cache.findById("1", id -> Mono.error(new IllegalStateException("down"))))
+                .expectError(IllegalStateException.class)
+                .verify();
+        StepVerifier.create(cache.findById("1", id -> Mono.fromSupplier(() -> account("1" + calls.incrementAndGet()))))
+                .expectNextMatches(a -> "11".equals(a.getId()))
+                .verifyComplete();
+        cache.invalidate("1");
+        StepVerifier.create(cache.findById("1", id -> Mono.fromSupplier(() -> account("1" + calls.incrementAndGet()))))
+                .expectNextMatches(a -> "12".equals(a.getId()))
+                .verifyComplete();
+    }
+
+    @Test
+    void theLoaderRunsInTheContextOfTheCaller() {
+        Mono<BankAccountResponse> lookup = cache.findById("1", id -> Mono.deferContextual(ctx ->
+                Mono.just(account(ctx.getOrDefault(Correlation.KEY, "none")))));
+
+        StepVerifier.create(lookup.contextWrite(Context.of(Correlation.KEY, "req-1")))
+                .expectNextMatches(a -> "req-1".equals(a.getId()))
+                .verifyComplete();
+    }
+
+}
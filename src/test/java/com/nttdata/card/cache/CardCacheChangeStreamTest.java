@@ -0,0 +1,69 @@
+package com.nttdata.card.cache;
+
+import com.mongodb.reactivestreams.client.MongoClient;
+import com.mongodb.reactivestreams.client.MongoClients;
+import com.nttdata.card.events.ChangeStreamWatcher;
+import com.nttdata.card.model.Card;
+import com.nttdata.card.model.Money;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Runs against a local replica set, e.g. {@code CARD_IT_MONGODB_URI=mongodb://localhost:27017/?replicaSet=rs0}
+ */
+@EnabledIfEnvironmentVariable(named = "CARD_IT_MONGODB_URI", matches = ".+")
+class CardCacheChangeStreamTest {
+
+    private MongoClient client;
+
+    private ReactiveMongoTemplate template;
+
+    private CardCache cardCache;
+
+    private CardCacheInvalidator invalidator;
+
+    @BeforeEach
+    void setUp() {
+        client = MongoClients.create(System.getenv("CARD_IT_MONGODB_URI"));
+        template = new ReactiveMongoTemplate(client, "card_it");
+        template.dropCollection(Card.class).block();
+        template.createCollection(Card.class).block();
+        cardCache = new CardCache(true, 100, Duration.ofMinutes(5), new SimpleMeterRegistry());
+        invalidator = new CardCacheInvalidator(new ChangeStreamWatcher(template), cardCache);
+        invalidator.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        invalidator.stop();
+        client.close();
+    }
+
+    @Test
+    void writesFromAnotherReplicaInvalidateTheCache() throws InterruptedException {
+        Card card = template.insert(Card.builder().cci("cci-1").balance(Money.parse("10")).build()).block();
+        String id = card.getId();
+        assertEquals(Money.parse("10"), cardCache.findById(id, key -> template.findById(key, Card.class)).block().getBalance());
+
+        template.updateFirst(query(where("id").is(id)), Update.update("balance", Money.parse("20")), Card.class).block();
+
+        Money balance = null;
+        for (int i = 0; i < 50 && !Money.parse("20").equals(balance); i++) {
+            Thread.sleep(100);
+            balance = cardCache.findById(id, key -> template.findById(key, Card.class)).block().getBalance();
+        }
+        assertEquals(Money.parse("20"), balance);
+    }
+
+}
@@ -0,0 +1,72 @@
+package com.nttdata.card.cache;
+
+import com.nttdata.card.model.Card;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CardCacheTest {
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private final Function<String, Mono<Card>> loader = key -> Mono.fromSupplier(() -> {
+        loads.incrementAndGet();
+        return Card.builder().id("1").cci(key.equals("1") ? "cci-1" : key).build();
+    });
+
+    private CardCache cache(boolean enabled) {
+        return new CardCache(enabled, 100, Duration.ofMinutes(1), new SimpleMeterRegistry());
+    }
+
+    @Test
+    void findByIdLoadsOnlyOnMiss() {
+        CardCache cache = cache(true);
+
+        StepVerifier.create(cache.findById("1", loader)).expectNextCount(1).verifyComplete();
+        StepVerifier.create(cache.findById("1", loader)).expectNextCount(1).verifyComplete();
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void invalidateIdDropsIdAndCciEntries() {
+        CardCache cache = cache(true);
+        cache.findById("1", loader).block();
+        cache.findByCci("cci-1", loader).block();
+
+        cache.invalidateId("1");
+        cache.findById("1", loader).block();
+        cache.findByCci("cci-1", loader).block();
+
+        assertEquals(4, loads.get());
+    }
+
+    @Test
+    void emptyResultsAreNotCached() {
+        CardCache cache = cache(true);
+        Function<String, Mono<Card>> empty = key -> Mono.fromRunnable(loads::incrementAndGet);
+
+        StepVerifier.create(cache.findById("1", empty)).verifyComplete();
+        StepVerifier.create(cache.findById("1", empty)).verifyComplete();
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void disabledCacheAlwaysCallsLoader() {
+        CardCache cache = cache(false);
+
+        cache.findById("1", loader).block();
+        cache.findById("1", loader).block();
+
+        assertEquals(2, loads.get());
+    }
+
+}
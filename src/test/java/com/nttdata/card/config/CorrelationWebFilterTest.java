@@ -0,0 +1,77 @@
+package com.nttdata.card.config;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.AppenderBase;
+import com.nttdata.card.cache.CardTypeSnapshot;
+import com.nttdata.card.controller.CardTypeRestController;
+import com.nttdata.card.dto.mapper.CardTypeMapper;
+import com.nttdata.card.repository.ICardTypeRepository;
+import com.nttdata.card.service.impl.CardTypeServiceImpl;
+import com.nttdata.card.util.Correlation;
+import com.nttdata.card.util.TestClock;
+import com.nttdata.card.util.TimestampProvider;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CorrelationWebFilterTest {
+
+    private final ICardTypeRepository cardTypeRepository = mock(ICardTypeRepository.class);
+
+    private final Logger serviceLogger = (Logger) LoggerFactory.getLogger(CardTypeServiceImpl.class);
+
+    private final List<String> loggedIds = new CopyOnWriteArrayList<>();
+
+    private final AppenderBase<ILoggingEvent> appender = new AppenderBase<ILoggingEvent>() {
+        @Override
+        protected void append(ILoggingEvent event) {
+            loggedIds.add(String.valueOf(event.getMDCPropertyMap().get(Correlation.KEY)));
+        }
+    };
+
+    private WebTestClient client;
+
+    @BeforeEach
+    void setUp() {
+        appender.start();
+        serviceLogger.addAppender(appender);
+        CardTypeMapper mapper = new CardTypeMapper(new TimestampProvider(TestClock.at("2022-04-10T15:30:45Z")));
+        CardTypeServiceImpl service = new CardTypeServiceImpl(cardTypeRepository, mapper, mock(CardTypeSnapshot.class));
+        client = WebTestClient.bindToController(new CardTypeRestController(service, mapper))
+                .webFilter(new CorrelationWebFilter())
+                .build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        serviceLogger.detachAppender(appender);
+        appender.stop();
+    }
+
+    @Test
+    void theErrorLogOfARequestCarriesItsCorrelationId() {
+        when(cardTypeRepository.findById(anyString())).thenReturn(Mono.error(new IllegalStateException("down")));
+
+        client.get().uri("/api/v1/card-types/ct-1")
+                .header(Correlation.HEADER, "req-42")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectHeader().valueEquals(Correlation.HEADER, "req-42");
+
+        assertEquals(1, loggedIds.size());
+        assertEquals("req-42", loggedIds.get(0));
+    }
+
+}
@@ -0,0 +1,97 @@
+package com.nttdata.card.config;
+
+import com.nttdata.card.util.Correlation;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.metrics.AutoTimer;
+import org.springframework.boot.actuate.metrics.web.reactive.client.DefaultWebClientExchangeTagsProvider;
+import org.springframework.boot.actuate.metrics.web.reactive.client.MetricsWebClientCustomizer;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.util.context.Context;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class WebClientConfigTest {
+
+    private final WebClientConfig config = new WebClientConfig();
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private MockWebServer server;
+
+    private ConnectionProvider connectionProvider;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        Metrics.addRegistry(registry);
+        connectionProvider = config.connectionProvider(2, 4, Duration.ofSeconds(1), Duration.ofSeconds(30),
+                Duration.ofMinutes(5), Duration.ofSeconds(30), true);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        connectionProvider.dispose();
+        Metrics.removeRegistry(registry);
+        server.shutdown();
+    }
+
+    @Test
+    void pooledRequestsPublishPoolGaugesAndAcquireTime() {
+        WebClient.Builder builder = WebClient.builder();
+        new MetricsWebClientCustomizer(registry, new DefaultWebClientExchangeTagsProvider(), "http.client.requests",
+                AutoTimer.ENABLED).customize(builder);
+        WebClient webClient = config.webClient(builder, connectionProvider, registry, Duration.ofSeconds(1),
+                Duration.ofSeconds(1), Duration.ofSeconds(1), Duration.ofSeconds(1),
+                Collections.singletonList(HttpProtocol.HTTP11), false);
+        server.enqueue(new MockResponse().setBody("ok"));
+        server.enqueue(new MockResponse().setBody("ok"));
+
+        for (int i = 0; i < 2; i++) {
+            assertEquals("ok", webClient.get().uri(server.url("/").toString() + "accounts/{id}", "a" + i)
+                    .retrieve().bodyToMono(String.class).block(Duration.ofSeconds(5)));
+        }
+
+        assertEquals(2L, registry.get(WebClientConfig.ACQUIRE_TIMER).timer().count());
+        assertEquals(2L, registry.get("http.client.requests").tag("uri", "/accounts/{id}").timer().count());
+        assertNotNull(registry.find("reactor.netty.connection.provider.active.connections")
+                .tag("name", WebClientConfig.POOL_NAME).gauge());
+        assertEquals(2.0, registry.get("reactor.netty.connection.provider.max.connections")
+                .tag("name", WebClientConfig.POOL_NAME).gauge().value());
+        assertNotNull(registry.find("reactor.netty.connection.provider.pending.connections")
+                .tag("name", WebClientConfig.POOL_NAME).gauge());
+    }
+
+    @Test
+    void forwardsTheCorrelationIdOfTheContext() throws InterruptedException {
+        WebClient webClient = config.webClient(WebClient.builder(), connectionProvider, registry, Duration.ofSeconds(1),
+                Duration.ofSeconds(1), Duration.ofSeconds(1), Duration.ofSeconds(1),
+                Collections.singletonList(HttpProtocol.HTTP11), false);
+        server.enqueue(new MockResponse().setBody("ok"));
+        server.enqueue(new MockResponse().setBody("ok"));
+
+        webClient.get().uri(server.url("/").toString()).retrieve().bodyToMono(String.class)
+                .contextWrite(Context.of(Correlation.KEY, "req-1"))
+                .block(Duration.ofSeconds(5));
+        webClient.get().uri(server.url("/").toString()).retrieve().bodyToMono(String.class)
+                .block(Duration.ofSeconds(5));
+
+        assertEquals("req-1", server.takeRequest().getHeader(Correlation.HEADER));
+        assertNull(server.takeRequest().getHeader(Correlation.HEADER));
+    }
+
+}
@@ -0,0 +1,42 @@
+package com.nttdata.card.controller;
+
+import com.nttdata.card.dto.mapper.CardMapper;
+import com.nttdata.card.service.ICardService;
+import com.nttdata.card.util.TestClock;
+import com.nttdata.card.util.TimestampProvider;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.test.StepVerifier;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class CardRestControllerTest {
+
+    private final ICardService cardService = mock(ICardService.class);
+
+    private CardRestController controller;
+
+    @BeforeEach
+    void setUp() {
+        CardMapper mapper = new CardMapper(new TimestampProvider(TestClock.at("2022-04-10T15:30:45Z")));
+        controller = new CardRestController(cardService, mapper);
+    }
+
+    @Test
+    void fieldsAreRejectedOnAPagedRequest() {
+        StepVerifier.create(controller.getPage(null, 10, null, "id,cci"))
+                .expectErrorMatches(e -> ((ResponseStatusException) e).getStatus() == HttpStatus.BAD_REQUEST)
+                .verify();
+        StepVerifier.create(controller.getPageAfter("token", null, "id,cci"))
+                .expectErrorMatches(e -> ((ResponseStatusException) e).getStatus() == HttpStatus.BAD_REQUEST)
+                .verify();
+        verify(cardService, never()).findPage(any(), anyInt());
+    }
+
+}
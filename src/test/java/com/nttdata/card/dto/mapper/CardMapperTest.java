@@ -0,0 +1,34 @@
+package com.nttdata.card.dto.mapper;
+
+import com.nttdata.card.model.Card;
+import com.nttdata.card.util.TestClock;
+import com.nttdata.card.util.TimestampProvider;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.util.Date;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CardMapperTest {
+
+    private final CardMapper cardMapper = new CardMapper(new TimestampProvider(TestClock.at("2022-04-10T15:30:45Z")));
+
+    @Test
+    void fluxResponseKeepsTheOrder() {
+        StepVerifier.create(cardMapper.toFluxResponse(Flux.range(0, 500).map(i -> Card.builder().id(String.valueOf(i)).build()))
+                        .map(r -> Integer.valueOf(r.getId())))
+                .expectNextSequence(() -> IntStream.range(0, 500).iterator())
+                .verifyComplete();
+    }
+
+    @Test
+    void responseCarriesTheUpdateDate() {
+        Card card = Card.builder().id("1").createdAt(new Date(1000L)).updatedAt(new Date(2000L)).build();
+
+        assertEquals(new Date(2000L), cardMapper.toResponse(card).getUpdatedAt());
+    }
+
+}
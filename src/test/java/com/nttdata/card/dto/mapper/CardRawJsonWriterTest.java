@@ -0,0 +1,139 @@
+package com.nttdata.card.dto.mapper;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.mongodb.MongoClientSettings;
+import com.nttdata.card.config.MongoConfig;
+import com.nttdata.card.dto.response.CardResponse;
+import com.nttdata.card.model.Card;
+import com.nttdata.card.model.Money;
+import com.nttdata.card.util.TestClock;
+import com.nttdata.card.util.TimestampProvider;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.DocumentCodec;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Conformance of the raw JSON route: for the same stored card, the bytes must equal those of the
+ * controller path, which decodes a {@code Card}, maps a {@code CardResponse} and writes it with Jackson.
+ */
+class CardRawJsonWriterTest {
+
+    private final CardMapper cardMapper = new CardMapper(new TimestampProvider(TestClock.at("2022-04-10T15:30:45Z")));
+
+    private final MappingMongoConverter converter = converter();
+
+    private static MappingMongoConverter converter() {
+        MongoConfig config = new MongoConfig();
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(config.mongoCustomConversions().getSimpleTypeHolder());
+        mappingContext.afterPropertiesSet();
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        converter.setCustomConversions(config.mongoCustomConversions());
+        converter.afterPropertiesSet();
+        return converter;
+    }
+
+    private static ObjectMapper bootObjectMapper() {
+        return Jackson2ObjectMapperBuilder.json().featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build();
+    }
+
+    private static List<Card> cards() {
+        return Arrays.asList(
+                Card.builder().id(new ObjectId().toHexString()).cardNumber("4557880012345678").securityCode(123L)
+                        .expirationDate(new Date(1735603200000L)).cci("00219300123456789012").balance(Money.parse("1500.25"))
+                        .bankName("BCP").createdAt(new Date(1649604645000L)).updatedAt(new Date(1649604700000L)).version(3L).build(),
+                Card.builder().id(new ObjectId().toHexString()).build(),
+                Card.builder().id(new ObjectId().toHexString()).cardNumber("4557 \"8800\"\n\\").balance(Money.parse("-0.05"))
+                        .bankName("Banco de Crédito del Perú ✓ \u0001").build());
+    }
+
+    private RawBsonDocument store(Document document) {
+        return new RawBsonDocument(document, new DocumentCodec(MongoClientSettings.getDefaultCodecRegistry()));
+    }
+
+    private RawBsonDocument store(Card card) {
+        Document document = new Document();
+        converter.write(card, document);
+        return store(document);
+    }
+
+    private CardResponse controllerResponse(RawBsonDocument stored) {
+        Card decoded = converter.read(Card.class, new DocumentCodec(MongoClientSettings.getDefaultCodecRegistry())
+                .decode(stored.asBsonReader(), DecoderContext.builder().build()));
+        return cardMapper.toResponse(decoded);
+    }
+
+    private byte[] controllerJson(ObjectMapper objectMapper, RawBsonDocument stored) throws Exception {
+        return objectMapper.writeValueAsBytes(controllerResponse(stored));
+    }
+
+    private static String rawJson(CardRawJsonWriter writer, RawBsonDocument stored) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer.write(stored, out);
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void cardsAreByteCompatible() throws Exception {
+        for (ObjectMapper objectMapper : Arrays.asList(bootObjectMapper(), new ObjectMapper())) {
+            CardRawJsonWriter writer = new CardRawJsonWriter(objectMapper);
+            for (Card card : cards()) {
+                RawBsonDocument stored = store(card);
+                assertEquals(new String(controllerJson(objectMapper, stored), StandardCharsets.UTF_8), rawJson(writer, stored));
+            }
+        }
+    }
+
+    @Test
+    void legacyDocumentsAreByteCompatible() throws Exception {
+        ObjectMapper objectMapper = bootObjectMapper();
+        CardRawJsonWriter writer = new CardRawJsonWriter(objectMapper);
+        RawBsonDocument stored = store(new Document("_id", new ObjectId())
+                .append("security_code", 123)
+                .append("balance", (double) 1500.25f)
+                .append("_class", "com.nttdata.card.model.Card")
+                .append("applied_delta_refs", Arrays.asList("r1", "r2")));
+
+        assertEquals(new String(controllerJson(objectMapper, stored), StandardCharsets.UTF_8), rawJson(writer, stored));
+    }
+
+    @Test
+    void listIsByteCompatible() throws Exception {
+        ObjectMapper objectMapper = bootObjectMapper();
+        CardRawJsonWriter writer = new CardRawJsonWriter(objectMapper);
+        DefaultDataBufferFactory factory = DefaultDataBufferFactory.sharedInstance;
+        List<CardResponse> responses = new ArrayList<>();
+        StringBuilder raw = new StringBuilder("[");
+        for (Card card : cards()) {
+            RawBsonDocument stored = store(card);
+            responses.add(controllerResponse(stored));
+            DataBuffer buffer = writer.write(stored, factory, raw.length() == 1 ? 0 : (byte) ',');
+            raw.append(buffer.toString(StandardCharsets.UTF_8));
+            DataBufferUtils.release(buffer);
+        }
+        raw.append(']');
+
+        assertEquals(objectMapper.writeValueAsString(responses), raw.toString());
+    }
+
+}
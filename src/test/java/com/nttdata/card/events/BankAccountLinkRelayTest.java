@@ -0,0 +1,166 @@
+package com.nttdata.card.events;
+
+import com.nttdata.card.cache.BankAccountCache;
+import com.nttdata.card.dto.request.proxy.BankAccountRequest;
+import com.nttdata.card.dto.response.proxy.BankAccountResponse;
+import com.nttdata.card.exceptions.CustomException;
+import com.nttdata.card.model.OutboxMessage;
+import com.nttdata.card.proxy.bankaccount.BankAccountProxy;
+import com.nttdata.card.proxy.bankaccount.BankAccountResilience;
+import com.nttdata.card.repository.IOutboxRepository;
+import com.nttdata.card.util.MethodMetrics;
+import com.nttdata.card.util.TestClock;
+import com.nttdata.card.util.TimestampProvider;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BankAccountLinkRelayTest {
+
+    private static final Date NOW = Date.from(TestClock.at("2022-04-10T15:30:45Z").instant());
+
+    private final IOutboxRepository outboxRepository = mock(IOutboxRepository.class);
+
+    private final BankAccountProxy bankAccountProxy = mock(BankAccountProxy.class);
+
+    private final BankAccountLinkRelay relay = new BankAccountLinkRelay(outboxRepository, bankAccountProxy,
+            new TimestampProvider(TestClock.at("2022-04-10T15:30:45Z")), new SimpleMeterRegistry(),
+            Duration.ofSeconds(1), 2, 4, Duration.ofSeconds(30), 3, Duration.ofSeconds(1), Duration.ofSeconds(10));
+
+    private static OutboxMessage link(String id, String cardId, String bankAccountId, int attempts) {
+        OutboxMessage message = OutboxMessage.bankAccountLink(cardId, bankAccountId, NOW);
+        message.setId(id);
+        message.setAttempts(attempts);
+        return message;
+    }
+
+    private static BankAccountResponse account(String id) {
+        BankAccountResponse account = new BankAccountResponse();
+        account.setId(id);
+        return account;
+    }
+
+    @Test
+    void relayDrainsFullBatchesAndKeepsTheOrderPerBankAccount() {
+        OutboxMessage first = link("m1", "c1", "ba-1", 0);
+        OutboxMessage second = link("m2", "c2", "ba-1", 0);
+        OutboxMessage third = link("m3", "c3", "ba-2", 0);
+        when(outboxRepository.claim(eq(2), any(), any()))
+                .thenReturn(Flux.just(first, second))
+                .thenReturn(Flux.just(third));
+        when(bankAccountProxy.getBankAccountById(anyString())).thenAnswer(i -> Mono.just(account(i.getArgument(0))));
+        when(bankAccountProxy.bankAccountUpdate(anyString(), any())).thenReturn(Mono.just(new BankAccountResponse()));
+        when(outboxRepository.markSent(any(), any())).thenReturn(Mono.just(true));
+
+        StepVerifier.create(relay.relay()).expectNext(3L).verifyComplete();
+        verify(outboxRepository, times(2)).claim(eq(2), eq(NOW), eq(new Date(NOW.getTime() + 30000)));
+        InOrder inOrder = inOrder(bankAccountProxy);
+        inOrder.verify(bankAccountProxy).bankAccountUpdate(eq("ba-1"), argThat(r -> "c1".equals(r.getCardId())));
+        inOrder.verify(bankAccountProxy).bankAccountUpdate(eq("ba-1"), argThat(r -> "c2".equals(r.getCardId())));
+        verify(outboxRepository, times(3)).markSent(any(), eq(NOW));
+    }
+
+    @Test
+    void failedDeliveryIsRetriedWithBackoffAndThenGivenUp() {
+        when(outboxRepository.claim(anyInt(), any(), any()))
+                .thenReturn(Flux.just(link("m1", "c1", "ba-1", 0), link("m2", "c2", "ba-2", 2)))
+                .thenReturn(Flux.empty());
+        when(bankAccountProxy.getBankAccountById(anyString())).thenAnswer(i -> Mono.just(account(i.getArgument(0))));
+        when(bankAccountProxy.bankAccountUpdate(anyString(), any(BankAccountRequest.class)))
+                .thenReturn(Mono.error(CustomException.serviceUnavailable("down")));
+        when(outboxRepository.markRetry(any(), any(), anyString(), anyBoolean())).thenReturn(Mono.just(true));
+
+        StepVerifier.create(relay.relay()).expectNext(2L).verifyComplete();
+        verify(outboxRepository).markRetry(argThat(m -> "m1".equals(m.getId())),
+                eq(new Date(NOW.getTime() + 1000)), anyString(), eq(false));
+        verify(outboxRepository).markRetry(argThat(m -> "m2".equals(m.getId())),
+                eq(new Date(NOW.getTime() + 4000)), anyString(), eq(true));
+    }
+
+    @Test
+    void aFailedLinkHoldsBackTheNewerLinksOfItsBankAccount() {
+        when(outboxRepository.claim(anyInt(), any(), any()))
+                .thenReturn(Flux.just(link("m1", "c1", "ba-1", 0), link("m2", "c2", "ba-1", 0), link("m3", "c3", "ba-2", 0)))
+                .thenReturn(Flux.empty());
+        when(bankAccountProxy.getBankAccountById(anyString())).thenAnswer(i -> Mono.just(account(i.getArgument(0))));
+        when(bankAccountProxy.bankAccountUpdate(eq("ba-1"), any()))
+                .thenReturn(Mono.error(CustomException.serviceUnavailable("down")));
+        when(bankAccountProxy.bankAccountUpdate(eq("ba-2"), any())).thenReturn(Mono.just(new BankAccountResponse()));
+        when(outboxRepository.markSent(any(), any())).thenReturn(Mono.just(true));
+        when(outboxRepository.markRetry(any(), any(), anyString(), anyBoolean())).thenReturn(Mono.just(true));
+
+        StepVerifier.create(relay.relay()).expectNext(3L).verifyComplete();
+        verify(bankAccountProxy).bankAccountUpdate(eq("ba-1"), argThat(r -> "c1".equals(r.getCardId())));
+        verify(bankAccountProxy, never()).bankAccountUpdate(eq("ba-1"), argThat(r -> "c2".equals(r.getCardId())));
+        verify(outboxRepository).markRetry(argThat(m -> "m1".equals(m.getId())), any(), anyString(), eq(false));
+        verify(outboxRepository).markSent(argThat(m -> "m3".equals(m.getId())), any());
+    }
+
+    @Test
+    void linkToABankAccountThatDoesNotExistIsGivenUpAtOnce() throws IOException {
+        MockWebServer server = new MockWebServer();
+        server.enqueue(new MockResponse().setResponseCode(404));
+        server.start();
+        try {
+            BankAccountLinkRelay relay = new BankAccountLinkRelay(outboxRepository, proxy(server),
+                    new TimestampProvider(TestClock.at("2022-04-10T15:30:45Z")), new SimpleMeterRegistry(),
+                    Duration.ofSeconds(1), 2, 4, Duration.ofSeconds(30), 3, Duration.ofSeconds(1), Duration.ofSeconds(10));
+            when(outboxRepository.claim(anyInt(), any(), any()))
+                    .thenReturn(Flux.just(link("m1", "c1", "ba-404", 0)))
+                    .thenReturn(Flux.empty());
+            when(outboxRepository.markRetry(any(), any(), anyString(), anyBoolean())).thenReturn(Mono.just(true));
+
+            StepVerifier.create(relay.relay()).expectNext(1L).verifyComplete();
+            assertEquals(1, server.getRequestCount());
+            verify(outboxRepository).markRetry(argThat(m -> "m1".equals(m.getId())), any(), anyString(), eq(true));
+        } finally {
+            server.shutdown();
+        }
+    }
+
+    private static BankAccountProxy proxy(MockWebServer server) {
+        // budgets well above the first request of a new client, so the 404 is what the relay sees
+        BankAccountResilience resilience = new BankAccountResilience(Duration.ofSeconds(10), Duration.ofSeconds(10),
+                10, Duration.ZERO, 50, Duration.ofSeconds(1), 100, 10, 10, Duration.ofMinutes(1), false,
+                Duration.ofMillis(100), new SimpleMeterRegistry());
+        BankAccountProxy proxy = new BankAccountProxy(WebClient.create(),
+                new BankAccountCache(false, 10, Duration.ofMinutes(1), new SimpleMeterRegistry()), resilience,
+                new MethodMetrics(new SimpleMeterRegistry()), false, "/by-ids", 10, Duration.ofMillis(50), 2, 1);
+        ReflectionTestUtils.setField(proxy, "accountURL", server.url("/api/v1/bank-accounts").toString());
+        return proxy;
+    }
+
+    @Test
+    void backoffDoublesUpToTheMax() {
+        assertEquals(Duration.ofSeconds(1), relay.backoff(0));
+        assertEquals(Duration.ofSeconds(8), relay.backoff(3));
+        assertEquals(Duration.ofSeconds(10), relay.backoff(4));
+        assertEquals(Duration.ofSeconds(10), relay.backoff(60));
+    }
+
+}
@@ -0,0 +1,122 @@
+package com.nttdata.card.events;
+
+import com.mongodb.MongoCommandException;
+import com.mongodb.ServerAddress;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import com.nttdata.card.model.Card;
+import com.nttdata.card.model.CardBankSummaryEntry;
+import com.nttdata.card.model.Money;
+import com.nttdata.card.repository.ICardBankSummaryRepository;
+import com.nttdata.card.repository.IChangeStreamCheckpointRepository;
+import com.nttdata.card.util.TestClock;
+import com.nttdata.card.util.TimestampProvider;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonString;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.mongodb.UncategorizedMongoDbException;
+import org.springframework.data.mongodb.core.ChangeStreamEvent;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CardBankSummaryProjectorTest {
+
+    private final ICardBankSummaryRepository cardBankSummaryRepository = mock(ICardBankSummaryRepository.class);
+
+    private final TransactionalOperator transactionalOperator = mock(TransactionalOperator.class);
+
+    private final CardBankSummaryProjector projector = new CardBankSummaryProjector(mock(ChangeStreamWatcher.class),
+            cardBankSummaryRepository, mock(IChangeStreamCheckpointRepository.class), transactionalOperator,
+            new TimestampProvider(TestClock.at("2026-10-18T10:00:00Z")), new SimpleMeterRegistry(),
+            2, Duration.ofSeconds(1), Duration.ofMillis(10));
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void transactions() {
+        when(transactionalOperator.transactional(any(Mono.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ChangeStreamEvent<Card> event(OperationType type, String id, Card body) {
+        ChangeStreamEvent<Card> event = mock(ChangeStreamEvent.class);
+        when(event.getOperationType()).thenReturn(type);
+        when(event.getBody()).thenReturn(body);
+        when(event.getRaw()).thenReturn(new ChangeStreamDocument<>(type, null, null, null, null,
+                id == null ? null : new BsonDocument("_id", new BsonString(id)), null, null, null, null));
+        return event;
+    }
+
+    private static Card card(String id, String bank, String balance) {
+        Card card = new Card("4111", 123L, null, "cci-" + id, Money.parse(balance), bank, null, null);
+        card.setId(id);
+        return card;
+    }
+
+    @Test
+    void changesSyncTheEntryOfTheCurrentCard() {
+        when(cardBankSummaryRepository.sync(anyString(), any(), any())).thenReturn(Mono.empty());
+
+        StepVerifier.create(projector.apply(event(OperationType.UPDATE, "c1", card("c1", "BCP", "7.00"))))
+                .verifyComplete();
+        StepVerifier.create(projector.apply(event(OperationType.DELETE, "c2", null))).verifyComplete();
+        // the card was deleted before the lookup of the update
+        StepVerifier.create(projector.apply(event(OperationType.UPDATE, "c3", null))).verifyComplete();
+
+        verify(cardBankSummaryRepository).sync(eq("c1"), argThat((CardBankSummaryEntry e) ->
+                "BCP".equals(e.getBankName()) && e.getBalance() == 700L), any());
+        verify(cardBankSummaryRepository).sync(eq("c2"), isNull(), any());
+        verify(cardBankSummaryRepository).sync(eq("c3"), isNull(), any());
+    }
+
+    @Test
+    void failedWriteIsRetried() {
+        AtomicInteger attempts = new AtomicInteger();
+        when(cardBankSummaryRepository.sync(anyString(), any(), any())).thenReturn(Mono.defer(() ->
+                attempts.incrementAndGet() < 3
+                        ? Mono.error(new DataAccessResourceFailureException("write conflict"))
+                        : Mono.empty()));
+
+        StepVerifier.create(projector.apply(event(OperationType.INSERT, "c1", card("c1", "BCP", "1"))))
+                .verifyComplete();
+        assertEquals(3, attempts.get());
+    }
+
+    @Test
+    void droppedCollectionIsNotApplied() {
+        StepVerifier.create(projector.apply(event(OperationType.DROP, null, null))).verifyComplete();
+        verify(cardBankSummaryRepository, never()).sync(any(), any(), any());
+        assertNull(CardBankSummaryEntry.of(null));
+    }
+
+    @Test
+    void lostHistoryIsDetectedThroughTheTranslation() {
+        MongoCommandException lost = new MongoCommandException(new BsonDocument("ok", new BsonInt32(0))
+                .append("code", new BsonInt32(286))
+                .append("errmsg", new BsonString("resume point may no longer be in the oplog")), new ServerAddress());
+        assertTrue(CardBankSummaryProjector.isHistoryLost(new UncategorizedMongoDbException("lost", lost)));
+        assertFalse(CardBankSummaryProjector.isHistoryLost(new DataAccessResourceFailureException("timeout")));
+    }
+
+}
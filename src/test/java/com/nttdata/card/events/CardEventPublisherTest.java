@@ -0,0 +1,101 @@
+package com.nttdata.card.events;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nttdata.card.enums.EventType;
+import com.nttdata.card.model.Card;
+import com.nttdata.card.model.Money;
+import com.nttdata.card.util.TestClock;
+import com.nttdata.card.util.TimestampProvider;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class CardEventPublisherTest {
+
+    private static final String TOPIC = "CARD-EVENTS-TEST";
+
+    private static EmbeddedKafkaBroker broker;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @BeforeAll
+    static void startBroker() {
+        broker = new EmbeddedKafkaBroker(1, false, 1, TOPIC);
+        broker.afterPropertiesSet();
+    }
+
+    @AfterAll
+    static void stopBroker() {
+        broker.destroy();
+    }
+
+    private CardEventPublisher publisher(SimpleMeterRegistry registry, int bufferSize) {
+        return new CardEventPublisher(objectMapper, new TimestampProvider(TestClock.at("2022-04-10T15:30:45Z")),
+                registry, broker.getBrokersAsString(), true, TOPIC, bufferSize, Duration.ofMillis(5), 16384,
+                "lz4", 16);
+    }
+
+    @Test
+    void eventsArePublishedInOrderKeyedByCardId() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        CardEventPublisher publisher = publisher(registry, 100);
+        Card card = Card.builder().id("card-1").cardNumber("4557880612345678").securityCode(123L).cci("001")
+                .balance(Money.parse("10.50")).build();
+
+        publisher.publish(EventType.CREATED, card);
+        publisher.publish(EventType.UPDATED, card);
+        publisher.publish(EventType.DELETED, Card.builder().id("card-1").build());
+
+        List<ConsumerRecord<String, String>> records = consume(3);
+        publisher.stop();
+        assertEquals(3, records.size());
+        for (ConsumerRecord<String, String> record : records) {
+            assertEquals("card-1", record.key());
+        }
+        assertEquals("CREATED", objectMapper.readTree(records.get(0).value()).get("type").asText());
+        assertEquals("UPDATED", objectMapper.readTree(records.get(1).value()).get("type").asText());
+        assertEquals("DELETED", objectMapper.readTree(records.get(2).value()).get("type").asText());
+        JsonNode data = objectMapper.readTree(records.get(0).value()).get("data");
+        assertEquals("001", data.get("cci").asText());
+        assertEquals("************5678", data.get("cardNumber").asText());
+        assertFalse(data.has("securityCode"));
+        assertEquals(Money.parse("10.50"), objectMapper.treeToValue(data.get("balance"), Money.class));
+        assertEquals(3.0, registry.get("card.events.published").tag("outcome", "sent").counter().count());
+        assertEquals(0.0, registry.get("card.events.pending").gauge().value());
+    }
+
+    private List<ConsumerRecord<String, String>> consume(int expected) {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString());
+        props.put(ConsumerConfig.GROUP_ID_CONFIG, "card-event-publisher-test");
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        List<ConsumerRecord<String, String>> records = new ArrayList<>();
+        try (KafkaConsumer<String, String> consumer = new KafkaConsumer<>(props, new StringDeserializer(),
+                new StringDeserializer())) {
+            consumer.subscribe(Collections.singletonList(TOPIC));
+            long deadline = System.currentTimeMillis() + 30000;
+            while (records.size() < expected && System.currentTimeMillis() < deadline) {
+                consumer.poll(Duration.ofMillis(200)).forEach(records::add);
+            }
+        }
+        return records;
+    }
+
+}
@@ -0,0 +1,228 @@
+package com.nttdata.card.events;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nttdata.card.dto.request.BalanceDeltaRequest;
+import com.nttdata.card.dto.response.BalanceDeltaResponse;
+import com.nttdata.card.enums.EventType;
+import com.nttdata.card.model.Money;
+import com.nttdata.card.service.ICardService;
+import com.nttdata.card.util.Topic;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import reactor.core.publisher.Flux;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class WalletEventConsumerTest {
+
+    private static EmbeddedKafkaBroker broker;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final ICardService cardService = mock(ICardService.class);
+
+    private final List<List<BalanceDeltaRequest>> batches = new CopyOnWriteArrayList<>();
+
+    @BeforeAll
+    static void startBroker() {
+        broker = new EmbeddedKafkaBroker(1, false, 2,
+                Topic.WALLET_CREATED, Topic.WALLET_UPDATED, Topic.WALLET_DELETED, Topic.WALLET_DEAD_LETTER);
+        broker.afterPropertiesSet();
+    }
+
+    @AfterAll
+    static void stopBroker() {
+        broker.destroy();
+    }
+
+    private WalletEventConsumer consumer(String groupId) {
+        WalletEventConsumer consumer = new WalletEventConsumer(objectMapper, cardService, new SimpleMeterRegistry(),
+                broker.getBrokersAsString(), groupId, 100, Duration.ofMillis(20), 2, Duration.ofMillis(100),
+                Duration.ofMillis(50), 3, Topic.WALLET_DEAD_LETTER, 1000, Duration.ofMinutes(1));
+        consumer.start();
+        return consumer;
+    }
+
+    /**
+     * Answers with the given statuses, one attempt of a batch after the other, recording the requests of every call.
+     * The attempts are counted by the first event of the batch, as the groups also read the events of other tests
+     */
+    @SuppressWarnings("unchecked")
+    private void answer(String... statuses) {
+        Map<String, AtomicInteger> attempts = new ConcurrentHashMap<>();
+        when(cardService.applyBalanceDeltas(any())).thenAnswer(invocation ->
+                ((Flux<BalanceDeltaRequest>) invocation.getArgument(0))
+                        .collectList()
+                        .doOnNext(batches::add)
+                        .flatMapMany(requests -> {
+                            int attempt = attempts.computeIfAbsent(requests.get(0).getIdempotencyRef(),
+                                    k -> new AtomicInteger()).getAndIncrement();
+                            String status = statuses[Math.min(attempt, statuses.length - 1)];
+                            return Flux.fromIterable(requests)
+                                    .map(r -> new BalanceDeltaResponse(r.getCardId(), r.getCci(), r.getDelta(),
+                                            Collections.singletonList(r.getIdempotencyRef()), status, null));
+                        }));
+    }
+
+    @Test
+    void eventsAreAppliedInOrderOnceAndCommittedAfterTheWrite() throws Exception {
+        answer(BalanceDeltaResponse.APPLIED);
+        String card = new ObjectId().toHexString();
+        WalletEventConsumer consumer = consumer("wallet-order");
+        try (KafkaProducer<String, String> producer = producer()) {
+            send(producer, Topic.WALLET_UPDATED, card, "e1", "10.00");
+            send(producer, Topic.WALLET_UPDATED, card, "e2", "-2.50");
+            producer.send(new ProducerRecord<>(Topic.WALLET_UPDATED, card, "not json")).get();
+            await(() -> refs(card).size() == 2);
+
+            send(producer, Topic.WALLET_UPDATED, card, "e1", "10.00");
+            send(producer, Topic.WALLET_UPDATED, card, "e3", "1.00");
+            await(() -> refs(card).size() == 3);
+        }
+
+        assertEquals(Arrays.asList("e1", "e2", "e3"), refs(card));
+        assertEquals(Money.parse("-2.50"), batches.stream().flatMap(List::stream)
+                .filter(r -> "e2".equals(r.getIdempotencyRef())).findFirst().get().getDelta());
+        await(() -> committed("wallet-order", Topic.WALLET_UPDATED) == 5L);
+        consumer.stop();
+    }
+
+    @Test
+    void failedBatchIsRetriedBeforeItsOffsetIsCommitted() throws Exception {
+        answer(BalanceDeltaResponse.FAILED, BalanceDeltaResponse.FAILED, BalanceDeltaResponse.APPLIED);
+        String card = new ObjectId().toHexString();
+        WalletEventConsumer consumer = consumer("wallet-retry");
+        try (KafkaProducer<String, String> producer = producer()) {
+            send(producer, Topic.WALLET_CREATED, card, "c1", "5.00");
+        }
+
+        await(() -> batches.stream().filter(b -> "c1".equals(b.get(0).getIdempotencyRef())).count() == 3);
+        await(() -> committed("wallet-retry", Topic.WALLET_CREATED) == 1L);
+        assertEquals(3, batches.stream().filter(b -> b.stream()
+                .anyMatch(r -> "c1".equals(r.getIdempotencyRef()))).count());
+        consumer.stop();
+    }
+
+    @Test
+    void eventsFailingEveryAttemptGoToTheDeadLetterTopic() throws Exception {
+        answer(BalanceDeltaResponse.FAILED);
+        String card = new ObjectId().toHexString();
+        WalletEventConsumer consumer = consumer("wallet-dead-letter");
+        try (KafkaProducer<String, String> producer = producer()) {
+            send(producer, Topic.WALLET_DELETED, card, "d1", "1.00");
+        }
+
+        await(() -> committed("wallet-dead-letter", Topic.WALLET_DELETED) == 1L);
+        assertEquals(3, batches.stream().filter(b -> "d1".equals(b.get(0).getIdempotencyRef())).count());
+        try (KafkaConsumer<String, String> deadLetters = deadLetterConsumer()) {
+            deadLetters.subscribe(Collections.singletonList(Topic.WALLET_DEAD_LETTER));
+            List<ConsumerRecord<String, String>> records = new ArrayList<>();
+            await(() -> {
+                deadLetters.poll(Duration.ofMillis(100)).forEach(records::add);
+                return records.stream().anyMatch(r -> r.value().contains("\"d1\""));
+            });
+            ConsumerRecord<String, String> record = records.stream()
+                    .filter(r -> r.value().contains("\"d1\"")).findFirst().get();
+            assertEquals(card, record.key());
+            assertEquals(Topic.WALLET_DELETED, new String(record.headers()
+                    .lastHeader(WalletEventConsumer.ORIGINAL_TOPIC).value(), StandardCharsets.UTF_8));
+        }
+        consumer.stop();
+    }
+
+    private KafkaConsumer<String, String> deadLetterConsumer() {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString());
+        props.put(ConsumerConfig.GROUP_ID_CONFIG, "wallet-dead-letter-reader");
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        return new KafkaConsumer<>(props, new StringDeserializer(), new StringDeserializer());
+    }
+
+    /**
+     * Refs applied for a card, as the groups also read the events of other tests
+     */
+    private List<String> refs(String card) {
+        return batches.stream().flatMap(List::stream)
+                .filter(r -> card.equals(r.getCardId()))
+                .map(BalanceDeltaRequest::getIdempotencyRef)
+                .collect(Collectors.toList());
+    }
+
+    private KafkaProducer<String, String> producer() {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString());
+        return new KafkaProducer<>(props, new StringSerializer(), new StringSerializer());
+    }
+
+    private void send(KafkaProducer<String, String> producer, String topic, String cardId, String eventId,
+                      String delta) throws Exception {
+        BalanceDeltaRequest data = new BalanceDeltaRequest();
+        data.setCardId(cardId);
+        data.setDelta(Money.parse(delta));
+        KafkaEvent<BalanceDeltaRequest> event = new KafkaEvent<>(eventId, new Date(), EventType.UPDATED, data);
+        producer.send(new ProducerRecord<>(topic, cardId, objectMapper.writeValueAsString(event))).get();
+    }
+
+    /**
+     * Sum of the committed offsets of the group over the partitions of a topic
+     */
+    private long committed(String groupId, String topic) {
+        Map<String, Object> props = new HashMap<>();
+        props.put(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString());
+        try (AdminClient admin = AdminClient.create(props)) {
+            Map<TopicPartition, OffsetAndMetadata> offsets = admin.listConsumerGroupOffsets(groupId)
+                    .partitionsToOffsetAndMetadata().get();
+            return offsets.entrySet().stream()
+                    .filter(e -> topic.equals(e.getKey().topic()))
+                    .mapToLong(e -> e.getValue().offset())
+                    .sum();
+        } catch (Exception e) {
+            return -1L;
+        }
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 30000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("condition not met in time");
+            }
+            Thread.sleep(50);
+        }
+    }
+
+}
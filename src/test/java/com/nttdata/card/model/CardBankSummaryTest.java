@@ -0,0 +1,78 @@
+package com.nttdata.card.model;
+
+import com.nttdata.card.dto.mapper.CardBankSummaryMapper;
+import com.nttdata.card.dto.response.CardBankSummaryResponse;
+import com.nttdata.card.util.TestClock;
+import com.nttdata.card.util.TimestampProvider;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CardBankSummaryTest {
+
+    private static final Date OCTOBER = Date.from(TestClock.at("2026-10-31T23:59:59Z").instant());
+
+    private static CardBankSummaryEntry entry(String bank, String balance, Date expiration) {
+        Card card = new Card("4111", 123L, expiration, "cci-1", balance == null ? null : Money.parse(balance), bank,
+                null, null);
+        card.setId("c1");
+        return CardBankSummaryEntry.of(card);
+    }
+
+    private static Map<String, Long> fields(Object... pairs) {
+        Map<String, Long> fields = new LinkedHashMap<>();
+        for (int i = 0; i < pairs.length; i += 2) {
+            fields.put((String) pairs[i], (Long) pairs[i + 1]);
+        }
+        return fields;
+    }
+
+    @Test
+    void newCardAddsToItsBank() {
+        assertEquals(Collections.singletonMap("BCP", fields(
+                        "card_count", 1L, "balances.PEN.count", 1L, "balances.PEN.total", 1050L, "expiring.2026-10", 1L)),
+                CardBankSummary.increments(null, entry("BCP", "10.50", OCTOBER)));
+        assertEquals("2026-10", entry("BCP", "1", OCTOBER).getExpirationMonth());
+    }
+
+    @Test
+    void changeAddsOnlyTheDifference() {
+        assertEquals(Collections.singletonMap("BCP", fields("balances.PEN.total", -250L)),
+                CardBankSummary.increments(entry("BCP", "10.50", OCTOBER), entry("BCP", "8.00", OCTOBER)));
+        assertTrue(CardBankSummary.increments(entry("BCP", "8.00", OCTOBER), entry("BCP", "8.00", OCTOBER)).isEmpty());
+    }
+
+    @Test
+    void movedOrDeletedCardLeavesItsBank() {
+        Map<String, Map<String, Long>> moved = CardBankSummary.increments(entry("BCP", "5", null), entry("BBVA", null, null));
+        assertEquals(fields("card_count", -1L, "balances.PEN.count", -1L, "balances.PEN.total", -500L), moved.get("BCP"));
+        assertEquals(fields("card_count", 1L), moved.get("BBVA"));
+        assertEquals(Collections.singletonMap("BBVA", fields("card_count", -1L)),
+                CardBankSummary.increments(entry("BBVA", null, null), null));
+        assertNull(entry(null, "5", OCTOBER));
+    }
+
+    @Test
+    void responseHasTheAverageAndTheCardsExpiringThisMonth() {
+        Map<String, CardBankSummary.BalanceTotal> balances = new HashMap<>();
+        balances.put("PEN", new CardBankSummary.BalanceTotal(3L, 1000L));
+        Map<String, Long> expiring = new HashMap<>();
+        expiring.put("2026-09", 4L);
+        expiring.put("2026-10", 2L);
+        CardBankSummaryResponse response = new CardBankSummaryMapper(new TimestampProvider(TestClock.at("2026-10-18T10:00:00Z")))
+                .toResponse(new CardBankSummary("BCP", 3L, balances, expiring, OCTOBER));
+
+        assertEquals(2L, response.getExpiringThisMonth());
+        assertEquals(Money.parse("10.00"), response.getBalances().get(0).getTotal());
+        assertEquals(Money.parse("3.33"), response.getBalances().get(0).getAverage());
+    }
+
+}
@@ -0,0 +1,59 @@
+package com.nttdata.card.model;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nttdata.card.config.MongoConfig;
+import com.nttdata.card.dto.request.BalanceRequest;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MoneyTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void parsesAndRoundsHalfUp() {
+        assertEquals(1050L, Money.parse("10.5").getMinorUnits());
+        assertEquals(-5L, Money.parse("-0.05").getMinorUnits());
+        assertEquals(1000L, Money.parse("10").getMinorUnits());
+        assertEquals(1235L, Money.parse("12.345").getMinorUnits());
+        assertEquals(1234L, Money.parse("12.3449").getMinorUnits());
+        assertThrows(NumberFormatException.class, () -> Money.parse("1,5"));
+        assertThrows(NumberFormatException.class, () -> Money.parse("-"));
+    }
+
+    @Test
+    void arithmeticIsExact() {
+        Money total = Money.zero();
+        for (int i = 0; i < 1000; i++) {
+            total = total.plus(Money.parse("0.10"));
+        }
+        assertEquals(Money.parse("100"), total);
+        assertEquals("-0.05", Money.parse("0.05").negate().toString());
+        assertThrows(IllegalArgumentException.class, () -> Money.zero().plus(Money.ofMinor(1, "USD")));
+    }
+
+    @Test
+    void jsonKeepsTheNumberFormat() throws Exception {
+        BalanceRequest request = objectMapper.readValue("{\"amount\":1500.255}", BalanceRequest.class);
+        assertEquals(150026L, request.getAmount().getMinorUnits());
+        assertEquals("{\"amount\":1500.26}", objectMapper.writeValueAsString(request));
+        assertEquals(700L, objectMapper.readValue("{\"amount\":\"7\"}", BalanceRequest.class).getAmount().getMinorUnits());
+        assertEquals(120000L, objectMapper.readValue("{\"amount\":1.2E3}", BalanceRequest.class).getAmount().getMinorUnits());
+    }
+
+    @Test
+    void bsonRoundTripAndLegacyDoubles() {
+        Document stored = new MongoConfig.MoneyWritingConverter().convert(Money.parse("99.99"));
+        assertTrue(stored.get(MongoConfig.MONEY_AMOUNT) instanceof Long);
+        assertEquals(Money.parse("99.99"), new MongoConfig.MoneyReadingConverter().convert(stored));
+        assertEquals(Money.parse("1500.25"), new MongoConfig.LegacyMoneyReadingConverter().convert((double) 1500.25f));
+        assertEquals(101L, Money.ofDouble(1.005).getMinorUnits());
+        assertEquals(13L, Money.ofDouble(0.125).getMinorUnits());
+        assertEquals(-13L, Money.ofDouble(-0.125).getMinorUnits());
+    }
+
+}
@@ -0,0 +1,228 @@
+package com.nttdata.card.proxy.bankaccount;
+
+import com.nttdata.card.cache.BankAccountCache;
+import com.nttdata.card.dto.request.proxy.BankAccountRequest;
+import com.nttdata.card.dto.response.proxy.BankAccountResponse;
+import com.nttdata.card.util.MethodMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * The bank account service is a local stub that injects latency and failures
+ */
+class BankAccountProxyTest {
+
+    private static final String ACCOUNT = "{\"id\":\"ba-1\"}";
+
+    private MockWebServer server;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    private BankAccountProxy proxy(int maxConcurrentCalls, int minimumCalls, boolean hedge) {
+        return proxy(maxConcurrentCalls, minimumCalls, hedge, false);
+    }
+
+    private BankAccountProxy proxy(int maxConcurrentCalls, int minimumCalls, boolean hedge, boolean batch) {
+        BankAccountResilience resilience = new BankAccountResilience(Duration.ofSeconds(1), Duration.ofSeconds(1),
+                maxConcurrentCalls, Duration.ZERO, 50, Duration.ofSeconds(1), 100, minimumCalls, minimumCalls,
+                Duration.ofMinutes(1), hedge, Duration.ofMillis(100), new SimpleMeterRegistry());
+        BankAccountProxy proxy = new BankAccountProxy(WebClient.create(),
+                new BankAccountCache(false, 10, Duration.ofMinutes(1), new SimpleMeterRegistry()), resilience,
+                new MethodMetrics(new SimpleMeterRegistry()), batch, "/by-ids", 10, Duration.ofMillis(50), 2, 1);
+        ReflectionTestUtils.setField(proxy, "accountURL", server.url("/api/v1/bank-accounts").toString());
+        return proxy;
+    }
+
+    private static MockResponse account() {
+        return new MockResponse().setHeader("Content-Type", "application/json").setBody(ACCOUNT);
+    }
+
+    private static boolean hasStatus(Throwable e, HttpStatus status) {
+        return e instanceof ResponseStatusException && ((ResponseStatusException) e).getStatus() == status;
+    }
+
+    @Test
+    void slowReadFailsWithinItsBudget() {
+        server.enqueue(account().setHeadersDelay(3, TimeUnit.SECONDS));
+
+        StepVerifier.create(proxy(10, 10, false).getBankAccountById("ba-1"))
+                .expectErrorMatches(e -> hasStatus(e, HttpStatus.SERVICE_UNAVAILABLE))
+                .verify(Duration.ofSeconds(2));
+    }
+
+    @Test
+    void openCircuitFailsFastWithoutCallingTheService() {
+        BankAccountProxy proxy = proxy(10, 2, false);
+        server.enqueue(new MockResponse().setResponseCode(500));
+        server.enqueue(new MockResponse().setResponseCode(500));
+
+        for (int i = 0; i < 2; i++) {
+            StepVerifier.create(proxy.getBankAccountById("ba-1"))
+                    .expectErrorMatches(e -> hasStatus(e, HttpStatus.BAD_REQUEST))
+                    .verify();
+        }
+        StepVerifier.create(proxy.getBankAccountById("ba-1"))
+                .expectErrorMatches(e -> hasStatus(e, HttpStatus.SERVICE_UNAVAILABLE))
+                .verify(Duration.ofMillis(200));
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    void bulkheadRejectsCallsBeyondItsLimit() {
+        BankAccountProxy proxy = proxy(1, 10, false);
+        server.enqueue(account().setHeadersDelay(100, TimeUnit.MILLISECONDS));
+        server.enqueue(account());
+
+        StepVerifier.create(Flux.merge(
+                                proxy.getBankAccountById("ba-1").map(a -> "ok"),
+                                proxy.getBankAccountById("ba-1").map(a -> "ok"))
+                        .onErrorResume(e -> Flux.just(hasStatus(e, HttpStatus.SERVICE_UNAVAILABLE) ? "rejected" : "other")))
+                .expectNext("rejected")
+                .verifyComplete();
+    }
+
+    @Test
+    void hedgedReadReturnsTheFastestResponse() {
+        server.enqueue(account().setHeadersDelay(3, TimeUnit.SECONDS));
+        server.enqueue(account());
+
+        StepVerifier.create(proxy(10, 10, true).getBankAccountById("ba-1"))
+                .expectNextMatches(a -> "ba-1".equals(a.getId()))
+                .expectComplete()
+                .verify(Duration.ofMillis(900));
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    void writesAreNeverHedged() throws InterruptedException {
+        server.enqueue(account().setHeadersDelay(3, TimeUnit.SECONDS));
+        server.enqueue(account());
+
+        StepVerifier.create(proxy(10, 10, true).bankAccountUpdate("ba-1", new BankAccountRequest("card-1")))
+                .expectErrorMatches(e -> hasStatus(e, HttpStatus.SERVICE_UNAVAILABLE))
+                .verify(Duration.ofSeconds(2));
+        assertNotNull(server.takeRequest(1, TimeUnit.SECONDS));
+        assertNull(server.takeRequest(200, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void concurrentLookupsShareOneBatchRequest() throws InterruptedException {
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                if (!"/api/v1/bank-accounts/by-ids".equals(request.getPath())) {
+                    return new MockResponse().setResponseCode(500);
+                }
+                return new MockResponse().setHeader("Content-Type", "application/json")
+                        .setBody("[{\"id\":\"ba-1\"},{\"id\":\"ba-2\"}]");
+            }
+        });
+        BankAccountProxy proxy = proxy(10, 10, false, true);
+
+        StepVerifier.create(Flux.merge(proxy.getBankAccountById("ba-1"), proxy.getBankAccountById("ba-2"),
+                                proxy.getBankAccountById("ba-1"))
+                        .map(BankAccountResponse::getId)
+                        .sort())
+                .expectNext("ba-1", "ba-1", "ba-2")
+                .verifyComplete();
+        RecordedRequest request = server.takeRequest(1, TimeUnit.SECONDS);
+        assertEquals("POST", request.getMethod());
+        assertEquals("[\"ba-1\",\"ba-2\"]", request.getBody().readUtf8());
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    void missingBatchEndpointFallsBackToSingleLookups() {
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                if ("POST".equals(request.getMethod())) {
+                    return new MockResponse().setResponseCode(404);
+                }
+                String path = request.getPath();
+                return new MockResponse().setHeader("Content-Type", "application/json")
+                        .setBody("{\"id\":\"" + path.substring(path.lastIndexOf('/') + 1) + "\"}");
+            }
+        });
+        BankAccountProxy proxy = proxy(10, 10, false, true);
+
+        StepVerifier.create(Flux.merge(proxy.getBankAccountById("ba-1"), proxy.getBankAccountById("ba-2"))
+                        .map(BankAccountResponse::getId)
+                        .sort())
+                .expectNext("ba-1", "ba-2")
+                .verifyComplete();
+        assertEquals(3, server.getRequestCount());
+
+        StepVerifier.create(proxy.getBankAccountById("ba-3").map(BankAccountResponse::getId))
+                .expectNext("ba-3")
+                .verifyComplete();
+        assertEquals(4, server.getRequestCount());
+    }
+
+    @Test
+    void failedBatchFailsEveryCaller() {
+        server.enqueue(new MockResponse().setResponseCode(500));
+        BankAccountProxy proxy = proxy(10, 10, false, true);
+
+        StepVerifier.create(Flux.merge(
+                                proxy.getBankAccountById("ba-1").map(BankAccountResponse::getId),
+                                proxy.getBankAccountById("ba-2").map(BankAccountResponse::getId))
+                        .onErrorResume(e -> Flux.just(hasStatus(e, HttpStatus.BAD_REQUEST) ? "failed" : "other")))
+                .expectNext("failed")
+                .verifyComplete();
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    void batchesBeyondTheConcurrencyWaitForTheirTurn() {
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                String ids = request.getBody().readUtf8();
+                String id = ids.substring(2, ids.indexOf('"', 2));
+                return account().setBody("[{\"id\":\"" + id + "\"}]")
+                        .setHeadersDelay(200, TimeUnit.MILLISECONDS);
+            }
+        });
+        BankAccountProxy proxy = proxy(10, 10, false, true);
+
+        StepVerifier.create(Flux.range(0, 5)
+                        .delayElements(Duration.ofMillis(60))
+                        .flatMap(i -> proxy.getBankAccountById("ba-" + i))
+                        .count())
+                .expectNext(5L)
+                .expectComplete()
+                .verify(Duration.ofSeconds(5));
+        assertEquals(5, server.getRequestCount());
+    }
+
+}
@@ -0,0 +1,99 @@
+package com.nttdata.card.repository;
+
+import com.mongodb.reactivestreams.client.MongoClient;
+import com.mongodb.reactivestreams.client.MongoClients;
+import com.nttdata.card.config.MongoIndexReconciler;
+import com.nttdata.card.model.Card;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs explain() for the filters issued by {@link ICardRepository} and fails on any COLLSCAN.
+ * Needs a local mongod, e.g. {@code CARD_IT_MONGODB_URI=mongodb://localhost:27017}
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@EnabledIfEnvironmentVariable(named = "CARD_IT_MONGODB_URI", matches = ".+")
+class CardQueryPlanTest {
+
+    private MongoClient client;
+
+    private ReactiveMongoTemplate template;
+
+    @BeforeAll
+    void setUp() {
+        client = MongoClients.create(System.getenv("CARD_IT_MONGODB_URI"));
+        template = new ReactiveMongoTemplate(client, "card_it");
+        template.dropCollection(Card.class).block();
+        template.createCollection(Card.class).block();
+        List<String> drift = new MongoIndexReconciler(template, true, Duration.ofSeconds(30))
+                .reconcile(Card.class).collectList().block();
+        assertTrue(drift.isEmpty(), "drift: " + drift);
+    }
+
+    @AfterAll
+    void tearDown() {
+        client.close();
+    }
+
+    @Test
+    void reconcileIsIdempotent() {
+        assertTrue(new MongoIndexReconciler(template, true, Duration.ofSeconds(30))
+                .reconcile(Card.class).collectList().block().isEmpty());
+    }
+
+    @Test
+    void findByIdUsesAnIndex() {
+        assertNoCollectionScan(new Document("_id", new ObjectId()));
+    }
+
+    @Test
+    void findByCciUsesAnIndex() {
+        assertNoCollectionScan(new Document("cci", "00211234567890123456"));
+    }
+
+    @Test
+    void pageByIdUsesAnIndex() {
+        assertNoCollectionScan(new Document("_id", new Document("$gt", new ObjectId())), new Document("_id", 1));
+    }
+
+    @Test
+    void pageByCreatedAtUsesAnIndex() {
+        Date createdAt = new Date();
+        assertNoCollectionScan(new Document("$or", Arrays.asList(
+                        new Document("created_at", new Document("$gt", createdAt)),
+                        new Document("created_at", createdAt).append("_id", new Document("$gt", new ObjectId())))),
+                new Document("created_at", 1).append("_id", 1));
+    }
+
+    private void assertNoCollectionScan(Document filter) {
+        assertNoCollectionScan(filter, new Document());
+    }
+
+    private void assertNoCollectionScan(Document filter, Document sort) {
+        Document plan = explain(filter, sort);
+        assertFalse(plan.toJson().contains("\"COLLSCAN\""), "collection scan for " + filter.toJson() + ": " + plan.toJson());
+    }
+
+    private Document explain(Document filter, Document sort) {
+        return template.getCollection("cards")
+                .flatMap(c -> Mono.from(c.find(filter).sort(sort).explain()))
+                .map(e -> e.get("queryPlanner", Document.class).get("winningPlan", Document.class))
+                .block();
+    }
+
+}
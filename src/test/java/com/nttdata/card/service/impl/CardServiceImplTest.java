@@ -0,0 +1,377 @@
+package com.nttdata.card.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import com.nttdata.card.cache.CardCache;
+import com.nttdata.card.dto.mapper.CardMapper;
+import com.nttdata.card.dto.request.BalanceDeltaRequest;
+import com.nttdata.card.dto.request.BalanceRequest;
+import com.nttdata.card.dto.request.CardPatchRequest;
+import com.nttdata.card.dto.request.CardRequest;
+import com.nttdata.card.dto.response.BalanceDeltaResponse;
+import com.nttdata.card.enums.CardField;
+import com.nttdata.card.enums.EventType;
+import com.nttdata.card.events.CardEventPublisher;
+import com.nttdata.card.enums.OutboxStatus;
+import com.nttdata.card.model.BalanceDelta;
+import com.nttdata.card.model.Card;
+import com.nttdata.card.model.Money;
+import com.nttdata.card.model.OutboxMessage;
+import com.nttdata.card.repository.ICardRepository;
+import com.nttdata.card.repository.ICardRepositoryCustomImpl;
+import com.nttdata.card.repository.IOutboxRepository;
+import com.nttdata.card.util.MethodMetrics;
+import com.nttdata.card.util.PageCursor;
+import com.nttdata.card.util.TestClock;
+import com.nttdata.card.util.TimestampProvider;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CardServiceImplTest {
+
+    private final ICardRepository cardRepository = mock(ICardRepository.class);
+
+    private final IOutboxRepository outboxRepository = mock(IOutboxRepository.class);
+
+    private final TransactionalOperator transactionalOperator = mock(TransactionalOperator.class);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final CardEventPublisher cardEventPublisher = mock(CardEventPublisher.class);
+
+    private CardServiceImpl cardService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        TimestampProvider timestampProvider = new TimestampProvider(TestClock.at("2022-04-10T15:30:45Z"));
+        cardService = new CardServiceImpl(cardRepository, new CardMapper(timestampProvider), outboxRepository,
+                transactionalOperator, new CardCache(true, 100, Duration.ofMinutes(1), new SimpleMeterRegistry()),
+                timestampProvider, cardEventPublisher, new MethodMetrics(new SimpleMeterRegistry()));
+        when(transactionalOperator.transactional(any(Mono.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(outboxRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        ReflectionTestUtils.setField(cardService, "updateMaxRetries", 3);
+        ReflectionTestUtils.setField(cardService, "deltasChunkSize", 1000);
+        ReflectionTestUtils.setField(cardService, "batchChunkSize", 1000);
+        ReflectionTestUtils.setField(cardService, "batchMaxInFlight", 4);
+        when(cardRepository.findAllById(anyIterable())).thenReturn(Flux.empty());
+    }
+
+    @Test
+    void updateRetriesOnVersionConflict() {
+        Card card = Card.builder().id("1").balance(Money.parse("10")).version(1L).build();
+        when(cardRepository.findById("1")).thenReturn(Mono.fromSupplier(() -> Card.builder().id("1").balance(Money.parse("10")).version(1L).build()));
+        when(cardRepository.replaceIfVersion(any()))
+                .thenReturn(Mono.error(new OptimisticLockingFailureException("conflict")))
+                .thenReturn(Mono.just(card));
+        CardRequest request = new CardRequest();
+        request.setBalance(Money.parse("20"));
+
+        StepVerifier.create(cardService.update("1", request)).expectNext(card).verifyComplete();
+        verify(cardRepository, times(2)).replaceIfVersion(any());
+        verify(cardEventPublisher).publish(EventType.UPDATED, card);
+    }
+
+    @Test
+    void updateGivesUpAfterMaxRetries() {
+        when(cardRepository.findById("1")).thenReturn(Mono.fromSupplier(() -> Card.builder().id("1").version(1L).build()));
+        when(cardRepository.replaceIfVersion(any())).thenReturn(Mono.error(new OptimisticLockingFailureException("conflict")));
+
+        StepVerifier.create(cardService.update("1", new CardRequest()))
+                .expectErrorMatches(e -> ((ResponseStatusException) e).getStatus() == HttpStatus.CONFLICT)
+                .verify();
+        verify(cardRepository, times(4)).replaceIfVersion(any());
+        verify(cardEventPublisher, never()).publish(any(), any());
+    }
+
+    @Test
+    void pageAfterACardWithoutCreatedAtGoesOnWithTheRestOfThem() {
+        ObjectId undated = new ObjectId();
+        Card next = Card.builder().id(new ObjectId().toHexString()).build();
+        when(cardRepository.findAfterMissingCreatedAt(eq(undated), any())).thenReturn(Flux.just(next));
+        PageCursor cursor = PageCursor.first(PageCursor.SORT_CREATED_AT)
+                .next(Card.builder().id(undated.toHexString()).build());
+
+        StepVerifier.create(cardService.findPage(PageCursor.decode(cursor.encode(), null), 10))
+                .expectNext(next)
+                .verifyComplete();
+        verify(cardRepository, never()).findAfterCreatedAt(any(), any(), any());
+    }
+
+    @Test
+    void creditPublishesTheUpdatedCard() {
+        Card card = Card.builder().id("1").balance(Money.parse("60")).build();
+        when(cardRepository.incrementBalance(eq("1"), eq(5000L), eq(true), any())).thenReturn(Mono.just(card));
+        BalanceRequest request = new BalanceRequest();
+        request.setAmount(Money.parse("50"));
+
+        StepVerifier.create(cardService.credit("1", request)).expectNext(card).verifyComplete();
+        verify(cardEventPublisher).publish(EventType.UPDATED, card);
+    }
+
+    @Test
+    void deleteOfAMissingCardPublishesNothing() {
+        when(cardRepository.removeById("1")).thenReturn(Mono.just(0L));
+        when(cardRepository.removeById("2")).thenReturn(Mono.just(1L));
+
+        StepVerifier.create(cardService.deleteById("1")).verifyComplete();
+        StepVerifier.create(cardService.deleteById("2")).verifyComplete();
+        verify(cardEventPublisher, never()).publish(EventType.DELETED, Card.builder().id("1").build());
+        verify(cardEventPublisher).publish(EventType.DELETED, Card.builder().id("2").build());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void onlyTheInsertedCardsOfABatchArePublished() {
+        when(cardRepository.insertAllUnordered(any())).thenAnswer(invocation -> {
+            List<Card> cards = invocation.getArgument(0);
+            cards.get(0).setId("1");
+            return Mono.just(Collections.singletonMap(1, "E11000 duplicate key"));
+        });
+
+        StepVerifier.create(cardService.createBatch(Flux.just(cardRequest("001"), cardRequest("001"))))
+                .expectNextCount(2)
+                .verifyComplete();
+        ArgumentCaptor<Card> created = ArgumentCaptor.forClass(Card.class);
+        verify(cardEventPublisher).publish(eq(EventType.CREATED), created.capture());
+        assertEquals("1", created.getValue().getId());
+    }
+
+    private static CardRequest cardRequest(String cci) {
+        CardRequest request = new CardRequest();
+        request.setCardNumber("4557880612345678");
+        request.setSecurityCode(123L);
+        request.setExpirationDate(new Date());
+        request.setCci(cci);
+        request.setBalance(Money.parse("10"));
+        return request;
+    }
+
+    @Test
+    void debitWithoutBalanceIsRejected() {
+        when(cardRepository.incrementBalance(eq("1"), anyLong(), anyBoolean(), any())).thenReturn(Mono.empty());
+        when(cardRepository.existsById("1")).thenReturn(Mono.just(true));
+        BalanceRequest request = new BalanceRequest();
+        request.setAmount(Money.parse("50"));
+
+        StepVerifier.create(cardService.debit("1", request))
+                .expectErrorMatches(e -> ((ResponseStatusException) e).getStatus() == HttpStatus.BAD_REQUEST)
+                .verify();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void balanceDeltasAreCoalescedPerCard() {
+        String id = new ObjectId().toHexString();
+        ArgumentCaptor<List<BalanceDelta>> chunk = ArgumentCaptor.forClass(List.class);
+        when(cardRepository.findBalanceDeltaState(any())).thenReturn(Flux.just(state(id, "001"),
+                state(new ObjectId().toHexString(), "002")));
+        when(cardRepository.applyBalanceDeltas(chunk.capture(), anyString(), any())).thenReturn(written(2L));
+
+        StepVerifier.create(cardService.applyBalanceDeltas(Flux.just(
+                        delta(id, null, "10.05", "r1"),
+                        delta(null, "002", "5", "r2"),
+                        delta(id, null, "-3.95", "r3"),
+                        delta(id, null, "1", "r1"),
+                        delta("bad", null, "1", null))))
+                .expectNextMatches(r -> BalanceDeltaResponse.DUPLICATE.equals(r.getStatus()))
+                .expectNextMatches(r -> BalanceDeltaResponse.INVALID.equals(r.getStatus()))
+                .expectNextMatches(r -> BalanceDeltaResponse.APPLIED.equals(r.getStatus()) && r.getDelta().equals(Money.parse("10.05")))
+                .expectNextMatches(r -> BalanceDeltaResponse.APPLIED.equals(r.getStatus()) && r.getDelta().equals(Money.parse("-3.95")))
+                .expectNextMatches(r -> BalanceDeltaResponse.APPLIED.equals(r.getStatus()) && "002".equals(r.getCci()))
+                .verifyComplete();
+        assertEquals(2, chunk.getValue().size());
+        assertEquals(610L, chunk.getValue().get(0).getDelta());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void aReplayedRefDoesNotHoldBackTheNewRefsOfItsCard() {
+        String id = new ObjectId().toHexString();
+        Document card = state(id, "001");
+        card.put(ICardRepositoryCustomImpl.APPLIED_DELTA_REFS, Collections.singletonList("r1"));
+        ArgumentCaptor<List<BalanceDelta>> chunk = ArgumentCaptor.forClass(List.class);
+        when(cardRepository.findBalanceDeltaState(any())).thenReturn(Flux.just(card));
+        when(cardRepository.applyBalanceDeltas(chunk.capture(), anyString(), any())).thenReturn(written(1L));
+
+        StepVerifier.create(cardService.applyBalanceDeltas(Flux.just(
+                        delta(id, null, "10", "r1"),
+                        delta(id, null, "5", "r2"))))
+                .expectNextMatches(r -> BalanceDeltaResponse.DUPLICATE.equals(r.getStatus())
+                        && r.getIdempotencyRefs().equals(Collections.singletonList("r1")))
+                .expectNextMatches(r -> BalanceDeltaResponse.APPLIED.equals(r.getStatus())
+                        && r.getIdempotencyRefs().equals(Collections.singletonList("r2"))
+                        && r.getDelta().equals(Money.parse("5")))
+                .verifyComplete();
+        assertEquals(500L, chunk.getValue().get(0).getDelta());
+        assertEquals(Collections.singletonList("r2"), chunk.getValue().get(0).getRefs());
+    }
+
+    @Test
+    void aDeltaByCciDropsTheCardCachedById() {
+        String id = new ObjectId().toHexString();
+        when(cardRepository.findById(id)).thenReturn(Mono.fromSupplier(() -> Card.builder().id(id).cci("001").build()));
+        when(cardRepository.findBalanceDeltaState(any())).thenReturn(Flux.just(state(id, "001")));
+        when(cardRepository.applyBalanceDeltas(any(), anyString(), any())).thenReturn(written(1L));
+
+        StepVerifier.create(cardService.findById(id)).expectNextCount(1).verifyComplete();
+        StepVerifier.create(cardService.applyBalanceDeltas(Flux.just(delta(null, "001", "5", "r1"))))
+                .expectNextMatches(r -> BalanceDeltaResponse.APPLIED.equals(r.getStatus()))
+                .verifyComplete();
+        StepVerifier.create(cardService.findById(id)).expectNextCount(1).verifyComplete();
+        verify(cardRepository, times(2)).findById(id);
+    }
+
+    @Test
+    void onlyTheDeltaWhoseUpdateFailedIsReportedFailed() {
+        String id = new ObjectId().toHexString();
+        when(cardRepository.findBalanceDeltaState(any())).thenReturn(Flux.just(state(id, "001"),
+                state(new ObjectId().toHexString(), "002")));
+        when(cardRepository.applyBalanceDeltas(any(), anyString(), any()))
+                .thenReturn(Mono.just(Tuples.of(1L, Collections.singletonMap(1, "Cannot apply $inc to a value of non-numeric type"))));
+
+        StepVerifier.create(cardService.applyBalanceDeltas(Flux.just(
+                        delta(id, null, "10", null),
+                        delta(null, "002", "5", "r2"))))
+                .expectNextMatches(r -> BalanceDeltaResponse.FAILED.equals(r.getStatus()) && "002".equals(r.getCci()))
+                .expectNextMatches(r -> BalanceDeltaResponse.APPLIED.equals(r.getStatus()) && id.equals(r.getCardId()))
+                .verifyComplete();
+        verify(cardRepository).findBalanceDeltaState(any());
+    }
+
+    @Test
+    void theCardsOfTheAppliedDeltasArePublished() {
+        String id = new ObjectId().toHexString();
+        Card card = Card.builder().id(id).cci("001").balance(Money.parse("15")).build();
+        when(cardRepository.findBalanceDeltaState(any())).thenReturn(Flux.just(state(id, "001")));
+        when(cardRepository.applyBalanceDeltas(any(), anyString(), any())).thenReturn(written(1L));
+        when(cardRepository.findAllById(Collections.singletonList(id))).thenReturn(Flux.just(card));
+
+        StepVerifier.create(cardService.applyBalanceDeltas(Flux.just(delta(null, "001", "5", "r1"))))
+                .expectNextMatches(r -> BalanceDeltaResponse.APPLIED.equals(r.getStatus()))
+                .verifyComplete();
+        verify(cardEventPublisher).publish(EventType.UPDATED, card);
+    }
+
+    @Test
+    void aCardThatKeepsChangingIsGivenUpAfterTheMaxRetries() {
+        String id = new ObjectId().toHexString();
+        when(cardRepository.findBalanceDeltaState(any())).thenReturn(Flux.just(state(id, "001")));
+        when(cardRepository.applyBalanceDeltas(any(), anyString(), any())).thenReturn(written(0L));
+
+        StepVerifier.create(cardService.applyBalanceDeltas(Flux.just(delta(id, null, "10", "r1"))))
+                .expectNextMatches(r -> BalanceDeltaResponse.FAILED.equals(r.getStatus()))
+                .verifyComplete();
+        verify(cardRepository, times(4)).applyBalanceDeltas(any(), anyString(), any());
+    }
+
+    private static Mono<Tuple2<Long, Map<Integer, String>>> written(long matched) {
+        return Mono.just(Tuples.of(matched, Collections.emptyMap()));
+    }
+
+    private static Document state(String id, String cci) {
+        return new Document("_id", new ObjectId(id)).append("cci", cci);
+    }
+
+    private static BalanceDeltaRequest delta(String cardId, String cci, String delta, String ref) {
+        BalanceDeltaRequest request = new BalanceDeltaRequest();
+        request.setCardId(cardId);
+        request.setCci(cci);
+        request.setDelta(Money.parse(delta));
+        request.setIdempotencyRef(ref);
+        return request;
+    }
+
+    @Test
+    void patchWritesOnlyThePresentFields() throws Exception {
+        Card card = Card.builder().id("1").bankName("BBVA").build();
+        when(cardRepository.applyPatch(eq("1"), any(), any(), any())).thenReturn(Mono.just(card));
+        CardPatchRequest patch = objectMapper.readValue("{\"bankName\":\"BBVA\",\"balance\":12.5}", CardPatchRequest.class);
+        Map<CardField, Object> expected = new EnumMap<>(CardField.class);
+        expected.put(CardField.BANK_NAME, "BBVA");
+        expected.put(CardField.BALANCE, Money.parse("12.50"));
+
+        StepVerifier.create(cardService.patch("1", patch)).expectNext(card).verifyComplete();
+        verify(cardRepository).applyPatch(eq("1"),
+                eq(expected),
+                eq(EnumSet.noneOf(CardField.class)), any());
+        verify(outboxRepository, never()).save(any());
+    }
+
+    @Test
+    void patchLinksTheBankAccountOnlyWhenPresent() throws Exception {
+        when(cardRepository.existsById("1")).thenReturn(Mono.just(true));
+        when(cardRepository.applyPatch(eq("1"), any(), any(), any())).thenReturn(Mono.just(Card.builder().id("1").build()));
+        CardPatchRequest patch = objectMapper.readValue("{\"bankAccountId\":\"ba-1\",\"bankName\":null}", CardPatchRequest.class);
+
+        StepVerifier.create(cardService.patch("1", patch)).expectNextCount(1).verifyComplete();
+        verify(cardRepository).applyPatch(eq("1"), eq(Collections.emptyMap()), eq(EnumSet.of(CardField.BANK_NAME)), any());
+        verify(outboxRepository).save(argThat(m -> "1".equals(m.getCardId()) && "ba-1".equals(m.getBankAccountId())));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void updateRecordsTheBankAccountLinkInTheCardTransaction() {
+        Card card = Card.builder().id("1").version(1L).build();
+        when(cardRepository.findById("1")).thenReturn(Mono.fromSupplier(() -> Card.builder().id("1").version(1L).build()));
+        when(cardRepository.replaceIfVersion(any())).thenReturn(Mono.just(card));
+        CardRequest request = new CardRequest();
+        request.setBankAccountId("ba-1");
+
+        StepVerifier.create(cardService.update("1", request)).expectNext(card).verifyComplete();
+        ArgumentCaptor<OutboxMessage> message = ArgumentCaptor.forClass(OutboxMessage.class);
+        verify(outboxRepository).save(message.capture());
+        assertEquals(OutboxMessage.BANK_ACCOUNT_LINK, message.getValue().getType());
+        assertEquals(OutboxStatus.PENDING, message.getValue().getStatus());
+        assertEquals("ba-1", message.getValue().getBankAccountId());
+        verify(transactionalOperator).transactional(any(Mono.class));
+    }
+
+    @Test
+    void patchRejectsReadOnlyAndRequiredFields() {
+        assertThrows(MismatchedInputException.class,
+                () -> objectMapper.readValue("{\"createdAt\":\"2022-01-01\"}", CardPatchRequest.class));
+        assertThrows(MismatchedInputException.class,
+                () -> objectMapper.readValue("{\"cci\":null}", CardPatchRequest.class));
+        assertThrows(MismatchedInputException.class,
+                () -> objectMapper.readValue("{\"unknown\":1}", CardPatchRequest.class));
+    }
+
+}
@@ -0,0 +1,45 @@
+package com.nttdata.card.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import reactor.util.context.Context;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CorrelationTest {
+
+    @AfterEach
+    void tearDown() {
+        MDC.clear();
+    }
+
+    @Test
+    void keepsASafeIdAndReplacesAnUnsafeOne() {
+        assertEquals("req-1.a_B", Correlation.idOf("req-1.a_B"));
+        assertTrue(Correlation.idOf((String) null).matches("[0-9a-f]{16}"));
+        assertTrue(Correlation.idOf("forged\nline").matches("[0-9a-f]{16}"));
+        assertNotEquals("", Correlation.idOf(""));
+    }
+
+    @Test
+    void putsTheIdInTheMdcForTheLogLineOnly() {
+        AtomicReference<String> logged = new AtomicReference<>();
+        MDC.put(Correlation.KEY, "outer");
+
+        Correlation.log(Context.of(Correlation.KEY, "req-1"), () -> logged.set(MDC.get(Correlation.KEY)));
+
+        assertEquals("req-1", logged.get());
+        assertEquals("outer", MDC.get(Correlation.KEY));
+        MDC.remove(Correlation.KEY);
+        Correlation.log(Context.of(Correlation.KEY, "req-2"), () -> logged.set(MDC.get(Correlation.KEY)));
+        assertEquals("req-2", logged.get());
+        assertNull(MDC.get(Correlation.KEY));
+    }
+
+}
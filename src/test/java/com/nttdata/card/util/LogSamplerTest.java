@@ -0,0 +1,30 @@
+package com.nttdata.card.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LogSamplerTest {
+
+    @Test
+    void logsOneInEvery() {
+        LogSampler sampler = new LogSampler(3);
+        int logged = 0;
+        for (int i = 0; i < 9; i++) {
+            logged += sampler.sample() ? 1 : 0;
+        }
+
+        assertEquals(3, logged);
+    }
+
+    @Test
+    void logsEveryCallBelowTwo() {
+        LogSampler sampler = new LogSampler(0);
+
+        assertTrue(sampler.sample());
+        assertTrue(sampler.sample());
+        assertEquals(1L, sampler.getEvery());
+    }
+
+}
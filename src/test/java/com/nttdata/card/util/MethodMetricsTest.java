@@ -0,0 +1,51 @@
+package com.nttdata.card.util;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class MethodMetricsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private final MethodMetrics methodMetrics = new MethodMetrics(registry);
+
+    @Test
+    void timesEachSubscriptionByOutcome() {
+        Mono<String> found = methodMetrics.time("card-service", "findById", Mono.just("card"));
+
+        StepVerifier.create(found).expectNext("card").verifyComplete();
+        StepVerifier.create(found).expectNext("card").verifyComplete();
+        StepVerifier.create(methodMetrics.time("card-service", "findById", Mono.error(new IllegalStateException())))
+                .verifyError(IllegalStateException.class);
+
+        assertEquals(2, count("findById", "success"));
+        assertEquals(1, count("findById", "error"));
+        assertNull(registry.find(MethodMetrics.TIMER).tag("outcome", "cancelled").timer());
+    }
+
+    @Test
+    void timesAFluxUntilItIsCancelled() {
+        StepVerifier.create(methodMetrics.time("card-service", "stream", Flux.range(1, 10)), 1)
+                .expectNext(1)
+                .thenCancel()
+                .verify();
+
+        assertEquals(1, count("stream", "cancelled"));
+    }
+
+    private long count(String method, String outcome) {
+        return registry.get(MethodMetrics.TIMER)
+                .tag("component", "card-service")
+                .tag("method", method)
+                .tag("outcome", outcome)
+                .timer()
+                .count();
+    }
+
+}
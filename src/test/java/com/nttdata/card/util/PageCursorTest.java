@@ -0,0 +1,55 @@
+package com.nttdata.card.util;
+
+import com.nttdata.card.model.Card;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PageCursorTest {
+
+    private final Card last = Card.builder().id(new ObjectId().toHexString()).createdAt(new Date(1650000000000L)).build();
+
+    @Test
+    void nextCursorRoundTripsThroughTheToken() {
+        PageCursor cursor = PageCursor.first(PageCursor.SORT_CREATED_AT).next(last);
+
+        PageCursor decoded = PageCursor.decode(cursor.encode(), null);
+
+        assertTrue(decoded.isSortedByCreatedAt());
+        assertEquals(last.getId(), decoded.getId());
+        assertEquals(1650000000000L, decoded.getCreatedAt());
+    }
+
+    @Test
+    void cursorAfterACardWithoutCreatedAtKeepsNoDate() {
+        Card undated = Card.builder().id(new ObjectId().toHexString()).build();
+
+        PageCursor decoded = PageCursor.decode(PageCursor.first(PageCursor.SORT_CREATED_AT).next(undated).encode(), null);
+
+        assertFalse(decoded.isFirst());
+        assertNull(decoded.getCreatedAt());
+        assertEquals(undated.getId(), decoded.getId());
+    }
+
+    @Test
+    void tokenIsBoundToItsSort() {
+        String token = PageCursor.first(PageCursor.SORT_ID).next(last).encode();
+
+        assertThrows(ResponseStatusException.class, () -> PageCursor.decode(token, PageCursor.SORT_CREATED_AT));
+    }
+
+    @Test
+    void tamperedTokenIsRejected() {
+        assertThrows(ResponseStatusException.class, () -> PageCursor.decode("aWR8bm90LWFuLWlk", null));
+        assertThrows(ResponseStatusException.class, () -> PageCursor.decode("%%%", null));
+    }
+
+}
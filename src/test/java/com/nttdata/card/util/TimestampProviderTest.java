@@ -0,0 +1,47 @@
+package com.nttdata.card.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimestampProviderTest {
+
+    @Test
+    void truncatesToTheSecond() {
+        TestClock clock = TestClock.at("2022-04-10T15:30:45.987Z");
+        TimestampProvider provider = new TimestampProvider(clock);
+
+        assertEquals(Date.from(Instant.parse("2022-04-10T15:30:45Z")), provider.now());
+        clock.advance(Duration.ofMillis(13));
+        assertEquals(Date.from(Instant.parse("2022-04-10T15:30:46Z")), provider.now());
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    void matchesTheFormattedDate() {
+        TimestampProvider provider = new TimestampProvider(TestClock.at("1969-12-31T23:59:59.500Z"));
+        Date expected = AppUtil.dateFormat(Date.from(Instant.parse("1969-12-31T23:59:59.500Z")));
+
+        assertEquals(expected, provider.now());
+    }
+
+    @Test
+    void coarseClockFollowsItsSource() throws Exception {
+        TestClock source = TestClock.at("2022-04-10T15:30:45Z");
+        try (CoarseClock clock = new CoarseClock(source, 1)) {
+            source.advance(Duration.ofSeconds(5));
+            for (int i = 0; i < 100 && clock.millis() != source.millis(); i++) {
+                Thread.sleep(10);
+            }
+            assertEquals(source.millis(), clock.millis());
+            assertTrue(Clock.systemUTC().millis() > clock.millis());
+        }
+    }
+
+}